@@ -0,0 +1,147 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.event.AnomalyEventPublisher;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.service.ModelCompiler;
+import com.guyshalev.Salt_security.service.ModelLearner;
+import com.guyshalev.Salt_security.service.ModelRegistry;
+import com.guyshalev.Salt_security.service.StreamingRequestValidator;
+import com.guyshalev.Salt_security.service.TypeRegistry;
+import com.guyshalev.Salt_security.service.TypeValidator;
+import com.guyshalev.Salt_security.service.ValidationMetrics;
+import com.guyshalev.Salt_security.service.ValidationService;
+import com.guyshalev.Salt_security.service.VerdictCache;
+import com.guyshalev.Salt_security.validator.RequestValidator;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates model sets and matching requests for the benchmarks.
+ * Every generated model except the target one declares a single parameter per section, so that large
+ * model sets stay small in memory while the target model carries the requested number of parameters.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String TARGET_PATH = "/bench/target";
+    public static final String TARGET_METHOD = "POST";
+
+    private static final String[] SECTIONS = {"query_params", "headers", "body"};
+    private static final String[][] TYPE_SAMPLES = {
+            {"Int", "12345"},
+            {"String", "\"some text\""},
+            {"Boolean", "true"},
+            {"List", "[1, 2, 3]"},
+            {"Date", "\"25-12-2024\""},
+            {"Email", "\"user@example.com\""},
+            {"UUID", "\"123e4567-e89b-12d3-a456-426614174000\""},
+            {"Auth-Token", "\"Bearer abc123def456\""}
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Builds a model with the given number of parameters in every section.
+     * Parameter types cycle through all supported types; every other parameter is required.
+     */
+    public static String model(String path, String method, int paramsPerSection) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"path\": \"").append(path).append("\", \"method\": \"").append(method).append('"');
+        for (String section : SECTIONS) {
+            json.append(", \"").append(section).append("\": [");
+            for (int i = 0; i < paramsPerSection; i++) {
+                if (i > 0) json.append(", ");
+                json.append("{\"name\": \"p").append(i)
+                        .append("\", \"types\": [\"").append(TYPE_SAMPLES[i % TYPE_SAMPLES.length][0])
+                        .append("\"], \"required\": ").append(i % 2 == 0).append('}');
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Builds a request for the target model that satisfies every declared parameter.
+     */
+    public static String request(int paramsPerSection) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"path\": \"").append(TARGET_PATH)
+                .append("\", \"method\": \"").append(TARGET_METHOD).append('"');
+        for (String section : SECTIONS) {
+            json.append(", \"").append(section).append("\": [");
+            for (int i = 0; i < paramsPerSection; i++) {
+                if (i > 0) json.append(", ");
+                json.append("{\"name\": \"p").append(i)
+                        .append("\", \"value\": ").append(TYPE_SAMPLES[i % TYPE_SAMPLES.length][1]).append('}');
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Builds a request for the target model in which every parameter value is an object, which no declared
+     * type accepts, so that every parameter is an anomaly.
+     */
+    public static String invalidRequest(int paramsPerSection) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"path\": \"").append(TARGET_PATH)
+                .append("\", \"method\": \"").append(TARGET_METHOD).append('"');
+        for (String section : SECTIONS) {
+            json.append(", \"").append(section).append("\": [");
+            for (int i = 0; i < paramsPerSection; i++) {
+                if (i > 0) json.append(", ");
+                json.append("{\"name\": \"p").append(i).append("\", \"value\": {\"invalid\": ").append(i).append("}}");
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Builds a model set of the given size whose last model is the target model.
+     */
+    public static List<String> models(int modelCount, int paramsPerSection) {
+        List<String> models = new ArrayList<>(modelCount);
+        for (int i = 0; i < modelCount - 1; i++) {
+            models.add(model("/bench/models/" + i, i % 2 == 0 ? "GET" : "POST", 1));
+        }
+        models.add(model(TARGET_PATH, TARGET_METHOD, paramsPerSection));
+        return models;
+    }
+
+    /**
+     * Builds a validation service outside of Spring with the given models already registered.
+     * The repository and mapper are not needed for request validation and are left out. Metrics are recorded
+     * into a Prometheus registry, as in the application, unless disabled in the given properties; anomaly
+     * events, if enabled, are queued and batched as in the application and then dropped.
+     */
+    public static ValidationService validationService(ObjectMapper objectMapper, List<String> models,
+                                                      ValidationProperties properties) throws Exception {
+        TypeRegistry typeRegistry = new TypeRegistry();
+        TypeValidator typeValidator = new TypeValidator(properties.getSchema().getMaxElements());
+        ModelCompiler modelCompiler = new ModelCompiler(objectMapper, typeRegistry);
+        ModelRegistry modelRegistry = new ModelRegistry();
+
+        List<CompiledModel> compiledModels = new ArrayList<>(models.size());
+        for (String model : models) {
+            compiledModels.add(modelCompiler.compile(objectMapper.readTree(model)));
+        }
+        modelRegistry.publish(compiledModels);
+
+        PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        ValidationMetrics validationMetrics = new ValidationMetrics(meterRegistry, properties);
+        AnomalyEventPublisher publisher = new AnomalyEventPublisher(properties, meterRegistry, batch -> { });
+        return new ValidationService(null, objectMapper,
+                new RequestValidator(properties.getSchema().getMaxDepth(), typeRegistry), typeValidator, null,
+                modelCompiler, modelRegistry,
+                new StreamingRequestValidator(objectMapper, typeValidator, validationMetrics, publisher), properties,
+                validationMetrics, new VerdictCache(meterRegistry, properties), publisher,
+                new ModelLearner(typeValidator, properties));
+    }
+}
@@ -0,0 +1,68 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.guyshalev.Salt_security.model.compiled.CustomType;
+import com.guyshalev.Salt_security.service.TypePatternCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares matching custom type values with the compiled automaton and with {@code java.util.regex}.
+ * The {@code hostile} case is a 30 character value that makes the backtracking matcher try every way of
+ * splitting it before failing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomTypeBenchmark {
+
+    private static final Map<String, String[]> CASES = Map.of(
+            "ipv4", new String[]{
+                    "((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)",
+                    "192.168.100.254"},
+            "timestamp", new String[]{
+                    "\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}(\\.\\d{1,3})?(Z|[+-]\\d{2}:\\d{2})",
+                    "2024-12-25T10:15:30.123+02:00"},
+            "hostile", new String[]{"(a|aa)+b", "a".repeat(30)}
+    );
+
+    @Param({"ipv4", "timestamp", "hostile"})
+    public String pattern;
+
+    private CustomType customType;
+    private Pattern regex;
+    private String value;
+
+    @Setup
+    public void setup() {
+        String[] definition = CASES.get(pattern);
+        customType = new TypePatternCompiler().compile(pattern, definition[0]);
+        regex = Pattern.compile(definition[0]);
+        value = definition[1];
+    }
+
+    @Benchmark
+    public boolean automaton() {
+        return customType.matches(value);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return regex.matcher(value).matches();
+    }
+}
@@ -0,0 +1,66 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.ModelSnapshot;
+import com.guyshalev.Salt_security.service.TypeRegistry;
+import com.guyshalev.Salt_security.service.ValidationEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-request cost of the validation core embedded in another process, such as a gateway:
+ * a {@link ValidationEngine} without Spring, metrics or anomaly events, validating request bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class EmbeddedEngineBenchmark {
+
+    @Param({"100"})
+    public int modelCount;
+
+    @Param({"1", "5", "50"})
+    public int paramsPerSection;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private ValidationEngine engine;
+    private ModelSnapshot snapshot;
+    private byte[] request;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        engine = new ValidationEngine(objectMapper, new TypeRegistry(), streaming);
+        String models = "[" + String.join(",", BenchmarkFixtures.models(modelCount, paramsPerSection)) + "]";
+        snapshot = engine.compileSnapshot(models, 1);
+        request = BenchmarkFixtures.request(paramsPerSection).getBytes(StandardCharsets.UTF_8);
+
+        ValidationResultDTO result = engine.validate(request, snapshot);
+        if (!result.isValid()) {
+            throw new IllegalStateException("Benchmark request does not match its model: " + result.getAnomalies());
+        }
+    }
+
+    @Benchmark
+    public ValidationResultDTO validate() {
+        return engine.validate(request, snapshot);
+    }
+}
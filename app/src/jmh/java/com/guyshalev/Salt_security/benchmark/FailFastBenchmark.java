@@ -0,0 +1,68 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the full anomaly report with fail-fast validation on a request in which every parameter is an
+ * anomaly, the worst case for building anomaly messages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FailFastBenchmark {
+
+    @Param({"10", "500"})
+    public int paramsPerSection;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    @Param({"false", "true"})
+    public boolean failFast;
+
+    private ValidationService validationService;
+    private byte[] request;
+
+    @Setup
+    public void setup() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.setStreaming(streaming);
+
+        List<String> models = BenchmarkFixtures.models(1, paramsPerSection);
+        validationService = BenchmarkFixtures.validationService(new ObjectMapper(), models, properties);
+        request = BenchmarkFixtures.invalidRequest(paramsPerSection).getBytes(StandardCharsets.UTF_8);
+
+        ValidationResultDTO result = validate();
+        if (result.isValid() || (!failFast && result.getAnomalies().size() != 3 * paramsPerSection)) {
+            throw new IllegalStateException("Every benchmark parameter must be an anomaly: " + result.getAnomalies());
+        }
+    }
+
+    @Benchmark
+    public ValidationResultDTO validate() {
+        return validationService.validateRequest(new ByteArrayInputStream(request), RequestFormat.JSON, failFast);
+    }
+}
@@ -0,0 +1,336 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.guyshalev.Salt_security.SaltSecurityApplication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives thousands of concurrent clients against a local instance of the application, once per web stack mode,
+ * and reports throughput and latency percentiles of each mode.
+ * <ul>
+ *     <li>{@code platform}: requests are served on Tomcat's pool of platform threads.</li>
+ *     <li>{@code virtual}: requests are served on virtual threads ({@code spring.threads.virtual.enabled}).</li>
+ *     <li>{@code reactive}: requests are served by WebFlux on Netty's event loops ({@code reactive} profile).</li>
+ * </ul>
+ * Every client is a virtual thread sending {@code POST /api/validate} requests back to back over a kept-alive
+ * connection. With {@code --put-every=N}, every N-th request of a client is a {@code PUT /api/models}, which holds
+ * its thread across the blocking JPA lookup and save; in reactive mode it holds a bounded elastic thread instead of
+ * an event loop.
+ * <p>
+ * Each mode is measured against the application started in a JVM of its own, and the clients run in another JVM,
+ * so no mode inherits the JIT profile, heap or garbage of another, and the clients do not share a heap or
+ * collector with the server. Each run is warmed up before it is measured. The modes are measured
+ * {@code repetitions} times, in reverse order on every other repetition, so that an effect of the order in which
+ * they run shows up as a difference between repetitions.
+ * <p>
+ * Options, as {@code --name=value}; other arguments are ignored:
+ * {@code clients} (2000), {@code warmup} and {@code duration} in seconds (5 and 20), {@code modes}
+ * (platform,virtual,reactive), {@code repetitions} (2), {@code params} per section of the validated model (5) and
+ * {@code put-every} (0, never).
+ */
+public final class LoadTestHarness {
+
+    private static final List<String> MODES = List.of("platform", "virtual", "reactive");
+    /** Prefix of the line holding the results of a client process, among the other lines of its output */
+    private static final String RESULT_PREFIX = "result: ";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        if ("clients".equals(options.get("role"))) {
+            runClients(options);
+            return;
+        }
+
+        int repetitions = Integer.parseInt(options.getOrDefault("repetitions", "2"));
+        List<String> modes = List.of(options.getOrDefault("modes", String.join(",", MODES)).split(","));
+        for (String mode : modes) {
+            if (!MODES.contains(mode)) {
+                throw new IllegalArgumentException(
+                        "Unknown mode '" + mode + "': must be platform, virtual or reactive");
+            }
+        }
+        // Stops the application and the clients if the harness is interrupted
+        Runtime.getRuntime().addShutdownHook(new Thread(
+                () -> ProcessHandle.current().descendants().forEach(ProcessHandle::destroy)));
+
+        System.out.printf("%s clients, %ss warmup, %ss measurement, %d repetitions, %d cores, Java %s%n",
+                options.getOrDefault("clients", "2000"), options.getOrDefault("warmup", "5"),
+                options.getOrDefault("duration", "20"), repetitions, Runtime.getRuntime().availableProcessors(),
+                Runtime.version());
+        List<String> rows = new ArrayList<>();
+        for (int repetition = 1; repetition <= repetitions; repetition++) {
+            List<String> order = repetition % 2 == 1 ? modes : modes.reversed();
+            for (String mode : order) {
+                rows.add(String.format("%3d %s", repetition, run(mode, options)));
+            }
+        }
+
+        System.out.printf("%n%3s %-9s %9s %7s %12s %9s %9s %9s %9s%n",
+                "run", "mode", "requests", "errors", "requests/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * Starts the application in the given mode in a new JVM, measures it from a client process, and stops it.
+     *
+     * @return The formatted results of the clients
+     */
+    private static String run(String mode, Map<String, String> options) throws Exception {
+        int port = freePort();
+        // Passed as arguments, which take precedence over application.properties
+        Process server = java(SaltSecurityApplication.class,
+                "--server.port=" + port,
+                "--spring.main.banner-mode=off",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                "--spring.profiles.active=" + (mode.equals("reactive") ? "reactive" : "default"))
+                .inheritIO()
+                .start();
+        try {
+            awaitStarted(server, port);
+            List<String> clientArgs = new ArrayList<>(List.of("--role=clients", "--mode=" + mode, "--port=" + port));
+            for (String option : List.of("clients", "warmup", "duration", "params", "put-every")) {
+                if (options.containsKey(option)) {
+                    clientArgs.add("--" + option + "=" + options.get(option));
+                }
+            }
+            Process clients = java(LoadTestHarness.class, clientArgs.toArray(String[]::new))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            String result = null;
+            try (BufferedReader output = clients.inputReader()) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    if (line.startsWith(RESULT_PREFIX)) {
+                        result = line.substring(RESULT_PREFIX.length());
+                    } else {
+                        System.out.println(line);
+                    }
+                }
+            }
+            if (clients.waitFor() != 0 || result == null) {
+                throw new IllegalStateException("Client process of mode " + mode + " failed");
+            }
+            return result;
+        } finally {
+            server.destroy();
+            if (!server.waitFor(SHUTDOWN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                server.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /**
+     * @return A process running the main method of the given class in a new JVM, on the classpath of this one
+     */
+    private static ProcessBuilder java(Class<?> mainClass, String... args) {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                mainClass.getName()));
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Waits until the application started in the given process answers HTTP requests.
+     */
+    private static void awaitStarted(Process server, int port) throws Exception {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/models")).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+            while (System.nanoTime() < deadline) {
+                if (!server.isAlive()) {
+                    throw new IllegalStateException("Application exited with status " + server.exitValue());
+                }
+                try {
+                    if (httpClient.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(200);
+            }
+        }
+        throw new IllegalStateException("Application did not start within " + STARTUP_TIMEOUT);
+    }
+
+    /**
+     * Runs the clients of one mode against the application listening on the given port, in the client process,
+     * and prints their results.
+     */
+    private static void runClients(Map<String, String> options) throws Exception {
+        String mode = options.get("mode");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "2000"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "20"));
+        int params = Integer.parseInt(options.getOrDefault("params", "5"));
+        int putEvery = Integer.parseInt(options.getOrDefault("put-every", "0"));
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clientThreads)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build()) {
+            URI base = URI.create("http://localhost:" + options.get("port"));
+            List<String> models = BenchmarkFixtures.models(100, params);
+            HttpResponse<String> saved = httpClient.send(HttpRequest.newBuilder(base.resolve("/api/models"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("[" + String.join(",", models) + "]"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (saved.statusCode() != 200) {
+                throw new IllegalStateException("Failed to save models: " + saved.body());
+            }
+
+            HttpRequest validate = HttpRequest.newBuilder(base.resolve("/api/validate"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(BenchmarkFixtures.request(params)))
+                    .build();
+            HttpRequest put = HttpRequest.newBuilder(base.resolve("/api/models"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(models.get(models.size() - 1)))
+                    .build();
+
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+            List<Client> running = new ArrayList<>(clients);
+            List<Future<?>> finished = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client(httpClient, validate, put, putEvery, measureFrom, end);
+                running.add(client);
+                finished.add(clientThreads.submit(client));
+            }
+            // The HTTP client runs its own tasks on the same executor, so it is not shut down before the clients end
+            for (Future<?> client : finished) {
+                client.get();
+            }
+            System.out.println(RESULT_PREFIX + report(mode, running, durationSeconds));
+        }
+    }
+
+    private static String report(String mode, List<Client> clients, int durationSeconds) {
+        int count = 0;
+        long errors = 0;
+        for (Client client : clients) {
+            count += client.count;
+            errors += client.errors;
+            if (client.firstError != null && errors == client.errors) {
+                System.out.println(mode + ": first error: " + client.firstError);
+            }
+        }
+        long[] latencies = new long[count];
+        int offset = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            offset += client.count;
+        }
+        Arrays.sort(latencies);
+        return String.format("%-9s %9d %7d %12.0f %9.2f %9.2f %9.2f %9.2f", mode, count, errors,
+                (double) count / durationSeconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * One client, sending requests back to back and recording the latency of those completed in the
+     * measurement window.
+     */
+    private static final class Client implements Runnable {
+
+        private final HttpClient httpClient;
+        private final HttpRequest validate;
+        private final HttpRequest put;
+        private final int putEvery;
+        private final long measureFrom;
+        private final long end;
+        private long[] latencies = new long[256];
+        private int count;
+        private long errors;
+        private String firstError;
+
+        private Client(HttpClient httpClient, HttpRequest validate, HttpRequest put, int putEvery,
+                       long measureFrom, long end) {
+            this.httpClient = httpClient;
+            this.validate = validate;
+            this.put = put;
+            this.putEvery = putEvery;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            long sent = 0;
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                sent++;
+                HttpRequest request = putEvery > 0 && sent % putEvery == 0 ? put : validate;
+                String error;
+                try {
+                    int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    error = status == 200 ? null : "HTTP " + status;
+                } catch (Exception e) {
+                    error = e.toString();
+                }
+                long finished = System.nanoTime();
+                if (now < measureFrom || finished > end) {
+                    continue;
+                }
+                if (error != null) {
+                    errors++;
+                    if (firstError == null) {
+                        firstError = error;
+                    }
+                    continue;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = finished - now;
+            }
+        }
+    }
+}
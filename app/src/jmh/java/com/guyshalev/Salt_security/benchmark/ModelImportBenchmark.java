@@ -0,0 +1,71 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.guyshalev.Salt_security.SaltSecurityApplication;
+import com.guyshalev.Salt_security.service.ModelImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a bulk model import into the H2 database, including validation, compilation and publishing.
+ * Each invocation replaces the full model set, so the time per import should grow linearly with the number
+ * of models. Run with {@code -prof gc} for allocation figures and with {@link PeakHeapProfiler} for the peak heap
+ * use of each import; the fork heap is capped so that an import whose memory use does not stay flat fails instead
+ * of silently swapping.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+@State(Scope.Benchmark)
+public class ModelImportBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int modelCount;
+
+    @Param({"50", "500"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ModelImportService modelImportService;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(SaltSecurityApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false",
+                        "validation.model-import.batch-size=" + batchSize)
+                .run();
+        modelImportService = context.getBean(ModelImportService.class);
+        payload = ("[" + String.join(",", BenchmarkFixtures.models(modelCount, 5)) + "]")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int importModels() {
+        return modelImportService.importModels(new ByteArrayInputStream(payload));
+    }
+}
@@ -0,0 +1,76 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how validation scales with the number of parameters per section, from 100 to 10k parameters.
+ * The checks are linear in the number of parameters, but the time per parameter still grows slowly as the
+ * request and model outgrow the CPU caches. {@code checkParsed} validates an already parsed request, isolating the
+ * parameter checks from parsing; {@code validateBytes} runs the full pipeline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ParameterScalingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int paramsPerSection;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private ValidationService validationService;
+    private JsonNode parsedRequest;
+    private byte[] request;
+
+    @Setup
+    public void setup() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.setStreaming(streaming);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> models = BenchmarkFixtures.models(1, paramsPerSection);
+        validationService = BenchmarkFixtures.validationService(objectMapper, models, properties);
+        String json = BenchmarkFixtures.request(paramsPerSection);
+        parsedRequest = objectMapper.readTree(json);
+        request = json.getBytes(StandardCharsets.UTF_8);
+
+        ValidationResultDTO result = validateBytes();
+        if (!result.isValid()) {
+            throw new IllegalStateException("Benchmark request does not match its model: " + result.getAnomalies());
+        }
+    }
+
+    @Benchmark
+    public ValidationResultDTO checkParsed() {
+        return validationService.validateRequest(parsedRequest);
+    }
+
+    @Benchmark
+    public ValidationResultDTO validateBytes() {
+        return validationService.validateRequest(new ByteArrayInputStream(request));
+    }
+}
@@ -0,0 +1,62 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reports the peak heap use of each iteration, which the GC profiler does not.
+ * Run with {@code -prof com.guyshalev.Salt_security.benchmark.PeakHeapProfiler}.
+ * <p>
+ * The peak of every heap memory pool is reset before the iteration and read after it. {@code peak.heap} is the sum
+ * of these peaks, an upper bound of the peak heap use since pools peak at different times; the peak of the old
+ * generation alone shows what stayed reachable long enough to be promoted.
+ */
+public class PeakHeapProfiler implements InternalProfiler {
+
+    private static final double MB = 1024 * 1024;
+
+    @Override
+    public String getDescription() {
+        return "Peak heap use per iteration";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        for (MemoryPoolMXBean pool : heapPools()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+                                                       IterationParams iterationParams, IterationResult result) {
+        List<Result> results = new ArrayList<>();
+        long total = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            long peak = pool.getPeakUsage().getUsed();
+            total += peak;
+            results.add(new ScalarResult("peak." + pool.getName().replace(' ', '_'), peak / MB, "MB",
+                    AggregationPolicy.MAX));
+        }
+        results.add(new ScalarResult("peak.heap", total / MB, "MB", AggregationPolicy.MAX));
+        return results;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+                .toList();
+    }
+}
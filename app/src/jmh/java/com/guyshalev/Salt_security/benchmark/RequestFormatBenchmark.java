@@ -0,0 +1,79 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of parsing and validating the same request encoded as JSON, CBOR and Smile.
+ * {@code parse} only reads the body into a tree, {@code validate} runs the full pipeline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestFormatBenchmark {
+
+    @Param({"10", "1000"})
+    public int paramsPerSection;
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public RequestFormat format;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private ValidationService validationService;
+    private ObjectMapper mapper;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.setStreaming(streaming);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> models = BenchmarkFixtures.models(1, paramsPerSection);
+        validationService = BenchmarkFixtures.validationService(objectMapper, models, properties);
+
+        Map<RequestFormat, ObjectMapper> mappers = RequestFormat.mappers(objectMapper);
+        mapper = mappers.get(format);
+        body = mapper.writeValueAsBytes(objectMapper.readTree(BenchmarkFixtures.request(paramsPerSection)));
+
+        ValidationResultDTO result = validate();
+        if (!result.isValid()) {
+            throw new IllegalStateException("Benchmark request does not match its model: " + result.getAnomalies());
+        }
+    }
+
+    @Benchmark
+    public JsonNode parse() throws Exception {
+        return mapper.readTree(body);
+    }
+
+    @Benchmark
+    public ValidationResultDTO validate() {
+        return validationService.validateRequest(new ByteArrayInputStream(body), format);
+    }
+}
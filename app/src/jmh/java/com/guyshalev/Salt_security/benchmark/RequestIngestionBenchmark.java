@@ -0,0 +1,70 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares validating a large request body from its raw bytes with decoding it into a String first,
+ * as a {@code @RequestBody String} controller parameter would. The default of 7500 parameters per section
+ * gives a body of about 1 MB.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RequestIngestionBenchmark {
+
+    @Param({"7500"})
+    public int paramsPerSection;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private ValidationService validationService;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.setStreaming(streaming);
+
+        List<String> models = BenchmarkFixtures.models(1, paramsPerSection);
+        validationService = BenchmarkFixtures.validationService(new ObjectMapper(), models, properties);
+        body = BenchmarkFixtures.request(paramsPerSection).getBytes(StandardCharsets.UTF_8);
+
+        ValidationResultDTO result = validationService.validateRequest(new ByteArrayInputStream(body));
+        if (!result.isValid()) {
+            throw new IllegalStateException("Benchmark request does not match its model: " + result.getAnomalies());
+        }
+    }
+
+    @Benchmark
+    public ValidationResultDTO fromString() {
+        return validationService.validateRequest(new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public ValidationResultDTO fromBytes() {
+        return validationService.validateRequest(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,58 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.service.TypeRegistry;
+import com.guyshalev.Salt_security.validator.RequestValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the structural checks of requests and models for different section sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestValidatorBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int paramsPerSection;
+
+    private final RequestValidator requestValidator =
+            new RequestValidator(RequestValidator.DEFAULT_MAX_SCHEMA_DEPTH, new TypeRegistry());
+    private JsonNode request;
+    private JsonNode model;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        request = objectMapper.readTree(BenchmarkFixtures.request(paramsPerSection));
+        model = objectMapper.readTree(BenchmarkFixtures.model(
+                BenchmarkFixtures.TARGET_PATH, BenchmarkFixtures.TARGET_METHOD, paramsPerSection));
+    }
+
+    @Benchmark
+    public Map<String, String> validateRequest() {
+        return requestValidator.validateRequest(request);
+    }
+
+    @Benchmark
+    public Map<String, String> validateModel() {
+        return requestValidator.validateModel(model);
+    }
+}
@@ -0,0 +1,111 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.guyshalev.Salt_security.SaltSecurityApplication;
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.service.ValidationService;
+import com.guyshalev.Salt_security.sidecar.SidecarClient;
+import com.guyshalev.Salt_security.sidecar.SidecarProtocol.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of validating one request through {@code POST /api/validate} over TCP loopback with the
+ * same request sent as a frame on the sidecar's Unix domain socket, one request at a time and pipelined.
+ * Sample-time mode reports the latency distribution, including p50 and p99; a pipelined invocation sends
+ * {@value #PIPELINE_DEPTH} requests before reading their responses, so its score is per request.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class SidecarLatencyBenchmark {
+
+    private static final int PIPELINE_DEPTH = 16;
+    private static final int PARAMS_PER_SECTION = 5;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest httpRequest;
+    private SidecarClient sidecarClient;
+    private byte[] request;
+
+    @Setup
+    public void setup() throws Exception {
+        Path socketPath = Files.createTempDirectory("sidecar-bench").resolve("validation.sock");
+        // Passed as arguments, which take precedence over application.properties
+        context = new SpringApplicationBuilder(SaltSecurityApplication.class)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--validation.streaming=true",
+                        "--validation.sidecar.enabled=true",
+                        "--validation.sidecar.socket-path=" + socketPath);
+        context.getBean(ValidationService.class).saveModels("[" + String.join(",",
+                BenchmarkFixtures.models(100, PARAMS_PER_SECTION)) + "]");
+
+        request = BenchmarkFixtures.request(PARAMS_PER_SECTION).getBytes(StandardCharsets.UTF_8);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        httpRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/validate"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(request))
+                .build();
+        sidecarClient = SidecarClient.connect(socketPath);
+
+        if (sidecarClient.validate(request).status() != Status.VALID || !http().contains("\"valid\":true")) {
+            throw new IllegalStateException("Benchmark request does not match its model");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sidecarClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public String http() throws Exception {
+        return httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    @Benchmark
+    public Status sidecar() throws Exception {
+        return sidecarClient.validate(request).status();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE_DEPTH)
+    public Status sidecarPipelined() throws Exception {
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            sidecarClient.send(i, RequestFormat.JSON, false, request);
+        }
+        sidecarClient.flush();
+        Status status = null;
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            status = sidecarClient.receive().status();
+        }
+        return status;
+    }
+}
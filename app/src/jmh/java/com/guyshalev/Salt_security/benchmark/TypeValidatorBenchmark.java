@@ -0,0 +1,71 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.service.TypeValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of checking a single value against each supported type.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeValidatorBenchmark {
+
+    private static final Map<String, String> VALID_VALUES = Map.of(
+            "Int", "\"-12345\"",
+            "String", "\"some text\"",
+            "Boolean", "\"FALSE\"",
+            "List", "[1, 2, 3]",
+            "Date", "\"25-12-2024\"",
+            "Email", "\"first.last@mail.example.com\"",
+            "UUID", "\"123e4567-e89b-12d3-a456-426614174000\"",
+            "Auth-Token", "\"Bearer abc123def456\""
+    );
+
+    @Param({"Int", "String", "Boolean", "List", "Date", "Email", "UUID", "Auth-Token"})
+    public String type;
+
+    private final TypeValidator typeValidator = new TypeValidator(TypeValidator.DEFAULT_MAX_SCHEMA_ELEMENTS);
+    private JsonNode validValue;
+    private JsonNode invalidValue;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        validValue = objectMapper.readTree(VALID_VALUES.get(type));
+        invalidValue = objectMapper.readTree("\"definitely not a " + type + " value\"");
+    }
+
+    @Benchmark
+    public boolean isValidTypeMatch() {
+        return typeValidator.isValidType(validValue, type);
+    }
+
+    @Benchmark
+    public boolean isValidTypeMismatch() {
+        return typeValidator.isValidType(invalidValue, type);
+    }
+
+    @Benchmark
+    public int classify() {
+        return typeValidator.classify(validValue);
+    }
+}
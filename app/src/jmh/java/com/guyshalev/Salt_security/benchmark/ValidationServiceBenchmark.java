@@ -0,0 +1,72 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end request validation, from the JSON string to the validation result,
+ * against model sets of different sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ValidationServiceBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int modelCount;
+
+    @Param({"1", "50", "500"})
+    public int paramsPerSection;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    /**
+     * Run with {@code -p metrics=false,true} to compare against validation without metrics.
+     */
+    @Param({"true"})
+    public boolean metrics;
+
+    private ValidationService validationService;
+    private String request;
+
+    @Setup
+    public void setup() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.setStreaming(streaming);
+        properties.getMetrics().setEnabled(metrics);
+
+        List<String> models = BenchmarkFixtures.models(modelCount, paramsPerSection);
+        validationService = BenchmarkFixtures.validationService(new ObjectMapper(), models, properties);
+        request = BenchmarkFixtures.request(paramsPerSection);
+
+        ValidationResultDTO result = validationService.validateRequest(request);
+        if (!result.isValid()) {
+            throw new IllegalStateException("Benchmark request does not match its model: " + result.getAnomalies());
+        }
+    }
+
+    @Benchmark
+    public ValidationResultDTO validateRequest() {
+        return validationService.validateRequest(request);
+    }
+}
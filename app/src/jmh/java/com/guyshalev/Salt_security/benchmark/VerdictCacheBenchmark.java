@@ -0,0 +1,72 @@
+package com.guyshalev.Salt_security.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cache hits from eight threads at once, each answering a random one of a set of distinct requests
+ * that are all cached, which is where a single lock around the cache would make threads wait on each other.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class VerdictCacheBenchmark {
+
+    @Param({"1", "1024"})
+    public int distinctRequests;
+
+    private ValidationService validationService;
+    private byte[][] requests;
+
+    @Setup
+    public void setup() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getCache().setEnabled(true);
+
+        List<String> models = BenchmarkFixtures.models(1, 10);
+        validationService = BenchmarkFixtures.validationService(new ObjectMapper(), models, properties);
+        String request = BenchmarkFixtures.request(10);
+        requests = new byte[distinctRequests][];
+        for (int i = 0; i < distinctRequests; i++) {
+            // Leading whitespace makes the requests distinct without changing their verdict
+            requests[i] = (" ".repeat(i) + request).getBytes(StandardCharsets.UTF_8);
+            if (!validate(requests[i]).isValid()) {
+                throw new IllegalStateException("Every benchmark request must be valid");
+            }
+        }
+    }
+
+    @Benchmark
+    public ValidationResultDTO hit() {
+        return validate(requests[ThreadLocalRandom.current().nextInt(distinctRequests)]);
+    }
+
+    private ValidationResultDTO validate(byte[] request) {
+        return validationService.validateRequest(new ByteArrayInputStream(request), RequestFormat.JSON, false);
+    }
+}
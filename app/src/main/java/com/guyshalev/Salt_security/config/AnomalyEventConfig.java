@@ -0,0 +1,26 @@
+package com.guyshalev.Salt_security.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.event.AnomalyEventSink;
+import com.guyshalev.Salt_security.event.NdjsonFileSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Provides the sink anomaly events are written to.
+ * Events go to rolling NDJSON files by default; declaring another {@link AnomalyEventSink} bean replaces it.
+ */
+@Configuration
+public class AnomalyEventConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(AnomalyEventSink.class)
+    public AnomalyEventSink anomalyEventSink(ObjectMapper objectMapper, ValidationProperties validationProperties) {
+        ValidationProperties.Events events = validationProperties.getEvents();
+        return new NdjsonFileSink(objectMapper, Path.of(events.getDirectory()), events.getMaxFileSize().toBytes(),
+                events.getMaxFiles());
+    }
+}
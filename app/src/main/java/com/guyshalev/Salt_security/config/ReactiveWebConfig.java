@@ -0,0 +1,21 @@
+package com.guyshalev.Salt_security.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Runs the reactive web layer on Netty when the {@code reactive} profile is active.
+ * Tomcat is on the classpath for the servlet stack and would otherwise also serve the reactive application,
+ * so the Netty server factory is declared explicitly.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
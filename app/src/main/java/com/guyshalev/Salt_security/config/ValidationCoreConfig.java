@@ -0,0 +1,54 @@
+package com.guyshalev.Salt_security.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.event.AnomalyEventPublisher;
+import com.guyshalev.Salt_security.service.ModelCompiler;
+import com.guyshalev.Salt_security.service.StreamingRequestValidator;
+import com.guyshalev.Salt_security.service.TypePatternCompiler;
+import com.guyshalev.Salt_security.service.TypeRegistry;
+import com.guyshalev.Salt_security.service.TypeValidator;
+import com.guyshalev.Salt_security.service.ValidationMetrics;
+import com.guyshalev.Salt_security.validator.RequestValidator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Provides the components of the validation core module, which has no Spring dependency,
+ * configured from the validation properties.
+ */
+@Configuration
+public class ValidationCoreConfig {
+
+    @Bean
+    public TypeRegistry typeRegistry() {
+        return new TypeRegistry();
+    }
+
+    @Bean
+    public TypeValidator typeValidator(ValidationProperties validationProperties) {
+        return new TypeValidator(validationProperties.getSchema().getMaxElements());
+    }
+
+    @Bean
+    public TypePatternCompiler typePatternCompiler(ValidationProperties validationProperties) {
+        ValidationProperties.Types types = validationProperties.getTypes();
+        return new TypePatternCompiler(types.getMaxPatternLength(), types.getMaxStates());
+    }
+
+    @Bean
+    public RequestValidator requestValidator(ValidationProperties validationProperties, TypeRegistry typeRegistry) {
+        return new RequestValidator(validationProperties.getSchema().getMaxDepth(), typeRegistry);
+    }
+
+    @Bean
+    public ModelCompiler modelCompiler(ObjectMapper objectMapper, TypeRegistry typeRegistry) {
+        return new ModelCompiler(objectMapper, typeRegistry);
+    }
+
+    @Bean
+    public StreamingRequestValidator streamingRequestValidator(ObjectMapper objectMapper, TypeValidator typeValidator,
+                                                               ValidationMetrics validationMetrics,
+                                                               AnomalyEventPublisher anomalyEventPublisher) {
+        return new StreamingRequestValidator(objectMapper, typeValidator, validationMetrics, anomalyEventPublisher);
+    }
+}
@@ -0,0 +1,282 @@
+package com.guyshalev.Salt_security.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Tunable settings for request validation, bound from the {@code validation.*} properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "validation")
+@Getter
+@Setter
+public class ValidationProperties {
+
+    /**
+     * Validate requests in a single pass over the JSON tokens instead of building a JSON tree first.
+     */
+    private boolean streaming = false;
+
+    private final Batch batch = new Batch();
+
+    private final ModelImport modelImport = new ModelImport();
+
+    private final Metrics metrics = new Metrics();
+
+    private final Cache cache = new Cache();
+
+    private final Schema schema = new Schema();
+
+    private final Types types = new Types();
+
+    private final Events events = new Events();
+
+    private final Replay replay = new Replay();
+
+    private final Learning learning = new Learning();
+
+    private final Sidecar sidecar = new Sidecar();
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /**
+         * Maximum number of requests of a batch validated at the same time. Zero uses one thread per core.
+         */
+        private int parallelism = 0;
+
+        /**
+         * Maximum number of requests accepted in a single batch.
+         */
+        private int maxSize = 10_000;
+
+    }
+
+    @Getter
+    @Setter
+    public static class ModelImport {
+
+        /**
+         * Number of models written to the database per JDBC batch during a bulk import.
+         */
+        private int batchSize = 500;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        /**
+         * Record per-phase validation timers and anomaly counters.
+         */
+        private boolean enabled = true;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * Cache the results of identical requests until the model set changes.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of cached results; the least recently used result is evicted first.
+         */
+        private int maxSize = 10_000;
+
+        /**
+         * Time after which a cached result is validated again.
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+
+        /**
+         * Requests larger than this many bytes are not cached.
+         */
+        private int maxRequestBytes = 16 * 1024;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Schema {
+
+        /**
+         * Maximum nesting depth of object fields and list items in a model parameter definition.
+         */
+        private int maxDepth = 16;
+
+        /**
+         * Maximum number of nested fields and list items checked in a single parameter value.
+         */
+        private int maxElements = 10_000;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Types {
+
+        /**
+         * Maximum length of the pattern of a custom type.
+         */
+        private int maxPatternLength = 512;
+
+        /**
+         * Maximum number of automaton states a custom type's pattern may compile into.
+         */
+        private int maxStates = 2_000;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Events {
+
+        /**
+         * Record an event for every request that does not match its model.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of events the buffer between request threads and the writer holds, rounded up to a power of two.
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * What happens to events while the buffer is under pressure.
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+        /**
+         * With the SAMPLE policy, one in this many events is kept while the buffer is more than half full.
+         */
+        private int sampleRate = 10;
+
+        /**
+         * Maximum number of events written to the sink at once.
+         */
+        private int batchSize = 256;
+
+        /**
+         * Maximum time an event waits in a partial batch before it is written.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Directory of the NDJSON event files.
+         */
+        private String directory = "anomaly-events";
+
+        /**
+         * Size at which the current event file is rolled over.
+         */
+        private DataSize maxFileSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Number of rolled-over event files kept; older files are deleted.
+         */
+        private int maxFiles = 10;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Replay {
+
+        /**
+         * Size of the file regions validated as one task; regions are split further at line boundaries.
+         */
+        private DataSize chunkSize = DataSize.ofMegabytes(4);
+
+        /**
+         * Number of threads replaying traffic. Zero uses one thread per core.
+         */
+        private int parallelism = 0;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Learning {
+
+        /**
+         * Infer models from the requests sent to /api/validate.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of endpoints tracked; the endpoint seen least often is evicted first.
+         */
+        private int maxEndpoints = 500;
+
+        /**
+         * Maximum number of parameters tracked per endpoint and section; the rarest parameter is evicted first.
+         */
+        private int maxParameters = 32;
+
+        /**
+         * Maximum number of distinct type combinations tracked per parameter; the rarest is evicted first.
+         */
+        private int maxTypeCombinations = 8;
+
+        /**
+         * Number of requests an endpoint must have been seen in before a model is proposed for it.
+         */
+        private int minSamples = 10;
+
+        /**
+         * Share of an endpoint's requests a parameter must be present in to be proposed as required.
+         */
+        private double requiredRatio = 1.0;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Sidecar {
+
+        /**
+         * Accept length-prefixed validation requests on a Unix domain socket, next to the HTTP API.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Path of the socket file; a stale file left at this path is replaced.
+         */
+        private String socketPath = "/tmp/salt-validation.sock";
+
+        /**
+         * Maximum size of a request frame; a connection sending a larger frame is closed.
+         */
+        private DataSize maxFrameSize = DataSize.ofMegabytes(1);
+
+        /**
+         * Maximum number of open connections; further connections are closed as soon as they are accepted.
+         */
+        private int maxConnections = 64;
+
+    }
+
+    /**
+     * How anomaly events are shed when they arrive faster than they are written.
+     */
+    public enum OverflowPolicy {
+        /** Keep every event until the buffer is full, then drop new events. */
+        DROP,
+        /**
+         * Keep one in {@code sample-rate} events while the buffer is more than half full, and drop new events
+         * once it is full.
+         */
+        SAMPLE
+    }
+}
@@ -0,0 +1,317 @@
+package com.guyshalev.Salt_security.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.CustomTypeDTO;
+import com.guyshalev.Salt_security.model.dto.ModelDTO;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.BatchValidationService;
+import com.guyshalev.Salt_security.service.CustomTypeService;
+import com.guyshalev.Salt_security.service.ModelImportService;
+import com.guyshalev.Salt_security.service.ModelLearner;
+import com.guyshalev.Salt_security.service.ModelRegistry;
+import com.guyshalev.Salt_security.service.ModelSnapshot;
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.service.ValidationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.DecoderHttpMessageReader;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static com.guyshalev.Salt_security.controller.ValidationController.FAIL_FAST_HEADER;
+import static com.guyshalev.Salt_security.controller.ValidationController.INVALID_VERDICT;
+import static com.guyshalev.Salt_security.controller.ValidationController.VALID_VERDICT;
+
+/**
+ * REST API on WebFlux and Netty, serving the endpoints of {@link ValidationController} when the {@code reactive}
+ * profile is active.
+ * Requests are validated on the event loop against the in-memory model snapshot, which never blocks; everything
+ * that reads or writes the database runs on {@link Schedulers#boundedElastic()}.
+ * Batches of JSON or NDJSON requests are validated one request at a time as they are decoded, and model imports
+ * are read from a bounded pipe, so a client sending faster than the service keeps up is held back by
+ * backpressure instead of being buffered in memory; only the results of a batch are held until it ends.
+ */
+@RestController
+@RequestMapping("/api")
+@Profile("reactive")
+@Slf4j
+public class ReactiveValidationController {
+
+    /** Number of batch requests decoded ahead of their validation */
+    private static final int BATCH_PREFETCH = 256;
+    /** Number of body buffers queued ahead of the pipe a streamed body is read from */
+    private static final int BODY_PREFETCH = 4;
+    private static final int PIPE_SIZE = 64 * 1024;
+    private static final ResolvableType JSON_NODE = ResolvableType.forClass(JsonNode.class);
+    private static final String NOT_AN_ARRAY = "Input must be an array of requests";
+
+    private final ValidationService validationService;
+    private final BatchValidationService batchValidationService;
+    private final ModelImportService modelImportService;
+    private final CustomTypeService customTypeService;
+    private final ModelLearner modelLearner;
+    private final ModelRegistry modelRegistry;
+    private final int maxBatchSize;
+    /** The JSON decoder of the web layer, configured with its limits */
+    private final Decoder<?> jsonDecoder;
+
+    public ReactiveValidationController(ValidationService validationService,
+                                        BatchValidationService batchValidationService,
+                                        ModelImportService modelImportService,
+                                        CustomTypeService customTypeService,
+                                        ModelLearner modelLearner,
+                                        ModelRegistry modelRegistry,
+                                        ValidationProperties validationProperties,
+                                        ServerCodecConfigurer codecConfigurer) {
+        this.validationService = validationService;
+        this.batchValidationService = batchValidationService;
+        this.modelImportService = modelImportService;
+        this.customTypeService = customTypeService;
+        this.modelLearner = modelLearner;
+        this.modelRegistry = modelRegistry;
+        this.maxBatchSize = validationProperties.getBatch().getMaxSize();
+        this.jsonDecoder = codecConfigurer.getReaders().stream()
+                .filter(DecoderHttpMessageReader.class::isInstance)
+                .map(reader -> ((DecoderHttpMessageReader<?>) reader).getDecoder())
+                .filter(decoder -> decoder.canDecode(JSON_NODE, MediaType.APPLICATION_JSON)
+                        && decoder.canDecode(JSON_NODE, MediaType.APPLICATION_NDJSON))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No JSON decoder is configured"));
+    }
+
+    @PostMapping("/models")
+    public Mono<ResponseEntity<Void>> saveModels(@RequestBody Flux<DataBuffer> jsonModels) {
+        return readBlocking(jsonModels, body -> {
+            validationService.saveModels(body);
+            return body;
+        }).thenReturn(ResponseEntity.ok().build());
+    }
+
+    @PutMapping("/models")
+    public Mono<ResponseEntity<Void>> saveModel(@RequestBody String jsonModel) {
+        return blocking(() -> validationService.saveModel(jsonModel))
+                .thenReturn(ResponseEntity.ok().build());
+    }
+
+    @DeleteMapping("/models")
+    public Mono<ResponseEntity<Void>> deleteModel(@RequestParam String method, @RequestParam String path) {
+        return blocking(() -> validationService.deleteModel(method, path))
+                .map(deleted -> deleted
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    @PatchMapping("/models")
+    public Mono<ResponseEntity<Void>> patchModels(@RequestBody String jsonChanges) {
+        return blocking(() -> validationService.patchModels(jsonChanges))
+                .thenReturn(ResponseEntity.ok().build());
+    }
+
+    @PostMapping("/models/bulk")
+    public Mono<ResponseEntity<Void>> importModels(@RequestBody Flux<DataBuffer> jsonModels) {
+        return readBlocking(jsonModels, modelImportService::importModels)
+                .thenReturn(ResponseEntity.ok().build());
+    }
+
+    @GetMapping("/models")
+    public Mono<ResponseEntity<List<ModelDTO>>> getAllModels() {
+        return blocking(validationService::getAllModels).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/models/learned")
+    public ResponseEntity<List<ModelDTO>> getLearnedModels() {
+        return ResponseEntity.ok(modelLearner.proposeModels());
+    }
+
+    @DeleteMapping("/models/learned")
+    public ResponseEntity<Void> resetLearnedModels() {
+        modelLearner.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/types")
+    public Mono<ResponseEntity<Void>> saveType(@RequestBody String jsonType) {
+        return blocking(() -> customTypeService.saveType(jsonType))
+                .thenReturn(ResponseEntity.ok().build());
+    }
+
+    @DeleteMapping("/types")
+    public Mono<ResponseEntity<Void>> deleteType(@RequestParam String name) {
+        return blocking(() -> customTypeService.deleteType(name))
+                .map(deleted -> deleted
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    @GetMapping("/types")
+    public Mono<ResponseEntity<List<CustomTypeDTO>>> getAllTypes() {
+        return blocking(customTypeService::getAllTypes).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/validate")
+    public ResponseEntity<?> validateRequest(
+            @RequestBody(required = false) byte[] jsonRequest,
+            @RequestParam(defaultValue = "false") boolean failFast,
+            @RequestHeader(value = FAIL_FAST_HEADER, defaultValue = "false") boolean failFastHeader) {
+        return validate(jsonRequest, RequestFormat.JSON, failFast || failFastHeader);
+    }
+
+    @PostMapping(value = "/validate", consumes = {MediaType.APPLICATION_CBOR_VALUE, RequestFormat.SMILE_VALUE})
+    public ResponseEntity<?> validateBinaryRequest(
+            @RequestBody(required = false) byte[] request,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestParam(defaultValue = "false") boolean failFast,
+            @RequestHeader(value = FAIL_FAST_HEADER, defaultValue = "false") boolean failFastHeader) {
+        return validate(request, RequestFormat.of(contentType), failFast || failFastHeader);
+    }
+
+    /**
+     * Validates a request on the calling event loop thread, which only reads the in-memory model snapshot.
+     * Responds with the full result, or in fail-fast mode with a constant JSON body holding only the verdict.
+     */
+    private ResponseEntity<?> validate(byte[] request, RequestFormat format, boolean failFast) {
+        InputStream body = new ByteArrayInputStream(request != null ? request : new byte[0]);
+        ValidationResultDTO result = validationService.validateRequest(body, format, failFast);
+        if (!failFast) {
+            return ResponseEntity.ok(result);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(result.isValid() ? VALID_VERDICT : INVALID_VERDICT);
+    }
+
+    /**
+     * Validates a JSON array or an NDJSON stream of requests, one request at a time as they are decoded.
+     * The response is a JSON array, or NDJSON if the client accepts {@code application/x-ndjson}. All requests are
+     * validated against the model snapshot current when the batch starts. The results are held until the whole
+     * batch has been validated, so a JSON body that is not an array, or a batch with more than the maximum number
+     * of requests, is rejected before any result has been sent; decoding stops at the first request over the limit.
+     */
+    @PostMapping(value = "/validate/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ValidationResultDTO> validateBatch(
+            @RequestBody Flux<DataBuffer> body, @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType);
+        Flux<DataBuffer> requests = ndjson ? body : requireArray(body);
+        return Flux.defer(() -> {
+            ModelSnapshot snapshot = modelRegistry.snapshot();
+            return jsonDecoder.decode(requests, JSON_NODE, contentType, Map.of())
+                    .cast(JsonNode.class)
+                    .limitRate(BATCH_PREFETCH)
+                    .index((index, request) -> {
+                        if (index >= maxBatchSize) {
+                            throw new IllegalArgumentException("Batch contains more than " + maxBatchSize
+                                    + " requests, the maximum is " + maxBatchSize);
+                        }
+                        return validationService.validateRequest(request, snapshot);
+                    })
+                    .collectList()
+                    .flatMapIterable(results -> results);
+        });
+    }
+
+    /**
+     * Fails the given JSON body unless its first value is an array, as soon as its first non-whitespace byte
+     * arrives.
+     */
+    private static Flux<DataBuffer> requireArray(Flux<DataBuffer> body) {
+        return Flux.defer(() -> {
+            AtomicBoolean checked = new AtomicBoolean();
+            return body
+                    .<DataBuffer>handle((buffer, sink) -> {
+                        for (int i = buffer.readPosition(); !checked.get() && i < buffer.writePosition(); i++) {
+                            byte next = buffer.getByte(i);
+                            if (next == ' ' || next == '\t' || next == '\n' || next == '\r') {
+                                continue;
+                            }
+                            checked.set(true);
+                            if (next != '[') {
+                                DataBufferUtils.release(buffer);
+                                sink.error(new IllegalArgumentException(NOT_AN_ARRAY));
+                                return;
+                            }
+                        }
+                        sink.next(buffer);
+                    })
+                    .concatWith(Mono.defer(() -> checked.get()
+                            ? Mono.empty()
+                            : Mono.error(new IllegalArgumentException(NOT_AN_ARRAY))));
+        });
+    }
+
+    @PostMapping(value = "/validate/batch",
+            consumes = {MediaType.APPLICATION_CBOR_VALUE, RequestFormat.SMILE_VALUE})
+    public Mono<ResponseEntity<List<ValidationResultDTO>>> validateBinaryBatch(
+            @RequestBody Flux<DataBuffer> requests, @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+        RequestFormat format = RequestFormat.of(contentType);
+        return readBlocking(requests, body -> batchValidationService.validateBatch(body, format))
+                .map(ResponseEntity::ok);
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static Mono<Void> blocking(Runnable task) {
+        return Mono.fromRunnable(task).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    /**
+     * Reads a request body as a blocking stream without holding all of it in memory.
+     * The body is written into a bounded pipe on one blocking thread and read on another; while the pipe is full,
+     * the writer stops requesting data, which stops reading from the connection.
+     *
+     * @param body The request body
+     * @param reader Reads the stream; runs on a blocking thread
+     * @return The result of the reader
+     */
+    private static <T> Mono<T> readBlocking(Flux<DataBuffer> body, Function<InputStream, T> reader) {
+        return Mono.defer(() -> {
+            PipedOutputStream out = new PipedOutputStream();
+            PipedInputStream in;
+            try {
+                in = new PipedInputStream(out, PIPE_SIZE);
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            DataBufferUtils.write(body.publishOn(Schedulers.boundedElastic(), BODY_PREFETCH), out)
+                    .doFinally(signal -> closeQuietly(out))
+                    .subscribe(DataBufferUtils.releaseConsumer(),
+                            e -> log.debug("Stopped reading request body: {}", e.getMessage()));
+            // Closing the reading end also stops the writer if the reader fails before the body ends
+            return blocking(() -> reader.apply(in))
+                    .doFinally(signal -> closeQuietly(in));
+        });
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
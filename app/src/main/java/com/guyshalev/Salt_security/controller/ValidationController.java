@@ -0,0 +1,172 @@
+package com.guyshalev.Salt_security.controller;
+
+import com.guyshalev.Salt_security.model.dto.CustomTypeDTO;
+import com.guyshalev.Salt_security.model.dto.ModelDTO;
+import com.guyshalev.Salt_security.model.dto.RequestDTO;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.BatchValidationService;
+import com.guyshalev.Salt_security.service.CustomTypeService;
+import com.guyshalev.Salt_security.service.ModelImportService;
+import com.guyshalev.Salt_security.service.ModelLearner;
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * REST API on the servlet stack. With the {@code reactive} profile it is replaced by
+ * {@link ReactiveValidationController}.
+ */
+@RestController
+@RequestMapping("/api")
+@Profile("!reactive")
+public class ValidationController {
+
+    static final String FAIL_FAST_HEADER = "X-Fail-Fast";
+
+    static final byte[] VALID_VERDICT = "{\"valid\":true}".getBytes(StandardCharsets.UTF_8);
+    static final byte[] INVALID_VERDICT = "{\"valid\":false}".getBytes(StandardCharsets.UTF_8);
+
+    private final ValidationService validationService;
+    private final BatchValidationService batchValidationService;
+    private final ModelImportService modelImportService;
+    private final CustomTypeService customTypeService;
+    private final ModelLearner modelLearner;
+
+    public ValidationController(ValidationService validationService,
+                                BatchValidationService batchValidationService,
+                                ModelImportService modelImportService,
+                                CustomTypeService customTypeService,
+                                ModelLearner modelLearner) {
+        this.validationService = validationService;
+        this.batchValidationService = batchValidationService;
+        this.modelImportService = modelImportService;
+        this.customTypeService = customTypeService;
+        this.modelLearner = modelLearner;
+    }
+
+    @PostMapping("/models")
+    public ResponseEntity<Void> saveModels(InputStream jsonModels) {
+        validationService.saveModels(jsonModels);
+        return ResponseEntity.ok().build();
+    }
+
+    @PutMapping("/models")
+    public ResponseEntity<Void> saveModel(@RequestBody String jsonModel) {
+        validationService.saveModel(jsonModel);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/models")
+    public ResponseEntity<Void> deleteModel(@RequestParam String method, @RequestParam String path) {
+        return validationService.deleteModel(method, path)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PatchMapping("/models")
+    public ResponseEntity<Void> patchModels(@RequestBody String jsonChanges) {
+        validationService.patchModels(jsonChanges);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/models/bulk")
+    public ResponseEntity<Void> importModels(InputStream jsonModels) {
+        modelImportService.importModels(jsonModels);
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/models")
+    public ResponseEntity<List<ModelDTO>> getAllModels() {
+        List<ModelDTO> models = validationService.getAllModels();
+        return ResponseEntity.ok(models);
+    }
+
+    @GetMapping("/models/learned")
+    public ResponseEntity<List<ModelDTO>> getLearnedModels() {
+        return ResponseEntity.ok(modelLearner.proposeModels());
+    }
+
+    @DeleteMapping("/models/learned")
+    public ResponseEntity<Void> resetLearnedModels() {
+        modelLearner.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/types")
+    public ResponseEntity<Void> saveType(@RequestBody String jsonType) {
+        customTypeService.saveType(jsonType);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/types")
+    public ResponseEntity<Void> deleteType(@RequestParam String name) {
+        return customTypeService.deleteType(name)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/types")
+    public ResponseEntity<List<CustomTypeDTO>> getAllTypes() {
+        return ResponseEntity.ok(customTypeService.getAllTypes());
+    }
+
+    @PostMapping("/validate")
+    public ResponseEntity<?> validateRequest(
+            InputStream jsonRequest,
+            @RequestParam(defaultValue = "false") boolean failFast,
+            @RequestHeader(value = FAIL_FAST_HEADER, defaultValue = "false") boolean failFastHeader) {
+        return validate(jsonRequest, RequestFormat.JSON, failFast || failFastHeader);
+    }
+
+    @PostMapping(value = "/validate", consumes = {MediaType.APPLICATION_CBOR_VALUE, RequestFormat.SMILE_VALUE})
+    public ResponseEntity<?> validateBinaryRequest(
+            InputStream request,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestParam(defaultValue = "false") boolean failFast,
+            @RequestHeader(value = FAIL_FAST_HEADER, defaultValue = "false") boolean failFastHeader) {
+        return validate(request, RequestFormat.of(contentType), failFast || failFastHeader);
+    }
+
+    /**
+     * Validates a request and responds with the full result, or in fail-fast mode with a constant
+     * JSON body holding only the verdict.
+     */
+    private ResponseEntity<?> validate(InputStream request, RequestFormat format, boolean failFast) {
+        ValidationResultDTO result = validationService.validateRequest(request, format, failFast);
+        if (!failFast) {
+            return ResponseEntity.ok(result);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(result.isValid() ? VALID_VERDICT : INVALID_VERDICT);
+    }
+
+    @PostMapping("/validate/batch")
+    public ResponseEntity<List<ValidationResultDTO>> validateBatch(InputStream jsonRequests) {
+        List<ValidationResultDTO> results = batchValidationService.validateBatch(jsonRequests, RequestFormat.JSON);
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping(value = "/validate/batch",
+            consumes = {MediaType.APPLICATION_CBOR_VALUE, RequestFormat.SMILE_VALUE})
+    public ResponseEntity<List<ValidationResultDTO>> validateBinaryBatch(
+            InputStream requests, @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+        List<ValidationResultDTO> results = batchValidationService.validateBatch(requests,
+                RequestFormat.of(contentType));
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping(value = "/validate/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<ValidationResultDTO>> validateNdjsonBatch(InputStream ndjsonRequests) {
+        List<ValidationResultDTO> results = batchValidationService.validateNdjson(ndjsonRequests);
+        return ResponseEntity.ok(results);
+    }
+}
@@ -0,0 +1,12 @@
+package com.guyshalev.Salt_security.dal;
+
+import com.guyshalev.Salt_security.model.entity.TypeDefinition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TypeDefinitionRepository extends JpaRepository<TypeDefinition, Long> {
+    Optional<TypeDefinition> findByName(String name);
+}
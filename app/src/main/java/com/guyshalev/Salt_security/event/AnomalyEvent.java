@@ -0,0 +1,17 @@
+package com.guyshalev.Salt_security.event;
+
+import java.util.Map;
+
+/**
+ * A request that did not match its model, as recorded for security analysis.
+ *
+ * @param timestamp When the request was validated, in milliseconds since the epoch
+ * @param modelVersion The version of the model snapshot the request was validated against
+ * @param method The HTTP method of the request
+ * @param path The request path
+ * @param modelPath The path of the matched model, which may contain template segments
+ * @param anomalies The anomalies found, keyed by section and parameter; empty in fail-fast mode
+ */
+public record AnomalyEvent(long timestamp, long modelVersion, String method, String path, String modelPath,
+                           Map<String, String> anomalies) {
+}
@@ -0,0 +1,178 @@
+package com.guyshalev.Salt_security.event;
+
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.config.ValidationProperties.OverflowPolicy;
+import com.guyshalev.Salt_security.service.AnomalyPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records anomaly events without adding latency to request validation.
+ * Request threads put events into a lock-free {@link EventRingBuffer} and return; a background thread takes
+ * them out in batches and writes them to the {@link AnomalyEventSink}. A batch is written once it is full or
+ * its oldest event has waited for the flush interval. Events that arrive faster than they are written are
+ * shed according to the overflow policy rather than blocking the request.
+ * Dropped events are counted in {@code validation.events.dropped}, tagged by reason, and the number of
+ * waiting events is exposed as {@code validation.events.queue.depth}.
+ */
+@Component
+@Slf4j
+public class AnomalyEventPublisher implements AnomalyPublisher {
+
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final boolean enabled;
+    private final EventRingBuffer<AnomalyEvent> buffer;
+    private final AnomalyEventSink sink;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final Counter droppedFull;
+    private final Counter droppedSampled;
+    private final Counter droppedFailed;
+    private final Counter written;
+    private final Thread writer;
+    private volatile boolean running;
+
+    public AnomalyEventPublisher(ValidationProperties validationProperties, MeterRegistry meterRegistry,
+                                 AnomalyEventSink sink) {
+        ValidationProperties.Events events = validationProperties.getEvents();
+        this.enabled = events.isEnabled();
+        this.sink = sink;
+        this.overflowPolicy = events.getOverflowPolicy();
+        this.sampleRate = Math.max(1, events.getSampleRate());
+        this.batchSize = Math.max(1, events.getBatchSize());
+        this.flushIntervalNanos = events.getFlushInterval().toNanos();
+        if (!enabled) {
+            this.buffer = null;
+            this.droppedFull = null;
+            this.droppedSampled = null;
+            this.droppedFailed = null;
+            this.written = null;
+            this.writer = null;
+            return;
+        }
+
+        this.buffer = new EventRingBuffer<>(events.getBufferSize());
+        this.droppedFull = dropCounter(meterRegistry, "full");
+        this.droppedSampled = dropCounter(meterRegistry, "sampled");
+        this.droppedFailed = dropCounter(meterRegistry, "sink_error");
+        this.written = Counter.builder("validation.events.written")
+                .description("Anomaly events written to the sink")
+                .register(meterRegistry);
+        Gauge.builder("validation.events.queue.depth", buffer, EventRingBuffer::size)
+                .description("Anomaly events waiting to be written")
+                .register(meterRegistry);
+
+        this.running = true;
+        this.writer = new Thread(this::writeLoop, "anomaly-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static Counter dropCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("validation.events.dropped")
+                .description("Anomaly events that were not written")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true if anomaly events are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a request that did not match its model. Never blocks: if the buffer cannot take the event,
+     * it is dropped and counted.
+     *
+     * @param modelVersion The version of the model snapshot the request was validated against
+     * @param method The HTTP method of the request
+     * @param path The request path
+     * @param modelPath The path of the matched model
+     * @param anomalies The anomalies found, which must not be modified afterwards
+     */
+    @Override
+    public void publish(long modelVersion, String method, String path, String modelPath,
+                        Map<String, String> anomalies) {
+        if (!enabled) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.SAMPLE && buffer.size() > buffer.capacity() / 2
+                && sampleCounter.getAndIncrement() % sampleRate != 0) {
+            droppedSampled.increment();
+            return;
+        }
+        AnomalyEvent event = new AnomalyEvent(System.currentTimeMillis(), modelVersion, method, path, modelPath,
+                anomalies);
+        if (!buffer.offer(event)) {
+            droppedFull.increment();
+        }
+    }
+
+    private void writeLoop() {
+        List<AnomalyEvent> batch = new ArrayList<>(batchSize);
+        long batchStart = 0;
+        while (running) {
+            boolean wasEmpty = batch.isEmpty();
+            int drained = buffer.drainTo(batch, batchSize - batch.size());
+            if (wasEmpty && drained > 0) {
+                batchStart = System.nanoTime();
+            }
+            if (batch.size() >= batchSize
+                    || (!batch.isEmpty() && System.nanoTime() - batchStart >= flushIntervalNanos)) {
+                write(batch);
+            } else if (drained == 0) {
+                LockSupport.parkNanos(Math.min(MAX_IDLE_NANOS, flushIntervalNanos));
+            }
+        }
+
+        // Write what is left once the application shuts down
+        do {
+            write(batch);
+        } while (buffer.drainTo(batch, batchSize) > 0);
+    }
+
+    private void write(List<AnomalyEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            sink.write(batch);
+            written.increment(batch.size());
+        } catch (IOException | RuntimeException e) {
+            droppedFailed.increment(batch.size());
+            log.warn("Failed to write {} anomaly events: {}", batch.size(), e.getMessage());
+        }
+        batch.clear();
+    }
+
+    /**
+     * Stops the writer after it has written the events still in the buffer, and closes the sink.
+     */
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        if (writer != null) {
+            running = false;
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        sink.close();
+    }
+}
@@ -0,0 +1,25 @@
+package com.guyshalev.Salt_security.event;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of recorded anomaly events. Batches are written by a single background thread, so
+ * implementations need not be thread-safe. Defining a bean of this type replaces the default
+ * {@link NdjsonFileSink}.
+ */
+public interface AnomalyEventSink extends Closeable {
+
+    /**
+     * Writes a batch of events.
+     *
+     * @param events The events, oldest first
+     * @throws IOException if the events could not be written; they are then counted as dropped
+     */
+    void write(List<AnomalyEvent> events) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
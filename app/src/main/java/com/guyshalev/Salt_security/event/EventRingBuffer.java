@@ -0,0 +1,99 @@
+package com.guyshalev.Salt_security.event;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free queue for many producers and a single consumer.
+ * Every slot carries a sequence number telling whether it is free for the producer of a given position or
+ * holds an element for the consumer (the bounded queue design by Dmitry Vyukov). Producers claim a position
+ * with one compare-and-set and never wait for each other or for the consumer; when the queue is full,
+ * {@link #offer} fails immediately.
+ *
+ * @param <T> The element type
+ */
+final class EventRingBuffer<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Only advanced by the consumer; read by producers to report the depth
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity The minimum capacity, rounded up to a power of two
+     */
+    EventRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds an element, unless the queue is full. Safe to call from any thread.
+     *
+     * @param element The element
+     * @return true if the element was added
+     */
+    boolean offer(T element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // Publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Moves up to the given number of elements into a list. Must only be called by the consumer thread.
+     *
+     * @param target The list to add the elements to
+     * @param limit The maximum number of elements to move
+     * @return The number of elements moved
+     */
+    int drainTo(List<T> target, int limit) {
+        long position = head.get();
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            target.add(elements.get(index));
+            elements.lazySet(index, null);
+            // Hands the slot back to the producer of the position one lap ahead
+            sequences.set(index, position + mask + 1);
+            position++;
+            drained++;
+        }
+        head.lazySet(position);
+        return drained;
+    }
+
+    /**
+     * @return The number of elements waiting, approximate while producers or the consumer are active
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+}
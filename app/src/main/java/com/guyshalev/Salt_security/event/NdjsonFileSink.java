@@ -0,0 +1,100 @@
+package com.guyshalev.Salt_security.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes anomaly events to a rolling file, one JSON object per line.
+ * Events are appended to {@value #CURRENT_FILE}; once it reaches the maximum size it is renamed to
+ * {@code anomalies-<epoch millis>-<sequence>.ndjson} and a new file is started. Only the newest rolled-over
+ * files are kept. The directory and file are created on the first write.
+ */
+public class NdjsonFileSink implements AnomalyEventSink {
+
+    static final String CURRENT_FILE = "anomalies.ndjson";
+    private static final String ROLLED_PREFIX = "anomalies-";
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private OutputStream out;
+    private long size;
+    private int rollSequence;
+
+    /**
+     * @param objectMapper Serializes the events
+     * @param directory The directory of the event files
+     * @param maxFileSize The size in bytes at which the current file is rolled over
+     * @param maxFiles The number of rolled-over files to keep
+     */
+    public NdjsonFileSink(ObjectMapper objectMapper, Path directory, long maxFileSize, int maxFiles) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+    }
+
+    @Override
+    public void write(List<AnomalyEvent> events) throws IOException {
+        if (out == null) {
+            open();
+        }
+        for (AnomalyEvent event : events) {
+            byte[] line = objectMapper.writeValueAsBytes(event);
+            out.write(line);
+            out.write('\n');
+            size += line.length + 1;
+            if (size >= maxFileSize) {
+                roll();
+            }
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        Path current = directory.resolve(CURRENT_FILE);
+        out = new BufferedOutputStream(Files.newOutputStream(current,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        size = Files.size(current);
+    }
+
+    private void roll() throws IOException {
+        close();
+        String rolledName = String.format("%s%013d-%06d.ndjson", ROLLED_PREFIX, System.currentTimeMillis(),
+                rollSequence++ % 1_000_000);
+        Files.move(directory.resolve(CURRENT_FILE), directory.resolve(rolledName));
+        deleteOldFiles();
+        open();
+    }
+
+    private void deleteOldFiles() throws IOException {
+        List<Path> rolled;
+        try (Stream<Path> files = Files.list(directory)) {
+            rolled = files
+                    .filter(file -> file.getFileName().toString().startsWith(ROLLED_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < rolled.size() - maxFiles; i++) {
+            Files.deleteIfExists(rolled.get(i));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.guyshalev.Salt_security.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomTypeDTO {
+    private String name;
+    private String pattern;
+}
@@ -6,13 +6,15 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "models")
+@Table(name = "models", uniqueConstraints =
+        @UniqueConstraint(name = "uk_models_path_method", columnNames = {"path", "method"}))
 @Getter
 @Setter
 @NoArgsConstructor
 public class Model {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "models_seq")
+    @SequenceGenerator(name = "models_seq", sequenceName = "models_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,30 @@
+package com.guyshalev.Salt_security.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "custom_types", uniqueConstraints =
+        @UniqueConstraint(name = "uk_custom_types_name", columnNames = "name"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class TypeDefinition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String pattern;
+
+    public TypeDefinition(String name, String pattern) {
+        this.name = name;
+        this.pattern = pattern;
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.guyshalev.Salt_security.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.SaltSecurityApplication;
+import com.guyshalev.Salt_security.service.ModelSnapshot;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Command-line entry point that validates captured traffic against a candidate model set before it is deployed.
+ * Starts the application without the web layer, compiles the models given with {@code --models} without
+ * storing them, replays the NDJSON files and directories given as arguments with {@link TrafficReplayer},
+ * and writes the aggregated {@link ReplayReport} as JSON to the file given with {@code --report}, or to
+ * standard output.
+ * Exits with 0 once the report is written, 1 if the models or the traffic cannot be read, and 2 on
+ * invalid arguments.
+ */
+public final class ReplayApplication {
+
+    static final String USAGE = "Usage: ReplayApplication --models=<models.json> [--report=<report.json>] "
+            + "<traffic.ndjson or directory>...";
+
+    // Standard output is kept free for the report, and nothing scrapes metrics during a replay;
+    // each option can be overridden on the command line
+    private static final List<String> DEFAULT_OPTIONS = List.of("spring.jpa.show-sql=false",
+            "logging.level.root=WARN", "spring.main.banner-mode=off", "validation.metrics.enabled=false");
+
+    private ReplayApplication() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs a replay.
+     *
+     * @param args The command-line arguments; other {@code --name=value} options are applied as properties
+     * @return The exit code
+     */
+    static int run(String[] args) {
+        ApplicationArguments arguments = new DefaultApplicationArguments(args);
+        List<String> models = arguments.getOptionValues("models");
+        List<String> reports = arguments.getOptionValues("report");
+        if (models == null || models.size() != 1 || (reports != null && reports.size() != 1)
+                || arguments.getNonOptionArgs().isEmpty()) {
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        List<String> springArgs = new ArrayList<>();
+        for (String option : DEFAULT_OPTIONS) {
+            if (!arguments.containsOption(option.substring(0, option.indexOf('=')))) {
+                springArgs.add("--" + option);
+            }
+        }
+        springArgs.addAll(List.of(args));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SaltSecurityApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(springArgs.toArray(String[]::new))) {
+            ModelSnapshot snapshot;
+            try (InputStream in = Files.newInputStream(Path.of(models.get(0)))) {
+                snapshot = context.getBean(ValidationService.class).compileSnapshot(in);
+            }
+
+            List<Path> files = inputFiles(arguments.getNonOptionArgs());
+            ReplayReport report = context.getBean(TrafficReplayer.class).replay(files, snapshot);
+            System.err.printf("Replayed %d requests (%d invalid) from %d files in %d ms, %.1f MB/s%n",
+                    report.getRequests(), report.getInvalid(), report.getFiles(), report.getElapsedMillis(),
+                    report.getMegabytesPerSecond());
+
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            if (reports == null) {
+                System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+            } else {
+                try (OutputStream out = Files.newOutputStream(Path.of(reports.get(0)))) {
+                    objectMapper.writerWithDefaultPrettyPrinter().writeValue(out, report);
+                }
+            }
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Replay failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Expands the given paths into the files to replay: files are taken as they are, directories
+     * contribute the regular files directly inside them, in name order.
+     */
+    static List<Path> inputFiles(List<String> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String name : paths) {
+            Path path = Path.of(name);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    children.filter(Files::isRegularFile).sorted().forEach(files::add);
+                }
+            } else if (Files.isRegularFile(path)) {
+                files.add(path);
+            } else {
+                throw new IOException("No such file or directory: " + name);
+            }
+        }
+        return files;
+    }
+}
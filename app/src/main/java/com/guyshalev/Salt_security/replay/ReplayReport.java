@@ -0,0 +1,133 @@
+package com.guyshalev.Salt_security.replay;
+
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregated results of replaying captured traffic: request counts overall and per model, and how often each
+ * parameter of a model was reported as an anomaly.
+ * Every replay task fills its own report, and reports are merged when tasks are joined, so recording never
+ * contends with other threads.
+ */
+@Getter
+public class ReplayReport {
+
+    private int files;
+    private long bytes;
+    private long requests;
+    private long invalid;
+    /** Lines that are not valid JSON. */
+    private long malformed;
+    /** Requests whose method and path match no model. */
+    private long unmatched;
+    private long elapsedMillis;
+    private final Map<String, EndpointReport> endpoints = new HashMap<>();
+
+    /**
+     * Records a validated request.
+     *
+     * @param model The model the request was validated against, or null if it matched no model
+     * @param result The validation result
+     */
+    void record(CompiledModel model, ValidationResultDTO result) {
+        requests++;
+        if (!result.isValid()) {
+            invalid++;
+        }
+        if (model == null) {
+            unmatched++;
+            return;
+        }
+
+        EndpointReport endpoint = endpoints.computeIfAbsent(model.getMethod() + " " + model.getPath(),
+                key -> new EndpointReport(model.getMethod(), model.getPath()));
+        endpoint.requests++;
+        if (!result.isValid()) {
+            endpoint.invalid++;
+            for (String parameter : result.getAnomalies().keySet()) {
+                endpoint.anomalies.merge(parameter, 1L, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Records a line that could not be parsed.
+     */
+    void recordMalformed() {
+        requests++;
+        invalid++;
+        malformed++;
+    }
+
+    /**
+     * Adds the counts of another report to this one.
+     *
+     * @param other The report to add
+     * @return This report
+     */
+    ReplayReport merge(ReplayReport other) {
+        requests += other.requests;
+        invalid += other.invalid;
+        malformed += other.malformed;
+        unmatched += other.unmatched;
+        other.endpoints.forEach((key, endpoint) -> endpoints.merge(key, endpoint, EndpointReport::merge));
+        return this;
+    }
+
+    /**
+     * Records the size and duration of the replay once all tasks have finished.
+     */
+    void complete(int files, long bytes, long elapsedMillis) {
+        this.files = files;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return The input read per second, in megabytes
+     */
+    public double getMegabytesPerSecond() {
+        return elapsedMillis == 0 ? 0 : bytes / 1e6 / (elapsedMillis / 1e3);
+    }
+
+    /**
+     * @return The per-model results, ordered by path and method
+     */
+    public List<EndpointReport> getEndpoints() {
+        return endpoints.values().stream()
+                .sorted(Comparator.comparing(EndpointReport::getPath).thenComparing(EndpointReport::getMethod))
+                .toList();
+    }
+
+    /**
+     * Replay results of the requests that matched one model.
+     */
+    @Getter
+    public static class EndpointReport {
+        private final String method;
+        private final String path;
+        private long requests;
+        private long invalid;
+        /** Number of requests reporting each parameter, keyed as in the validation result. */
+        private final Map<String, Long> anomalies = new TreeMap<>();
+
+        private EndpointReport(String method, String path) {
+            this.method = method;
+            this.path = path;
+        }
+
+        private EndpointReport merge(EndpointReport other) {
+            requests += other.requests;
+            invalid += other.invalid;
+            other.anomalies.forEach((parameter, count) -> anomalies.merge(parameter, count, Long::sum));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.guyshalev.Salt_security.replay;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.ModelSnapshot;
+import com.guyshalev.Salt_security.service.StreamingRequestValidator;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Validates captured traffic, given as NDJSON files with one request per line, against a model snapshot.
+ * Files are memory-mapped and split in halves at line boundaries until the parts are no larger than the
+ * chunk size; the parts are validated in parallel on a fork-join pool, and every line is parsed straight from
+ * the mapping. Requests are validated in a single
+ * pass by the {@link StreamingRequestValidator}, which gives the same results as {@link ValidationService}
+ * without building a JSON tree. Every part aggregates its results into its own {@link ReplayReport}, and the
+ * reports are merged as the parts are joined.
+ */
+@Component
+public class TrafficReplayer {
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final ValidationService validationService;
+    private final StreamingRequestValidator streamingRequestValidator;
+    private final ObjectMapper objectMapper;
+    private final long chunkSize;
+    private final int parallelism;
+
+    public TrafficReplayer(ValidationService validationService, StreamingRequestValidator streamingRequestValidator,
+                           ObjectMapper objectMapper, ValidationProperties validationProperties) {
+        this.validationService = validationService;
+        this.streamingRequestValidator = streamingRequestValidator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, validationProperties.getReplay().getChunkSize().toBytes());
+        int configured = validationProperties.getReplay().getParallelism();
+        this.parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Validates every request in the given files. Blank lines are skipped, and lines that are not valid JSON
+     * are counted as malformed.
+     *
+     * @param files The NDJSON files to replay
+     * @param snapshot The models to validate against
+     * @return The aggregated results
+     * @throws IOException if a file cannot be read
+     */
+    public ReplayReport replay(List<Path> files, ModelSnapshot snapshot) throws IOException {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<FileChannel> channels = new ArrayList<>(files.size());
+        try {
+            long bytes = 0;
+            List<ForkJoinTask<ReplayReport>> tasks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                channels.add(channel);
+                bytes += channel.size();
+                tasks.add(pool.submit(new RegionTask(channel, snapshot, 0, channel.size())));
+            }
+
+            ReplayReport report = new ReplayReport();
+            for (ForkJoinTask<ReplayReport> task : tasks) {
+                report.merge(task.join());
+            }
+            report.complete(files.size(), bytes, (System.nanoTime() - start) / 1_000_000);
+            return report;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Validates the lines of one region of a file. A region always starts at the beginning of a line and
+     * ends after a newline or at the end of the file.
+     */
+    private class RegionTask extends RecursiveTask<ReplayReport> {
+
+        private final FileChannel channel;
+        private final ModelSnapshot snapshot;
+        private final long start;
+        private final long end;
+        // The model of the request last validated by the streaming validator
+        private CompiledModel matchedModel;
+        private final Consumer<CompiledModel> onMatch = model -> matchedModel = model;
+
+        private RegionTask(FileChannel channel, ModelSnapshot snapshot, long start, long end) {
+            this.channel = channel;
+            this.snapshot = snapshot;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected ReplayReport compute() {
+            try {
+                long length = end - start;
+                if (length > chunkSize) {
+                    long middle = nextLine(start + length / 2);
+                    if (middle < end) {
+                        RegionTask first = new RegionTask(channel, snapshot, start, middle);
+                        first.fork();
+                        ReplayReport report = new RegionTask(channel, snapshot, middle, end).compute();
+                        return report.merge(first.join());
+                    }
+                }
+                return validateRegion();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return The position after the first newline at or after the given position, or the region's end
+         */
+        private long nextLine(long position) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            while (position < end) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        return Math.min(end, position + i + 1);
+                    }
+                }
+                position += read;
+            }
+            return end;
+        }
+
+        private ReplayReport validateRegion() throws IOException {
+            long length = end - start;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Line at offset " + start + " is longer than " + Integer.MAX_VALUE + " bytes");
+            }
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+
+            ReplayReport report = new ReplayReport();
+            int lineStart = 0;
+            int limit = region.limit();
+            for (int i = 0; i <= limit; i++) {
+                if (i == limit || region.get(i) == '\n') {
+                    validateLine(region, lineStart, i, report);
+                    lineStart = i + 1;
+                }
+            }
+            return report;
+        }
+
+        /**
+         * Validates one line, parsing it straight from the mapped region. The parser reads the line through its
+         * small recycled input buffer, so the region is never copied to the heap as a whole.
+         */
+        private void validateLine(ByteBuffer region, int from, int to, ReplayReport report) {
+            while (to > from && isWhitespace(region.get(to - 1))) {
+                to--;
+            }
+            while (from < to && isWhitespace(region.get(from))) {
+                from++;
+            }
+            if (from == to) {
+                return;
+            }
+
+            try (JsonParser parser = objectMapper.createParser(
+                    new ByteBufferBackedInputStream(region.slice(from, to - from)))) {
+                Optional<ValidationResultDTO> streamed = streamingRequestValidator.validate(parser, snapshot, onMatch);
+                if (streamed.isPresent()) {
+                    report.record(matchedModel, streamed.get());
+                    return;
+                }
+            } catch (IOException e) {
+                report.recordMalformed();
+                return;
+            }
+
+            // The request repeats a top-level field, which only the tree-based validation resolves
+            JsonNode request;
+            try {
+                request = objectMapper.readTree(new ByteBufferBackedInputStream(region.slice(from, to - from)));
+            } catch (IOException e) {
+                report.recordMalformed();
+                return;
+            }
+            ValidationResultDTO result = validationService.validateRequest(request, snapshot);
+            CompiledModel model = null;
+            JsonNode method = request.path("method");
+            JsonNode path = request.path("path");
+            if (method.isTextual() && path.isTextual()) {
+                model = snapshot.find(method.asText(), path.asText()).orElse(null);
+            }
+            report.record(model, result);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -0,0 +1,170 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Service responsible for validating groups of API requests in a single call.
+ * Requests of a batch are validated in parallel on a dedicated pool and results are returned in request order.
+ * All requests of a batch are validated against the same model snapshot.
+ */
+@Service
+@Slf4j
+public class BatchValidationService {
+
+    private static final int LINE_BUFFER_SIZE = 8192;
+
+    private final ValidationService validationService;
+    private final ModelRegistry modelRegistry;
+    private final Map<RequestFormat, ObjectMapper> mappers;
+    private final ForkJoinPool pool;
+    private final int maxSize;
+
+    public BatchValidationService(ValidationService validationService,
+                                  ModelRegistry modelRegistry,
+                                  ObjectMapper objectMapper,
+                                  ValidationProperties validationProperties) {
+        this.validationService = validationService;
+        this.modelRegistry = modelRegistry;
+        this.mappers = RequestFormat.mappers(objectMapper);
+
+        int parallelism = validationProperties.getBatch().getParallelism();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxSize = validationProperties.getBatch().getMaxSize();
+    }
+
+    /**
+     * Validates an array of API requests read from a stream, without decoding it into a String first.
+     * The array is read one request at a time, so a batch over the maximum size is rejected as soon as the first
+     * request over the limit starts, without reading the rest of it.
+     *
+     * @param requests Stream containing an array of requests
+     * @param format The encoding of the array
+     * @return One validation result per request, in request order
+     * @throws IllegalArgumentException if the input is not an array or exceeds the maximum batch size
+     */
+    public List<ValidationResultDTO> validateBatch(InputStream requests, RequestFormat format) {
+        ObjectMapper mapper = mappers.get(format);
+        List<JsonNode> requestNodes = new ArrayList<>();
+        try (JsonParser parser = mapper.getFactory().createParser(requests)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Input must be an array of requests");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                checkSize(requestNodes.size() + 1);
+                requestNodes.add(mapper.readTree(parser));
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to process batch: " + e.getMessage());
+        }
+
+        ModelSnapshot snapshot = modelRegistry.snapshot();
+        return validateAll(requestNodes.size(),
+                i -> validationService.validateRequest(requestNodes.get(i), snapshot));
+    }
+
+    /**
+     * Validates newline-delimited JSON requests read from a stream, one request per line. Blank lines are ignored.
+     * Lines are split on the raw bytes and each line is parsed once, as it is validated, so the body is never
+     * decoded into Strings. A line that is not valid JSON gets an error result of its own. A batch over the
+     * maximum size is rejected as soon as the first line over the limit is read.
+     *
+     * @param ndjsonRequests Stream of requests separated by newlines
+     * @return One validation result per non-blank line, in line order
+     * @throws IllegalArgumentException if the input cannot be read or exceeds the maximum batch size
+     */
+    public List<ValidationResultDTO> validateNdjson(InputStream ndjsonRequests) {
+        List<byte[]> lines;
+        try {
+            lines = readLines(ndjsonRequests);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to process batch: " + e.getMessage());
+        }
+
+        ModelSnapshot snapshot = modelRegistry.snapshot();
+        return validateAll(lines.size(),
+                i -> validationService.validateRequest(lines.get(i), RequestFormat.JSON, snapshot));
+    }
+
+    /**
+     * Splits a stream into its non-blank lines, without the line separators.
+     *
+     * @throws IllegalArgumentException as soon as there are more lines than the maximum batch size
+     */
+    private List<byte[]> readLines(InputStream in) throws IOException {
+        List<byte[]> lines = new ArrayList<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        byte[] buffer = new byte[LINE_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    line.write(buffer, start, i - start);
+                    addLine(lines, line);
+                    start = i + 1;
+                }
+            }
+            line.write(buffer, start, read - start);
+        }
+        addLine(lines, line);
+        return lines;
+    }
+
+    private void addLine(List<byte[]> lines, ByteArrayOutputStream line) {
+        byte[] bytes = line.toByteArray();
+        line.reset();
+        for (byte b : bytes) {
+            if (b != ' ' && b != '\t' && b != '\r') {
+                checkSize(lines.size() + 1);
+                lines.add(bytes);
+                return;
+            }
+        }
+    }
+
+    private void checkSize(int size) {
+        if (size > maxSize) {
+            throw new IllegalArgumentException("Batch contains more than " + maxSize
+                    + " requests, the maximum is " + maxSize);
+        }
+    }
+
+    private List<ValidationResultDTO> validateAll(int size, IntFunction<ValidationResultDTO> validator) {
+        try {
+            return pool.submit(() -> IntStream.range(0, size)
+                            .parallel()
+                            .mapToObj(validator)
+                            .toList())
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch validation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch validation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,185 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.dal.TypeDefinitionRepository;
+import com.guyshalev.Salt_security.model.compiled.CustomType;
+import com.guyshalev.Salt_security.model.compiled.ParameterType;
+import com.guyshalev.Salt_security.model.dto.CustomTypeDTO;
+import com.guyshalev.Salt_security.model.entity.TypeDefinition;
+import com.guyshalev.Salt_security.service.ModelRegistry.ChangeLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Service for registering user-defined parameter types.
+ * A custom type is a name and a pattern; the pattern is compiled once into a deterministic automaton by
+ * {@link TypePatternCompiler} and stored in the database next to the models. Changing a type resolves the
+ * types of the registered models against the new type set and publishes them as a new model version, so the change
+ * takes effect as soon as it is committed and results cached for the old types are never served.
+ */
+@Service
+@Slf4j
+public class CustomTypeService {
+
+    private static final Pattern TYPE_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_-]{0,63}");
+
+    private final TypeDefinitionRepository typeDefinitionRepository;
+    private final ObjectMapper objectMapper;
+    private final TypePatternCompiler typePatternCompiler;
+    private final TypeRegistry typeRegistry;
+    private final ModelCompiler modelCompiler;
+    private final ModelRegistry modelRegistry;
+
+    public CustomTypeService(TypeDefinitionRepository typeDefinitionRepository,
+                             ObjectMapper objectMapper,
+                             TypePatternCompiler typePatternCompiler,
+                             TypeRegistry typeRegistry,
+                             ModelCompiler modelCompiler,
+                             ModelRegistry modelRegistry) {
+        this.typeDefinitionRepository = typeDefinitionRepository;
+        this.objectMapper = objectMapper;
+        this.typePatternCompiler = typePatternCompiler;
+        this.typeRegistry = typeRegistry;
+        this.modelCompiler = modelCompiler;
+        this.modelRegistry = modelRegistry;
+    }
+
+    /**
+     * Compiles all stored types once the application has started, before the models that use them are loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void loadTypes() {
+        List<CustomType> types = typeDefinitionRepository.findAll().stream()
+                .map(type -> typePatternCompiler.compile(type.getName(), type.getPattern()))
+                .toList();
+        typeRegistry.publish(types);
+        log.info("Loaded {} custom types", types.size());
+    }
+
+    /**
+     * Creates or replaces a custom type, given as {@code {"name": "...", "pattern": "..."}}.
+     * Models using the type are recompiled with the new pattern.
+     *
+     * @param jsonType JSON string containing the type
+     * @throws IllegalArgumentException if the name is invalid or taken by a built-in type, or the pattern
+     *                                  cannot be compiled
+     */
+    @Transactional
+    public void saveType(String jsonType) {
+        try (ChangeLock lock = modelRegistry.lockChanges()) {
+            JsonNode typeNode = objectMapper.readTree(jsonType);
+            if (!typeNode.path("name").isTextual() || !typeNode.path("pattern").isTextual()) {
+                throw new IllegalArgumentException("Type must have a string name and a string pattern");
+            }
+            String name = typeNode.get("name").asText();
+            String pattern = typeNode.get("pattern").asText();
+            if (!TYPE_NAME.matcher(name).matches() || ParameterType.names().contains(name)) {
+                throw new IllegalArgumentException("Type name '" + name + "' must be a letter followed by up to "
+                        + "63 letters, digits, underscores or hyphens, and must not be a built-in type");
+            }
+            CustomType type = typePatternCompiler.compile(name, pattern);
+
+            TypeDefinition definition = typeDefinitionRepository.findByName(name)
+                    .orElseGet(() -> new TypeDefinition(name, pattern));
+            definition.setPattern(pattern);
+            typeDefinitionRepository.save(definition);
+
+            publishInTransaction(types -> {
+                Map<String, CustomType> changed = new HashMap<>(types);
+                changed.put(name, type);
+                return changed;
+            });
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to process type: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes a custom type.
+     * Model changes are blocked until the deletion is published, so no model can start using the type after it
+     * has been checked.
+     *
+     * @param name The type name
+     * @return true if the type was deleted, false if no type of that name exists
+     * @throws IllegalArgumentException if a stored model still uses the type
+     */
+    @Transactional
+    public boolean deleteType(String name) {
+        try (ChangeLock lock = modelRegistry.lockChanges()) {
+            Optional<TypeDefinition> existing = typeDefinitionRepository.findByName(name);
+            if (existing.isEmpty()) {
+                return false;
+            }
+            typeDefinitionRepository.delete(existing.get());
+
+            UnaryOperator<Map<String, CustomType>> change = types -> {
+                Map<String, CustomType> changed = new HashMap<>(types);
+                changed.remove(name);
+                return changed;
+            };
+            Map<String, CustomType> remaining = change.apply(typeRegistry.types());
+            try {
+                modelRegistry.snapshot().models().forEach(model -> modelCompiler.rebind(model, remaining));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Type '" + name + "' is still in use: " + e.getMessage());
+            }
+            publishInTransaction(change);
+            return true;
+        }
+    }
+
+    /**
+     * Retrieves all stored custom types.
+     *
+     * @return The types with their patterns
+     */
+    @Transactional(readOnly = true)
+    public List<CustomTypeDTO> getAllTypes() {
+        return typeDefinitionRepository.findAll().stream()
+                .map(type -> new CustomTypeDTO(type.getName(), type.getPattern()))
+                .toList();
+    }
+
+    /**
+     * Changes the registered types once the current transaction commits, then resolves the custom types of every
+     * registered model again in a single model registry update, so the new types and the models using them take
+     * effect together and concurrent model changes are kept. Outside of a transaction the change is applied
+     * immediately.
+     *
+     * @param change Derives the new types, keyed by name, from the current ones
+     */
+    private void publishInTransaction(UnaryOperator<Map<String, CustomType>> change) {
+        Runnable publication = () -> {
+            typeRegistry.update(change);
+            modelRegistry.update(snapshot -> snapshot.map(
+                    model -> modelCompiler.rebind(model, typeRegistry.types())));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publication.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publication.run();
+            }
+        });
+    }
+}
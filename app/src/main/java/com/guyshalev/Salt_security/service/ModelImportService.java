@@ -0,0 +1,128 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.dal.ModelRepository;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.entity.Model;
+import com.guyshalev.Salt_security.service.ModelRegistry.ChangeLock;
+import com.guyshalev.Salt_security.validator.RequestValidator;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service for importing large model sets.
+ * The models array is read one element at a time, so only the current model is held as a JSON tree.
+ * Models are written in batches of {@code validation.model-import.batch-size}, and the persistence context
+ * is cleared after every batch so that memory use does not grow with the number of written rows.
+ */
+@Service
+@Slf4j
+public class ModelImportService {
+
+    private final ModelRepository modelRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final RequestValidator requestValidator;
+    private final ModelCompiler modelCompiler;
+    private final ModelRegistry modelRegistry;
+    private final ValidationProperties validationProperties;
+
+    public ModelImportService(ModelRepository modelRepository,
+                              EntityManager entityManager,
+                              ObjectMapper objectMapper,
+                              RequestValidator requestValidator,
+                              ModelCompiler modelCompiler,
+                              ModelRegistry modelRegistry,
+                              ValidationProperties validationProperties) {
+        this.modelRepository = modelRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.requestValidator = requestValidator;
+        this.modelCompiler = modelCompiler;
+        this.modelRegistry = modelRegistry;
+        this.validationProperties = validationProperties;
+    }
+
+    /**
+     * Imports a JSON array of API models. Replaces all existing models with the imported ones.
+     * Every model is validated and compiled as soon as it is read; the first invalid model aborts the
+     * import and rolls back everything written so far.
+     *
+     * @param jsonModels Stream containing a JSON array of API models
+     * @return The number of imported models
+     * @throws IllegalArgumentException if the input is not a valid JSON array or contains invalid models
+     */
+    @Transactional
+    public int importModels(InputStream jsonModels) {
+        int batchSize = Math.max(1, validationProperties.getModelImport().getBatchSize());
+        try (ChangeLock lock = modelRegistry.lockChanges();
+             JsonParser parser = objectMapper.getFactory().createParser(jsonModels)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Input must be an array of models");
+            }
+
+            modelRepository.deleteAllInBatch();
+
+            List<CompiledModel> compiledModels = new ArrayList<>();
+            Set<String> keys = new HashSet<>();
+            List<Model> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                JsonNode modelNode = objectMapper.readTree(parser);
+
+                // Validate model structure
+                Map<String, String> validationErrors = requestValidator.validateModel(modelNode);
+                if (!validationErrors.isEmpty()) {
+                    throw new IllegalArgumentException(
+                            "Invalid model structure at index " + compiledModels.size() + ": " + validationErrors);
+                }
+                CompiledModel compiledModel = modelCompiler.compile(modelNode);
+                if (!keys.add(compiledModel.getMethod() + " " + PathTrie.normalize(compiledModel.getPath()))) {
+                    throw new IllegalArgumentException("Duplicate model for path '" + compiledModel.getPath()
+                            + "' and method '" + compiledModel.getMethod() + "' at index " + compiledModels.size());
+                }
+                compiledModels.add(compiledModel);
+                batch.add(new Model(modelNode.get("path").asText(), modelNode.get("method").asText(),
+                        modelNode.toString()));
+
+                if (batch.size() == batchSize) {
+                    writeBatch(batch);
+                }
+            }
+            writeBatch(batch);
+
+            modelRegistry.publishInTransaction(compiledModels);
+            log.info("Imported {} models", compiledModels.size());
+            return compiledModels.size();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to import models: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a batch of models and detaches them, so that the persistence context stays small.
+     *
+     * @param batch The models to write, cleared afterwards
+     */
+    private void writeBatch(List<Model> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        modelRepository.saveAll(batch);
+        entityManager.flush();
+        entityManager.clear();
+        batch.clear();
+    }
+}
@@ -0,0 +1,402 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.compiled.ParameterType;
+import com.guyshalev.Salt_security.model.dto.ModelDTO;
+import com.guyshalev.Salt_security.model.dto.ParameterDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Infers models from observed requests ("learning mode").
+ * For every endpoint, and every parameter of its sections, it counts how often the parameter is present and
+ * which built-in types its values satisfy, as classified by {@link TypeValidator#classify}. All counters live
+ * in fixed-size tables: once a table is full, a new key replaces the key seen least often and inherits its
+ * count as in the Space-Saving algorithm, so frequent keys stay tracked and memory stays bounded by the
+ * {@code validation.learning.*} limits however much traffic is observed. Rare keys may be lost on the way.
+ * Requests to different endpoints are counted concurrently; only the arrival of a new endpoint takes a lock
+ * shared by all of them.
+ * Requests matching a registered model are tracked under the model's path; other paths are templated by
+ * replacing integer and UUID segments with template segments.
+ */
+@Component
+public class ModelLearner {
+
+    private static final String[] SECTIONS = {"query_params", "headers", "body"};
+
+    // Types in the order they are proposed when a value satisfies several of them, most specific first
+    private static final List<ParameterType> SPECIFICITY = List.of(ParameterType.UUID, ParameterType.AUTH_TOKEN,
+            ParameterType.EMAIL, ParameterType.DATE, ParameterType.BOOLEAN, ParameterType.INT, ParameterType.LIST,
+            ParameterType.OBJECT, ParameterType.STRING);
+
+    private static final int TEMPLATE_TYPES = ParameterType.INT.getBit() | ParameterType.UUID.getBit();
+
+    private final TypeValidator typeValidator;
+    private final boolean enabled;
+    private final int maxParameters;
+    private final int maxTypeCombinations;
+    private final int minSamples;
+    private final double requiredRatio;
+    private final BoundedTable<EndpointStats> endpoints;
+
+    public ModelLearner(TypeValidator typeValidator, ValidationProperties validationProperties) {
+        ValidationProperties.Learning learning = validationProperties.getLearning();
+        this.typeValidator = typeValidator;
+        this.enabled = learning.isEnabled() && learning.getMaxEndpoints() > 0;
+        this.maxParameters = Math.max(1, learning.getMaxParameters());
+        this.maxTypeCombinations = Math.max(1, learning.getMaxTypeCombinations());
+        this.minSamples = learning.getMinSamples();
+        this.requiredRatio = learning.getRequiredRatio();
+        this.endpoints = new BoundedTable<>(Math.max(1, learning.getMaxEndpoints()));
+    }
+
+    /**
+     * @return true if requests are observed
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a request. Requests without a textual method and path are ignored, as are malformed parameters.
+     *
+     * @param request The request as received
+     * @param snapshot The models the request is validated against, used to recognize known endpoints
+     */
+    public void observe(JsonNode request, ModelSnapshot snapshot) {
+        if (!enabled) return;
+
+        JsonNode method = request.get("method");
+        JsonNode path = request.get("path");
+        if (method == null || !method.isTextual() || path == null || !path.isTextual()) {
+            return;
+        }
+
+        String endpointPath = snapshot.find(method.asText(), path.asText())
+                .map(CompiledModel::getPath)
+                .orElseGet(() -> templatePath(path.asText()));
+        EndpointStats endpoint = endpoints.acquire(method.asText() + " " + endpointPath,
+                key -> new EndpointStats(method.asText(), endpointPath));
+        endpoint.observe(request);
+    }
+
+    /**
+     * Proposes a model for every tracked endpoint seen in at least {@code validation.learning.min-samples}
+     * requests. A parameter is proposed as required if it was tracked since the endpoint's first request and
+     * was present in at least {@code validation.learning.required-ratio} of them. Its types are the fewest
+     * types that accept every tracked value; parameters whose values matched no type are left out.
+     *
+     * @return The proposed models, ordered by path and method
+     */
+    public List<ModelDTO> proposeModels() {
+        return endpoints.entries.values().stream()
+                .map(EndpointStats::toModel)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(ModelDTO::getPath).thenComparing(ModelDTO::getMethod))
+                .toList();
+    }
+
+    /**
+     * Forgets everything observed so far.
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * @return The number of tracked endpoints
+     */
+    public int getEndpointCount() {
+        return endpoints.entries.size();
+    }
+
+    /**
+     * Replaces the integer and UUID segments of a request path with template segments,
+     * named {@code {id}}, {@code {id2}} and so on.
+     */
+    private String templatePath(String path) {
+        String[] segments = path.split("/", -1);
+        int templates = 0;
+        for (int i = 0; i < segments.length; i++) {
+            if (!segments[i].isEmpty()
+                    && (typeValidator.classify(TextNode.valueOf(segments[i])) & TEMPLATE_TYPES) != 0) {
+                templates++;
+                segments[i] = templates == 1 ? "{id}" : "{id" + templates + "}";
+            }
+        }
+        return templates == 0 ? path : String.join("/", segments);
+    }
+
+    /**
+     * Picks the types to propose for a parameter from the type masks of its values: the most specific type of
+     * every mask, without the types whose masks all contain another picked type.
+     */
+    static List<String> proposeTypes(int[] masks, int count) {
+        int picked = 0;
+        for (int i = 0; i < count; i++) {
+            for (ParameterType type : SPECIFICITY) {
+                if ((masks[i] & type.getBit()) != 0) {
+                    picked |= type.getBit();
+                    break;
+                }
+            }
+        }
+
+        for (ParameterType type : SPECIFICITY) {
+            if ((picked & type.getBit()) == 0) continue;
+            int others = picked & ~type.getBit();
+            boolean redundant = true;
+            for (int i = 0; i < count && redundant; i++) {
+                redundant = (masks[i] & type.getBit()) == 0 || (masks[i] & others) != 0;
+            }
+            if (redundant) {
+                picked = others;
+            }
+        }
+
+        List<String> types = new ArrayList<>();
+        for (ParameterType type : SPECIFICITY) {
+            if ((picked & type.getBit()) != 0) {
+                types.add(type.getTypeName());
+            }
+        }
+        return types;
+    }
+
+    /**
+     * An entry of a {@link BoundedTable}, weighted by how often its key was seen.
+     * The weight is only increased, by the holder of the entry's own lock.
+     */
+    private abstract static class Weighted {
+        String key;
+        volatile long weight;
+        // The weight the entry was last ordered by in the heap; never more than its weight
+        long heapWeight;
+    }
+
+    /**
+     * Map with a fixed capacity that evicts its lightest entry to make room, as in the Space-Saving algorithm.
+     * Entries are looked up without locking; inserting one locks the table.
+     * The entries are also kept in a min-heap, so that the lightest entry is found in logarithmic time. Weights
+     * grow without the table's lock, so the heap orders entries by a weight that may be out of date; before
+     * evicting the root, an outdated root is moved down to its current weight until the root is up to date,
+     * which makes it the lightest entry.
+     */
+    private static final class BoundedTable<V extends Weighted> {
+
+        private final Map<String, V> entries = new ConcurrentHashMap<>();
+        private final Weighted[] heap;
+        private int size;
+
+        private BoundedTable(int capacity) {
+            this.heap = new Weighted[capacity];
+        }
+
+        /**
+         * Returns the entry of a key. A new entry takes the place of the lightest entry once the table is full,
+         * starting from its weight. The caller counts the sighting by increasing the entry's weight.
+         */
+        V acquire(String key, Function<String, V> factory) {
+            V entry = entries.get(key);
+            if (entry != null) {
+                return entry;
+            }
+            synchronized (this) {
+                entry = entries.get(key);
+                if (entry == null) {
+                    entry = insert(key, factory.apply(key));
+                }
+                return entry;
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            Arrays.fill(heap, 0, size, null);
+            size = 0;
+        }
+
+        private V insert(String key, V entry) {
+            entry.key = key;
+            if (size < heap.length) {
+                heap[size] = entry;
+                siftUp(size++);
+            } else {
+                Weighted lightest = lightest();
+                entries.remove(lightest.key);
+                entry.weight = lightest.weight;
+                entry.heapWeight = entry.weight;
+                heap[0] = entry;
+                siftDown(0);
+            }
+            entries.put(key, entry);
+            return entry;
+        }
+
+        /**
+         * Brings the root of the heap up to date and returns it.
+         */
+        private Weighted lightest() {
+            Weighted root = heap[0];
+            long weight;
+            while ((weight = root.weight) != root.heapWeight) {
+                root.heapWeight = weight;
+                siftDown(0);
+                root = heap[0];
+            }
+            return root;
+        }
+
+        private void siftUp(int index) {
+            Weighted entry = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent].heapWeight <= entry.heapWeight) break;
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = entry;
+        }
+
+        private void siftDown(int index) {
+            Weighted entry = heap[index];
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heap[child + 1].heapWeight < heap[child].heapWeight) {
+                    child++;
+                }
+                if (entry.heapWeight <= heap[child].heapWeight) break;
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = entry;
+        }
+    }
+
+    /**
+     * Counters of one endpoint. Guarded by its own monitor.
+     */
+    private final class EndpointStats extends Weighted {
+
+        private final String method;
+        private final String path;
+        private long requests;
+        private final List<BoundedTable<ParameterStats>> sections = new ArrayList<>(SECTIONS.length);
+
+        private EndpointStats(String method, String path) {
+            this.method = method;
+            this.path = path;
+            for (int i = 0; i < SECTIONS.length; i++) {
+                sections.add(new BoundedTable<>(maxParameters));
+            }
+        }
+
+        synchronized void observe(JsonNode request) {
+            weight++;
+            requests++;
+            for (int i = 0; i < SECTIONS.length; i++) {
+                JsonNode parameters = request.get(SECTIONS[i]);
+                if (parameters == null || !parameters.isArray()) continue;
+
+                for (JsonNode parameter : parameters) {
+                    JsonNode name = parameter.get("name");
+                    if (name == null || !name.isTextual()) continue;
+
+                    ParameterStats stats = sections.get(i).acquire(name.asText(),
+                            key -> new ParameterStats(key, requests - 1));
+                    stats.weight++;
+                    // A repeated parameter counts once per request
+                    if (stats.lastRequest != requests) {
+                        stats.lastRequest = requests;
+                        stats.present++;
+                        stats.recordTypes(typeValidator.classify(parameter.get("value")));
+                    }
+                }
+            }
+        }
+
+        synchronized ModelDTO toModel() {
+            if (requests < minSamples) {
+                return null;
+            }
+            ModelDTO model = new ModelDTO();
+            model.setMethod(method);
+            model.setPath(path);
+            model.setQueryParams(toParameters(sections.get(0)));
+            model.setHeaders(toParameters(sections.get(1)));
+            model.setBody(toParameters(sections.get(2)));
+            return model;
+        }
+
+        private List<ParameterDTO> toParameters(BoundedTable<ParameterStats> section) {
+            List<ParameterDTO> parameters = new ArrayList<>();
+            for (ParameterStats stats : section.entries.values()) {
+                List<String> types = proposeTypes(stats.masks, stats.combinations);
+                if (types.isEmpty()) continue;
+
+                ParameterDTO parameter = new ParameterDTO();
+                parameter.setName(stats.name);
+                parameter.setTypes(types);
+                parameter.setRequired(stats.trackedFrom == 0
+                        && (double) stats.present / requests >= requiredRatio);
+                parameters.add(parameter);
+            }
+            parameters.sort(Comparator.comparing(ParameterDTO::getName));
+            return parameters;
+        }
+    }
+
+    /**
+     * Counters of one parameter of an endpoint section. Type masks that match no type are not recorded.
+     */
+    private final class ParameterStats extends Weighted {
+
+        private final String name;
+        // The endpoint's request count when tracking started; earlier requests were not observed
+        private final long trackedFrom;
+        private long lastRequest;
+        private long present;
+        private final int[] masks = new int[maxTypeCombinations];
+        private final long[] maskCounts = new long[maxTypeCombinations];
+        private int combinations;
+
+        private ParameterStats(String name, long trackedFrom) {
+            this.name = name;
+            this.trackedFrom = trackedFrom;
+        }
+
+        void recordTypes(int mask) {
+            if (mask == 0) return;
+
+            int lightest = 0;
+            for (int i = 0; i < combinations; i++) {
+                if (masks[i] == mask) {
+                    maskCounts[i]++;
+                    return;
+                }
+                if (maskCounts[i] < maskCounts[lightest]) {
+                    lightest = i;
+                }
+            }
+            if (combinations < masks.length) {
+                masks[combinations] = mask;
+                maskCounts[combinations++] = 1;
+            } else {
+                masks[lightest] = mask;
+                maskCounts[lightest]++;
+            }
+        }
+    }
+}
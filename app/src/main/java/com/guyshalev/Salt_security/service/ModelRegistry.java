@@ -0,0 +1,143 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory registry of compiled models, keyed by method and path.
+ * Models are served from an immutable {@link ModelSnapshot} that resolves paths through one {@link PathTrie}
+ * per method, so model paths may contain template segments. A new model set is built off to the side and
+ * published with a single reference swap, so readers are never blocked and always see either the old or
+ * the new set.
+ * Changes to the model set and to the custom types its models use are serialized by {@link #lockChanges()}, so a
+ * change is always checked against the models and types that are current when it is published.
+ */
+@Component
+public class ModelRegistry {
+
+    private final AtomicReference<ModelSnapshot> current = new AtomicReference<>(ModelSnapshot.EMPTY);
+    private final AtomicLong versions = new AtomicLong();
+    private final ReentrantLock changeLock = new ReentrantLock();
+
+    /**
+     * Returns the currently published snapshot.
+     * Callers that perform several lookups should take the snapshot once and use it for all of them.
+     *
+     * @return The current snapshot
+     */
+    public ModelSnapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Finds the compiled model for the given method and concrete request path in the current snapshot.
+     *
+     * @param method The HTTP method
+     * @param path The request path, matched against literal and template model paths
+     * @return The matching compiled model, if any
+     */
+    public Optional<CompiledModel> find(String method, String path) {
+        return snapshot().find(method, path);
+    }
+
+    /**
+     * Builds a snapshot from the given models and publishes it as the new current snapshot.
+     *
+     * @param models The compiled models to serve from now on
+     * @return The published snapshot
+     */
+    public ModelSnapshot publish(Collection<CompiledModel> models) {
+        ModelSnapshot replacement = ModelSnapshot.of(0, models);
+        return update(snapshot -> replacement);
+    }
+
+    /**
+     * Applies a change to the current snapshot and publishes the result with a new version.
+     * The change is derived from the current snapshot, so concurrent updates are never lost; it may be
+     * applied more than once and must not have side effects.
+     * Versions are taken inside the compare-and-set loop, so the version of the current snapshot never decreases.
+     *
+     * @param change Derives the new snapshot from the current one, for example through
+     *               {@link ModelSnapshot#with(CompiledModel)}
+     * @return The published snapshot
+     */
+    public ModelSnapshot update(UnaryOperator<ModelSnapshot> change) {
+        return current.updateAndGet(snapshot -> change.apply(snapshot).withVersion(versions.incrementAndGet()));
+    }
+
+    /**
+     * Publishes the given models once the current transaction commits, so that models which are never committed
+     * are never served. Nothing is published if the transaction rolls back.
+     * Outside of a transaction this is the same as {@link #publish(Collection)}.
+     *
+     * @param models The compiled models to serve from now on
+     */
+    public void publishInTransaction(Collection<CompiledModel> models) {
+        afterCommit(() -> publish(models));
+    }
+
+    /**
+     * Applies a change to the snapshot that is current when the current transaction commits. Nothing is published
+     * if the transaction rolls back. Outside of a transaction this is the same as {@link #update(UnaryOperator)}.
+     *
+     * @param change Derives the new snapshot from the current one
+     */
+    public void updateInTransaction(UnaryOperator<ModelSnapshot> change) {
+        afterCommit(() -> update(change));
+    }
+
+    /**
+     * Blocks other changes to the model set or to the custom types until the current transaction completes, after
+     * everything it publishes on commit has been published. Outside of a transaction the lock is held until the
+     * returned lock is closed. A thread may take the lock more than once.
+     * Readers are never blocked.
+     *
+     * @return The lock, to be closed when the change is done
+     */
+    public ChangeLock lockChanges() {
+        changeLock.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return changeLock::unlock;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                changeLock.unlock();
+            }
+        });
+        return () -> {
+        };
+    }
+
+    private static void afterCommit(Runnable publication) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publication.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publication.run();
+            }
+        });
+    }
+
+    /**
+     * A lock taken by {@link #lockChanges()}. Within a transaction, closing it does nothing, as the lock is released
+     * when the transaction completes.
+     */
+    public interface ChangeLock extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
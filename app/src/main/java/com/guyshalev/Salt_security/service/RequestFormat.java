@@ -0,0 +1,63 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Encodings accepted for requests to validate. Every format is read into the same JSON tree or token
+ * stream, so requests go through the same validation pipeline whatever their encoding.
+ */
+public enum RequestFormat {
+    JSON(MediaType.APPLICATION_JSON, null),
+    CBOR(MediaType.APPLICATION_CBOR, CBORFactory::new),
+    SMILE(MediaType.valueOf(RequestFormat.SMILE_VALUE), SmileFactory::new);
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    @Getter
+    private final MediaType mediaType;
+    private final Supplier<JsonFactory> factory;
+
+    RequestFormat(MediaType mediaType, Supplier<JsonFactory> factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    /**
+     * Finds the format of a request from its content type.
+     *
+     * @param contentType The content type of the request
+     * @return The matching format
+     * @throws IllegalArgumentException if the content type is not a supported format
+     */
+    public static RequestFormat of(MediaType contentType) {
+        for (RequestFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content type: " + contentType);
+    }
+
+    /**
+     * Builds one object mapper per format, all sharing the configuration of the given JSON mapper.
+     *
+     * @param jsonMapper The application's JSON mapper, used as is for JSON
+     * @return The mappers by format
+     */
+    public static Map<RequestFormat, ObjectMapper> mappers(ObjectMapper jsonMapper) {
+        Map<RequestFormat, ObjectMapper> mappers = new EnumMap<>(RequestFormat.class);
+        for (RequestFormat format : values()) {
+            mappers.put(format, format.factory == null ? jsonMapper : jsonMapper.copyWith(format.factory.get()));
+        }
+        return mappers;
+    }
+}
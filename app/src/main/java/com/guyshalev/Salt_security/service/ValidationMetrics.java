@@ -0,0 +1,220 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.compiled.CompiledSection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Records how long each validation phase takes and which anomalies are found, labelled by the method and
+ * path template of the matched model.
+ * Meters are registered once per method and path template and shared by every snapshot. The meters of the models
+ * of the current snapshot are also cached by model identity, so recording a request only reads a map and updates
+ * the meters, without allocating tags or meter ids; requests running on an older or unpublished snapshot look
+ * their meters up by method and path instead, which does not allocate either.
+ * Requests that do not match a model are recorded under the method and path {@value #UNMATCHED}, so that
+ * arbitrary request paths cannot create new time series; parameters the model does not declare are counted
+ * under the parameter name {@value #UNDECLARED} for the same reason.
+ */
+@Component
+public class ValidationMetrics implements ValidationObserver {
+
+    static final String UNMATCHED = "UNMATCHED";
+    static final String UNDECLARED = "UNDECLARED";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final ModelMeters unmatched;
+    private final AtomicReference<MeterCache> cache = new AtomicReference<>(new MeterCache(null));
+    /** The meters of every model recorded so far, by method and then path template */
+    private final Map<String, Map<String, ModelMeters>> endpoints = new ConcurrentHashMap<>();
+
+    public ValidationMetrics(MeterRegistry meterRegistry, ValidationProperties validationProperties) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = validationProperties.getMetrics().isEnabled();
+        this.unmatched = enabled ? new ModelMeters(meterRegistry, UNMATCHED, UNMATCHED) : ModelMeters.DISABLED;
+    }
+
+    /**
+     * Returns the meters of a model.
+     *
+     * @param snapshot The snapshot the model was found in
+     * @param model The matched model, or null if the request did not match a model
+     * @return The model's meters
+     */
+    @Override
+    public ModelMeters forModel(ModelSnapshot snapshot, CompiledModel model) {
+        if (model == null) {
+            return unmatched;
+        }
+        if (!enabled) {
+            return ModelMeters.DISABLED;
+        }
+
+        MeterCache current = cache(snapshot);
+        if (current == null) {
+            return endpointMeters(model);
+        }
+        ModelMeters meters = current.meters.get(model);
+        if (meters == null) {
+            meters = current.meters.computeIfAbsent(model, this::endpointMeters);
+        }
+        return meters;
+    }
+
+    /**
+     * Returns the meter cache of the given snapshot, starting a new one if the snapshot has a higher version than
+     * the snapshot of the current cache. An older cache never replaces a newer one.
+     *
+     * @return The cache, or null for a snapshot that is not the newest one seen
+     */
+    private MeterCache cache(ModelSnapshot snapshot) {
+        while (true) {
+            MeterCache current = cache.get();
+            if (current.snapshot == snapshot) {
+                return current;
+            }
+            if (current.snapshot != null && current.snapshot.getVersion() >= snapshot.getVersion()) {
+                return null;
+            }
+            MeterCache started = new MeterCache(snapshot);
+            if (cache.compareAndSet(current, started)) {
+                return started;
+            }
+        }
+    }
+
+    private ModelMeters endpointMeters(CompiledModel model) {
+        Map<String, ModelMeters> paths = endpoints.get(model.getMethod());
+        if (paths == null) {
+            paths = endpoints.computeIfAbsent(model.getMethod(), method -> new ConcurrentHashMap<>());
+        }
+        ModelMeters meters = paths.get(model.getPath());
+        if (meters == null) {
+            meters = paths.computeIfAbsent(model.getPath(),
+                    path -> new ModelMeters(meterRegistry, model.getMethod(), path));
+        }
+        return meters;
+    }
+
+    /**
+     * Meters of the models of one snapshot, by model identity.
+     */
+    private static final class MeterCache {
+        /** The snapshot the models belong to, or null before the first request */
+        private final ModelSnapshot snapshot;
+        private final Map<CompiledModel, ModelMeters> meters = new ConcurrentHashMap<>();
+
+        private MeterCache(ModelSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * The meters of one method and path template. Anomaly counters are created on first use, and are keyed by
+     * section and parameter name so that every snapshot's models of the endpoint share them.
+     */
+    public static final class ModelMeters implements ModelObserver {
+
+        private static final ModelMeters DISABLED = new ModelMeters(null, null, null);
+
+        private final MeterRegistry meterRegistry;
+        private final String method;
+        private final String path;
+        private final Timer[] timers;
+        // Keyed by section name and then parameter name, or UNDECLARED for unexpected parameters
+        private final Map<String, Map<String, Counter[]>> anomalyCounters = new ConcurrentHashMap<>();
+
+        private ModelMeters(MeterRegistry meterRegistry, String method, String path) {
+            this.meterRegistry = meterRegistry;
+            this.method = method;
+            this.path = path;
+            if (meterRegistry == null) {
+                this.timers = null;
+                return;
+            }
+            this.timers = new Timer[Phase.values().length];
+            for (Phase phase : Phase.values()) {
+                timers[phase.ordinal()] = Timer.builder("validation.phase")
+                        .description("Time spent in a phase of request validation")
+                        .tags("phase", tag(phase), "method", method, "path", path)
+                        .register(meterRegistry);
+            }
+        }
+
+        /**
+         * Records the duration of a validation phase.
+         *
+         * @param phase The phase
+         * @param nanos The duration in nanoseconds
+         */
+        @Override
+        public void record(Phase phase, long nanos) {
+            if (timers != null) {
+                timers[phase.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Counts an anomaly of a declared parameter.
+         *
+         * @param section The section the parameter belongs to
+         * @param parameter The parameter
+         * @param kind The kind of anomaly
+         */
+        @Override
+        public void anomaly(CompiledSection section, CompiledParameter parameter, AnomalyKind kind) {
+            if (timers != null) {
+                counter(section.getName(), parameter.getName(), kind).increment();
+            }
+        }
+
+        /**
+         * Counts a parameter the model does not declare.
+         *
+         * @param section The section the parameter was sent in
+         */
+        @Override
+        public void unexpected(CompiledSection section) {
+            if (timers != null) {
+                counter(section.getName(), UNDECLARED, AnomalyKind.UNEXPECTED).increment();
+            }
+        }
+
+        private Counter counter(String section, String parameter, AnomalyKind kind) {
+            Map<String, Counter[]> parameters = anomalyCounters.get(section);
+            if (parameters == null) {
+                parameters = anomalyCounters.computeIfAbsent(section, name -> new ConcurrentHashMap<>());
+            }
+            Counter[] counters = parameters.get(parameter);
+            if (counters == null) {
+                counters = parameters.computeIfAbsent(parameter, name -> new Counter[AnomalyKind.values().length]);
+            }
+            Counter counter = counters[kind.ordinal()];
+            if (counter == null) {
+                // Registering the same meter twice returns the existing one, so racing threads share it
+                counter = Counter.builder("validation.anomalies")
+                        .description("Anomalies found in validated requests")
+                        .tags("method", method, "path", path, "section", section, "parameter", parameter,
+                                "kind", tag(kind))
+                        .register(meterRegistry);
+                counters[kind.ordinal()] = counter;
+            }
+            return counter;
+        }
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,475 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.dal.ModelRepository;
+import com.guyshalev.Salt_security.event.AnomalyEventPublisher;
+import com.guyshalev.Salt_security.mapper.ModelMapper;
+import com.guyshalev.Salt_security.model.dto.ModelDTO;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.model.entity.Model;
+import com.guyshalev.Salt_security.service.ModelRegistry.ChangeLock;
+import com.guyshalev.Salt_security.service.VerdictCache.Publication;
+import com.guyshalev.Salt_security.service.VerdictCache.Verdict;
+import com.guyshalev.Salt_security.validator.RequestValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
+
+/**
+ * Service responsible for validating API requests against predefined models.
+ * Provides functionality to store models and validate incoming requests against these models.
+ */
+@Service
+@Slf4j
+public class ValidationService {
+
+    private final ModelRepository modelRepository;
+    private final ObjectMapper objectMapper;
+    private final ModelMapper modelMapper;
+    private final ModelCompiler modelCompiler;
+    private final ModelRegistry modelRegistry;
+    private final VerdictCache verdictCache;
+    private final AnomalyPublisher anomalyPublisher;
+    private final ModelLearner modelLearner;
+    private final ValidationEngine validationEngine;
+    private final Map<RequestFormat, ObjectMapper> mappers;
+
+    public ValidationService(ModelRepository modelRepository,
+                             ObjectMapper objectMapper,
+                             RequestValidator requestValidator,
+                             TypeValidator typeValidator,
+                             ModelMapper modelMapper,
+                             ModelCompiler modelCompiler,
+                             ModelRegistry modelRegistry,
+                             StreamingRequestValidator streamingRequestValidator,
+                             ValidationProperties validationProperties,
+                             ValidationMetrics validationMetrics,
+                             VerdictCache verdictCache,
+                             AnomalyEventPublisher anomalyEventPublisher,
+                             ModelLearner modelLearner) {
+        this.modelRepository = modelRepository;
+        this.objectMapper = objectMapper;
+        this.modelMapper = modelMapper;
+        this.modelCompiler = modelCompiler;
+        this.modelRegistry = modelRegistry;
+        this.verdictCache = verdictCache;
+        this.anomalyPublisher = anomalyEventPublisher;
+        this.modelLearner = modelLearner;
+        this.mappers = RequestFormat.mappers(objectMapper);
+        this.validationEngine = new ValidationEngine(objectMapper, requestValidator, typeValidator, modelCompiler,
+                streamingRequestValidator, validationMetrics, anomalyEventPublisher,
+                validationProperties.isStreaming());
+    }
+
+    /**
+     * Compiles all stored models into the in-memory registry once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadModels() {
+        List<CompiledModel> compiledModels = modelRepository.findAll().stream()
+                .map(model -> modelCompiler.compile(model.getJsonContent()))
+                .toList();
+        ModelSnapshot snapshot = modelRegistry.publish(compiledModels);
+        log.info("Loaded {} models into the model registry as version {}", compiledModels.size(), snapshot.getVersion());
+    }
+
+    /**
+     * Saves API models to the database. Replaces all existing models with the new ones.
+     * Validates each model's structure before saving, then publishes the compiled models to the registry.
+     * The models are published once the surrounding transaction commits, so a rollback leaves the registered
+     * models in service.
+     *
+     * @param jsonModels JSON string containing an array of API models
+     * @throws IllegalArgumentException if the input is not a valid JSON array, contains invalid models
+     *                                  or contains more than one model for the same method and path
+     */
+    @Transactional
+    public void saveModels(String jsonModels) {
+        saveModels(() -> objectMapper.readTree(jsonModels));
+    }
+
+    /**
+     * Saves API models read from a stream. Same as {@link #saveModels(String)}, but parses the bytes
+     * directly instead of decoding them into a String first.
+     *
+     * @param jsonModels Stream containing a JSON array of API models
+     * @throws IllegalArgumentException if the input is not a valid JSON array, contains invalid models
+     *                                  or contains more than one model for the same method and path
+     */
+    @Transactional
+    public void saveModels(InputStream jsonModels) {
+        saveModels(() -> objectMapper.readTree(jsonModels));
+    }
+
+    private void saveModels(Callable<JsonNode> reader) {
+        try (ChangeLock lock = modelRegistry.lockChanges()) {
+            JsonNode modelsNode = reader.call();
+            List<CompiledModel> compiledModels = validationEngine.compileModels(modelsNode);
+
+            // Bulk delete runs immediately, so the inserts below cannot collide with the old rows
+            modelRepository.deleteAllInBatch();
+
+            for (JsonNode modelNode : modelsNode) {
+                String path = modelNode.get("path").asText();
+                String method = modelNode.get("method").asText();
+                modelRepository.save(new Model(path, method, modelNode.toString()));
+            }
+
+            modelRegistry.publishInTransaction(compiledModels);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to process models: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compiles a set of API models without storing or publishing them, so requests can be validated against
+     * a candidate model set while the registered models stay in service.
+     *
+     * @param jsonModels Stream containing a JSON array of API models
+     * @return An unpublished snapshot of the models, with version 0
+     * @throws IllegalArgumentException if the input is not a valid JSON array, contains invalid models
+     *                                  or contains more than one model for the same method and path
+     */
+    public ModelSnapshot compileSnapshot(InputStream jsonModels) {
+        try {
+            return ModelSnapshot.of(0, validationEngine.compileModels(objectMapper.readTree(jsonModels)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to process models: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates or replaces the model for the method and path given in the model.
+     * Only this model's row and its entry in the registry are touched.
+     *
+     * @param jsonModel JSON string containing a single API model
+     * @throws IllegalArgumentException if the model is invalid or its path conflicts with another model's path
+     */
+    @Transactional
+    public void saveModel(String jsonModel) {
+        try (ChangeLock lock = modelRegistry.lockChanges()) {
+            JsonNode modelNode = objectMapper.readTree(jsonModel);
+            CompiledModel compiledModel = validationEngine.compileModel(modelNode);
+            putModel(modelNode, compiledModel, modelRegistry.snapshot());
+            modelRegistry.updateInTransaction(snapshot -> snapshot.with(compiledModel));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to process model: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the model for the given method and path.
+     * Only this model's row and its entry in the registry are touched.
+     *
+     * @param method The HTTP method of the model
+     * @param path The path of the model, with template segments written as in the model
+     * @return true if a model was deleted, false if no model exists for the method and path
+     */
+    @Transactional
+    public boolean deleteModel(String method, String path) {
+        try (ChangeLock lock = modelRegistry.lockChanges()) {
+            Optional<Model> existing = modelRepository.findByPathAndMethod(path, method);
+            if (existing.isEmpty()) {
+                return false;
+            }
+            modelRepository.delete(existing.get());
+            modelRegistry.updateInTransaction(snapshot -> snapshot.without(method, path));
+            return true;
+        }
+    }
+
+    /**
+     * Applies a list of model changes in one transaction and publishes them as a single new model version.
+     * Each change is either {@code {"op": "put", "model": {...}}} or
+     * {@code {"op": "delete", "method": "...", "path": "..."}}; changes are applied in order.
+     * All changes are validated before any of them is applied.
+     *
+     * @param jsonChanges JSON string containing an array of model changes
+     * @throws IllegalArgumentException if the input is not an array of valid changes
+     */
+    @Transactional
+    public void patchModels(String jsonChanges) {
+        try (ChangeLock lock = modelRegistry.lockChanges()) {
+            JsonNode changesNode = objectMapper.readTree(jsonChanges);
+            if (!changesNode.isArray()) {
+                throw new IllegalArgumentException("Input must be an array of changes");
+            }
+
+            List<CompiledModel> compiledModels = new ArrayList<>(changesNode.size());
+            for (int i = 0; i < changesNode.size(); i++) {
+                compiledModels.add(compileChange(changesNode.get(i), i));
+            }
+
+            // Changes are checked against the models as they are after the preceding changes
+            ModelSnapshot working = modelRegistry.snapshot();
+            List<UnaryOperator<ModelSnapshot>> changes = new ArrayList<>(changesNode.size());
+            for (int i = 0; i < changesNode.size(); i++) {
+                JsonNode change = changesNode.get(i);
+                CompiledModel compiledModel = compiledModels.get(i);
+                UnaryOperator<ModelSnapshot> snapshotChange;
+                if (compiledModel != null) {
+                    putModel(change.get("model"), compiledModel, working);
+                    snapshotChange = snapshot -> snapshot.with(compiledModel);
+                } else {
+                    String method = change.get("method").asText();
+                    String path = change.get("path").asText();
+                    modelRepository.findByPathAndMethod(path, method).ifPresent(modelRepository::delete);
+                    // Flush the delete before a later change inserts a row with the same method and path
+                    modelRepository.flush();
+                    snapshotChange = snapshot -> snapshot.without(method, path);
+                }
+                working = snapshotChange.apply(working);
+                changes.add(snapshotChange);
+            }
+
+            modelRegistry.updateInTransaction(snapshot -> {
+                ModelSnapshot updated = snapshot;
+                for (UnaryOperator<ModelSnapshot> change : changes) {
+                    updated = change.apply(updated);
+                }
+                return updated;
+            });
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to process model changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validates a single change of a patch.
+     *
+     * @param change The change to validate
+     * @param index The index of the change, for error reporting
+     * @return The compiled model of a put change, or null for a delete change
+     */
+    private CompiledModel compileChange(JsonNode change, int index) {
+        String op = change.path("op").asText();
+        if (op.equals("put")) {
+            return validationEngine.compileModel(change.path("model"));
+        }
+        if (op.equals("delete") && change.path("method").isTextual() && change.path("path").isTextual()) {
+            return null;
+        }
+        throw new IllegalArgumentException("Invalid change at index " + index
+                + ": must be a put with a model or a delete with a method and a path");
+    }
+
+    /**
+     * Inserts or updates the row of a single model, looked up through the (path, method) index.
+     *
+     * @param modelNode The model as received
+     * @param compiledModel The compiled model
+     * @param snapshot The models to check for conflicting paths
+     * @throws IllegalArgumentException if another model's path differs from this one only in template names
+     */
+    private void putModel(JsonNode modelNode, CompiledModel compiledModel, ModelSnapshot snapshot) {
+        String path = compiledModel.getPath();
+        String method = compiledModel.getMethod();
+
+        snapshot.get(method, path)
+                .filter(registered -> !registered.getPath().equals(path))
+                .ifPresent(registered -> {
+                    throw new IllegalArgumentException("Path '" + path + "' conflicts with the path '"
+                            + registered.getPath() + "' of an existing model");
+                });
+
+        Model model = modelRepository.findByPathAndMethod(path, method)
+                .orElseGet(() -> new Model(path, method, null));
+        model.setJsonContent(modelNode.toString());
+        modelRepository.save(model);
+    }
+
+    /**
+     * Validates an API request against the registered models.
+     * Performs both structural validation and type checking against the matching model.
+     * When streaming validation is enabled, the request is validated while it is parsed
+     * and only falls back to a JSON tree if it repeats a top-level field.
+     *
+     * @param jsonRequest JSON string containing the request to validate
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validateRequest(String jsonRequest) {
+        return validateRequest(jsonRequest, modelRegistry.snapshot());
+    }
+
+    /**
+     * Validates a JSON request read from a stream, such as the body of an HTTP request.
+     *
+     * @param jsonRequest Stream containing the UTF-8 encoded request
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validateRequest(InputStream jsonRequest) {
+        return validateRequest(jsonRequest, RequestFormat.JSON);
+    }
+
+    /**
+     * Validates a request in the given format read from a stream, such as the body of an HTTP request.
+     * The bytes are parsed directly instead of being decoded into a String first. In streaming mode the
+     * request is read into a byte array, so that it can be parsed again if streaming has to fall back
+     * to a JSON tree.
+     *
+     * @param request Stream containing the encoded request
+     * @param format The encoding of the request
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validateRequest(InputStream request, RequestFormat format) {
+        return validateRequest(request, format, false);
+    }
+
+    /**
+     * Validates a request in the given format read from a stream, optionally stopping at the first anomaly.
+     * In fail-fast mode the result only carries the verdict: its anomaly map is empty, and no anomaly
+     * messages are built.
+     * When the verdict cache is enabled, a request identical to a recently validated one is answered from
+     * the cache, as long as the model set has not changed since. Its anomalies are published again, as if it
+     * had been validated.
+     * In learning mode every request is parsed into a JSON tree, which is observed by the {@link ModelLearner}
+     * and then validated, bypassing the cache and streaming validation.
+     *
+     * @param request Stream containing the encoded request
+     * @param format The encoding of the request
+     * @param failFast Whether to stop at the first anomaly and report only the verdict
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validateRequest(InputStream request, RequestFormat format, boolean failFast) {
+        ModelSnapshot snapshot = modelRegistry.snapshot();
+        try {
+            if (modelLearner.isEnabled()) {
+                long parseStart = System.nanoTime();
+                JsonNode requestNode = mappers.get(format).readTree(request);
+                long parseNanos = System.nanoTime() - parseStart;
+                modelLearner.observe(requestNode, snapshot);
+                return validationEngine.validate(requestNode, snapshot, parseNanos, failFast);
+            }
+            if (verdictCache.isEnabled()) {
+                byte[] bytes = request.readAllBytes();
+                Verdict cached = verdictCache.get(snapshot, bytes, format, failFast);
+                if (cached != null) {
+                    if (cached.publication() != null) {
+                        cached.publication().publishTo(anomalyPublisher, snapshot.getVersion());
+                    }
+                    return cached.result();
+                }
+                RecordingPublisher recorder = new RecordingPublisher(anomalyPublisher);
+                ValidationResultDTO result = validationEngine.validate(bytes, mappers.get(format), snapshot,
+                        failFast, recorder);
+                verdictCache.put(snapshot, bytes, format, failFast, Verdict.of(result, recorder.publication));
+                return result;
+            }
+            if (validationEngine.isStreaming()) {
+                return validateRequest(request.readAllBytes(), format, snapshot, failFast);
+            }
+
+            long parseStart = System.nanoTime();
+            JsonNode requestNode = mappers.get(format).readTree(request);
+            return validationEngine.validate(requestNode, snapshot, System.nanoTime() - parseStart, failFast);
+        } catch (Exception e) {
+            return new ValidationResultDTO(false,
+                    Map.of("error", "Failed to validate request: " + e.getMessage()), snapshot.getVersion());
+        }
+    }
+
+    /**
+     * Validates an encoded API request against the models of the given snapshot.
+     *
+     * @param request The request bytes
+     * @param format The encoding of the request
+     * @param snapshot The model snapshot to validate against
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validateRequest(byte[] request, RequestFormat format, ModelSnapshot snapshot) {
+        return validateRequest(request, format, snapshot, false);
+    }
+
+    /**
+     * Validates an encoded API request against the models of the given snapshot, optionally stopping at the
+     * first anomaly.
+     *
+     * @param request The request bytes
+     * @param format The encoding of the request
+     * @param snapshot The model snapshot to validate against
+     * @param failFast Whether to stop at the first anomaly and report only the verdict
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validateRequest(byte[] request, RequestFormat format, ModelSnapshot snapshot,
+                                               boolean failFast) {
+        return validationEngine.validate(request, mappers.get(format), snapshot, failFast);
+    }
+
+    /**
+     * Validates an API request against the models of the given snapshot.
+     * Lets callers validating several requests use the same model version for all of them.
+     *
+     * @param jsonRequest JSON string containing the request to validate
+     * @param snapshot The model snapshot to validate against
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validateRequest(String jsonRequest, ModelSnapshot snapshot) {
+        return validationEngine.validate(jsonRequest, snapshot);
+    }
+
+    /**
+     * Validates an already parsed API request against the registered models.
+     *
+     * @param request The request to validate
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validateRequest(JsonNode request) {
+        return validateRequest(request, modelRegistry.snapshot());
+    }
+
+    /**
+     * Validates an already parsed API request against the models of the given snapshot.
+     *
+     * @param request The request to validate
+     * @param snapshot The model snapshot to validate against
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validateRequest(JsonNode request, ModelSnapshot snapshot) {
+        return validationEngine.validate(request, snapshot);
+    }
+
+    /**
+     * Retrieves all stored API models.
+     *
+     * @return List of ModelDTO objects representing all stored models
+     */
+    @Transactional(readOnly = true)
+    public List<ModelDTO> getAllModels() {
+        return modelMapper.toDTOList(modelRepository.findAll());
+    }
+
+    /**
+     * Passes the anomalies of one request on to a publisher and keeps them, so that they can be cached with the
+     * request's result.
+     */
+    private static final class RecordingPublisher implements AnomalyPublisher {
+
+        private final AnomalyPublisher delegate;
+        private Publication publication;
+
+        private RecordingPublisher(AnomalyPublisher delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void publish(long modelVersion, String method, String path, String modelPath,
+                            Map<String, String> anomalies) {
+            publication = new Publication(method, path, modelPath, anomalies);
+            delegate.publish(modelVersion, method, path, modelPath, anomalies);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of validation results, keyed by a 64-bit fingerprint of the raw request bytes.
+ * Results are cached per model snapshot: publishing a new model set starts an empty cache, so a
+ * result is never served for a model set other than the one it was computed against. Within a version,
+ * results are split into segments chosen by fingerprint bits, each with its own lock, so that concurrent lookups
+ * of different requests rarely wait on each other. A segment evicts its least recently used result once it holds its
+ * share of the maximum size, so eviction is least recently used per segment and only approximately so overall.
+ * Results expire after a TTL.
+ * A fingerprint match is confirmed by comparing the request bytes, so colliding requests are never confused.
+ * A rejected request that matched a model is cached with the anomalies it was published with, so that the caller
+ * can publish them again whenever the request is answered from the cache.
+ * Cached results are immutable, and every hit is answered with a result of its own.
+ * Hits and misses are counted in {@code validation.cache.requests}, tagged by result.
+ */
+@Component
+public class VerdictCache {
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    // Primes of XXH64
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    private static final int MAX_SEGMENTS = 16;
+    /** Smallest share of the maximum size worth a segment of its own */
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final boolean enabled;
+    private final int segments;
+    private final int segmentSize;
+    private final int maxRequestBytes;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Counter hits;
+    private final Counter misses;
+    private final AtomicReference<Generation> generation;
+
+    @Autowired
+    public VerdictCache(MeterRegistry meterRegistry, ValidationProperties validationProperties) {
+        this(meterRegistry, validationProperties, System::nanoTime);
+    }
+
+    VerdictCache(MeterRegistry meterRegistry, ValidationProperties validationProperties, LongSupplier nanoClock) {
+        ValidationProperties.Cache cache = validationProperties.getCache();
+        this.enabled = cache.isEnabled() && cache.getMaxSize() > 0;
+        this.segments = segments(cache.getMaxSize());
+        this.segmentSize = cache.getMaxSize() / segments;
+        this.generation = new AtomicReference<>(new Generation(null));
+        this.maxRequestBytes = cache.getMaxRequestBytes();
+        this.ttlNanos = cache.getTtl().toNanos();
+        this.nanoClock = nanoClock;
+        if (!enabled) {
+            this.hits = null;
+            this.misses = null;
+            return;
+        }
+        this.hits = Counter.builder("validation.cache.requests")
+                .description("Validation result cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("validation.cache.requests")
+                .description("Validation result cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("validation.cache.size", this, VerdictCache::size)
+                .description("Number of cached validation results")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true if results are cached
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Looks up the cached result of a request.
+     *
+     * @param snapshot The model snapshot the request is validated against
+     * @param request The raw request bytes
+     * @param format The encoding of the request
+     * @param failFast Whether the request is validated in fail-fast mode
+     * @return The cached verdict, or null if there is none
+     */
+    public Verdict get(ModelSnapshot snapshot, byte[] request, RequestFormat format, boolean failFast) {
+        if (!isCacheable(request)) {
+            return null;
+        }
+        Generation current = generation(snapshot);
+        if (current == null) {
+            misses.increment();
+            return null;
+        }
+
+        Key key = new Key(fingerprint(request), format, failFast, request);
+        Segment segment = current.segment(key);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.entries.get(key);
+            if (entry != null && nanoClock.getAsLong() - entry.expiresAt() >= 0) {
+                segment.entries.remove(key);
+                entry = null;
+            }
+        }
+        (entry == null ? misses : hits).increment();
+        return entry == null ? null : entry.verdict();
+    }
+
+    /**
+     * Caches the result of a request.
+     *
+     * @param snapshot The model snapshot the request was validated against
+     * @param request The raw request bytes, which must not be modified afterwards
+     * @param format The encoding of the request
+     * @param failFast Whether the request was validated in fail-fast mode
+     * @param verdict The validation result and its published anomalies
+     */
+    public void put(ModelSnapshot snapshot, byte[] request, RequestFormat format, boolean failFast,
+                    Verdict verdict) {
+        if (!isCacheable(request)) {
+            return;
+        }
+        Generation current = generation(snapshot);
+        if (current == null) {
+            return;
+        }
+
+        Key key = new Key(fingerprint(request), format, failFast, request);
+        Entry entry = new Entry(verdict, nanoClock.getAsLong() + ttlNanos);
+        Segment segment = current.segment(key);
+        synchronized (segment) {
+            segment.entries.put(key, entry);
+        }
+    }
+
+    /**
+     * @return The number of cached results of the current model version
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : generation.get().segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The number of segments for the given maximum size: a power of two, so that a segment is chosen by
+     * masking fingerprint bits, and small enough that every segment holds at least {@link #MIN_SEGMENT_SIZE}
+     * results
+     */
+    private static int segments(int maxSize) {
+        return Integer.highestOneBit(Math.clamp(maxSize / MIN_SEGMENT_SIZE, 1, MAX_SEGMENTS));
+    }
+
+    private boolean isCacheable(byte[] request) {
+        return enabled && request.length <= maxRequestBytes;
+    }
+
+    /**
+     * Returns the cache of the given snapshot, starting a new one if the snapshot has a higher version than the
+     * snapshot of the current cache. Caches belong to one snapshot instance, so a result is never served for a
+     * different model set that happens to carry the same version, and an older cache never replaces a newer one.
+     *
+     * @return The cache, or null for a request running on a snapshot older than the current cache's
+     */
+    private Generation generation(ModelSnapshot snapshot) {
+        while (true) {
+            Generation current = generation.get();
+            if (current.snapshot == snapshot) {
+                return current;
+            }
+            if (current.snapshot != null && current.snapshot.getVersion() >= snapshot.getVersion()) {
+                return null;
+            }
+            Generation started = new Generation(snapshot);
+            if (generation.compareAndSet(current, started)) {
+                return started;
+            }
+        }
+    }
+
+    /**
+     * Computes a 64-bit fingerprint of the given bytes with the XXH64 round and avalanche functions,
+     * consuming eight bytes per step.
+     *
+     * @param bytes The bytes to fingerprint
+     * @return The fingerprint
+     */
+    static long fingerprint(byte[] bytes) {
+        long hash = PRIME_5 + bytes.length;
+        int i = 0;
+        for (; i + Long.BYTES <= bytes.length; i += Long.BYTES) {
+            long k = Long.rotateLeft((long) LONG_VIEW.get(bytes, i) * PRIME_2, 31) * PRIME_1;
+            hash = Long.rotateLeft(hash ^ k, 27) * PRIME_1 + PRIME_4;
+        }
+        for (; i < bytes.length; i++) {
+            hash = Long.rotateLeft(hash ^ (bytes[i] & 0xFFL) * PRIME_5, 11) * PRIME_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    /**
+     * Cached results of one model snapshot.
+     */
+    private final class Generation {
+        /** The snapshot the results were computed against, or null before the first request */
+        private final ModelSnapshot snapshot;
+        private final Segment[] segments = new Segment[VerdictCache.this.segments];
+
+        private Generation(ModelSnapshot snapshot) {
+            this.snapshot = snapshot;
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment();
+            }
+        }
+
+        /**
+         * Chooses the segment of a key by the high bits of its fingerprint, which the key's hash code in the
+         * segment's map only mixes in.
+         */
+        private Segment segment(Key key) {
+            return segments[(int) (key.fingerprint() >>> 32) & (segments.length - 1)];
+        }
+    }
+
+    /**
+     * A share of the cached results of one model snapshot, in access order, guarded by its own monitor.
+     */
+    private final class Segment {
+        private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > segmentSize;
+            }
+        };
+    }
+
+    /**
+     * The outcome of validating a request, held as immutable values since one verdict answers every
+     * identical request.
+     *
+     * @param valid Whether the request is valid
+     * @param anomalies The anomalies of the result, unmodifiable
+     * @param modelVersion The model version the request was validated against
+     * @param publication The anomalies published for the request, or null if none were
+     */
+    public record Verdict(boolean valid, Map<String, String> anomalies, long modelVersion, Publication publication) {
+
+        public Verdict {
+            anomalies = anomalies.isEmpty() ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(anomalies));
+        }
+
+        /**
+         * Captures a validation result, which the caller remains free to modify.
+         */
+        public static Verdict of(ValidationResultDTO result, Publication publication) {
+            return new Verdict(result.isValid(), result.getAnomalies(), result.getModelVersion(), publication);
+        }
+
+        /**
+         * @return A new result with the values of this verdict
+         */
+        public ValidationResultDTO result() {
+            return new ValidationResultDTO(valid, anomalies, modelVersion);
+        }
+    }
+
+    /**
+     * Anomalies of a rejected request as they were passed to an {@link AnomalyPublisher}.
+     */
+    public record Publication(String method, String path, String modelPath, Map<String, String> anomalies) {
+
+        /**
+         * Publishes the anomalies again, for a request validated against the given model version.
+         */
+        public void publishTo(AnomalyPublisher publisher, long modelVersion) {
+            publisher.publish(modelVersion, method, path, modelPath, anomalies);
+        }
+    }
+
+    private record Entry(Verdict verdict, long expiresAt) {
+    }
+
+    /**
+     * A request and the mode it was validated in. Equal fingerprints are confirmed by comparing the bytes.
+     */
+    private record Key(long fingerprint, RequestFormat format, boolean failFast, byte[] request) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other
+                    && fingerprint == other.fingerprint
+                    && format == other.format
+                    && failFast == other.failFast
+                    && Arrays.equals(request, other.request);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fingerprint);
+        }
+    }
+}
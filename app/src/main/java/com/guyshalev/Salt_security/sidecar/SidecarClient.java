@@ -0,0 +1,128 @@
+package com.guyshalev.Salt_security.sidecar;
+
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.sidecar.SidecarProtocol.Status;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Blocking client of the sidecar socket, for JVM callers and for load tests.
+ * Requests are buffered by {@link #send} until {@link #flush}, so several requests can be pipelined before the
+ * responses are read with {@link #receive}. A client is not thread-safe; use one connection per thread.
+ */
+public class SidecarClient implements Closeable {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final Status[] STATUSES = Status.values();
+
+    private final SocketChannel channel;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private int nextCorrelationId;
+
+    private SidecarClient(SocketChannel channel) {
+        this.channel = channel;
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+    }
+
+    /**
+     * Connects to a sidecar listener.
+     *
+     * @param socketPath The path of the listener's socket file
+     * @return The connected client
+     * @throws IOException if the connection fails
+     */
+    public static SidecarClient connect(Path socketPath) throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new SidecarClient(channel);
+    }
+
+    /**
+     * Validates a single JSON request and waits for its response.
+     *
+     * @param jsonRequest The UTF-8 encoded request
+     * @return The response
+     * @throws IOException if the connection fails
+     */
+    public Response validate(byte[] jsonRequest) throws IOException {
+        send(nextCorrelationId++, RequestFormat.JSON, false, jsonRequest);
+        flush();
+        return receive();
+    }
+
+    /**
+     * Buffers a request frame. The frame is sent on {@link #flush}, or earlier when the buffer is full.
+     *
+     * @param correlationId Id returned in the request's response
+     * @param format The encoding of the request
+     * @param failFast Whether to stop at the first anomaly and answer with the verdict only
+     * @param request The encoded request
+     * @throws IOException if the connection fails
+     */
+    public void send(int correlationId, RequestFormat format, boolean failFast, byte[] request) throws IOException {
+        out.writeInt(SidecarProtocol.REQUEST_HEADER_BYTES + request.length);
+        out.writeInt(correlationId);
+        out.writeByte(format.ordinal());
+        out.writeByte(failFast ? SidecarProtocol.FLAG_FAIL_FAST : 0);
+        out.write(request);
+    }
+
+    /**
+     * Sends all buffered request frames.
+     *
+     * @throws IOException if the connection fails
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Reads the next response. Responses arrive in the order the requests were sent.
+     *
+     * @return The response
+     * @throws IOException if the connection fails or is closed by the listener
+     */
+    public Response receive() throws IOException {
+        int length = in.readInt();
+        int correlationId = in.readInt();
+        Status status = STATUSES[in.readUnsignedByte()];
+        long modelVersion = in.readLong();
+        byte[] body = new byte[length - SidecarProtocol.RESPONSE_HEADER_BYTES];
+        in.readFully(body);
+        return new Response(correlationId, status, modelVersion, body);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A response frame.
+     *
+     * @param correlationId The correlation id of the request
+     * @param status The outcome of the request
+     * @param modelVersion The version of the model set the request was validated against
+     * @param body Empty for a valid request or a fail-fast verdict, the anomalies as a JSON object for an invalid
+     *             request, or a UTF-8 message for an error
+     */
+    public record Response(int correlationId, Status status, long modelVersion, byte[] body) {
+    }
+}
@@ -0,0 +1,256 @@
+package com.guyshalev.Salt_security.sidecar;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.service.ValidationService;
+import com.guyshalev.Salt_security.sidecar.SidecarProtocol.Status;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves request validation on a Unix domain socket, for deployments where the service runs as a sidecar next to
+ * the API it protects. Frames are described in {@link SidecarProtocol}; every request is validated by the
+ * {@link ValidationService} exactly as a request to {@code POST /api/validate}.
+ * Each connection is served by its own thread, a virtual thread if {@code spring.threads.virtual.enabled} is set.
+ * The thread reads as many bytes as are available, validates every complete frame among them and writes all their
+ * responses at once, so pipelined requests are answered with one write per read instead of one per request.
+ */
+@Component
+@Slf4j
+public class SidecarListener {
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    private static final RequestFormat[] FORMATS = RequestFormat.values();
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ValidationService validationService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path socketPath;
+    private final int maxFrameSize;
+    private final int maxConnections;
+    private final Thread.Builder connectionThreads;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private volatile ServerSocketChannel server;
+
+    public SidecarListener(ValidationService validationService, ObjectMapper objectMapper,
+                           ValidationProperties validationProperties, Environment environment) {
+        this.validationService = validationService;
+        this.objectMapper = objectMapper;
+        ValidationProperties.Sidecar sidecar = validationProperties.getSidecar();
+        this.enabled = sidecar.isEnabled();
+        this.socketPath = Path.of(sidecar.getSocketPath());
+        this.maxFrameSize = (int) Math.min(Integer.MAX_VALUE - SidecarProtocol.LENGTH_BYTES,
+                sidecar.getMaxFrameSize().toBytes());
+        this.maxConnections = sidecar.getMaxConnections();
+        // Connections are served on virtual threads when the HTTP API is
+        this.connectionThreads = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("sidecar-connection-", 1)
+                : Thread.ofPlatform().daemon().name("sidecar-connection-", 1);
+    }
+
+    /**
+     * Binds the socket once the application has started, so that no request arrives before the models are loaded.
+     *
+     * @throws IOException if the socket cannot be bound
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled || server != null) {
+            return;
+        }
+        Files.deleteIfExists(socketPath);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socketPath));
+        server = channel;
+
+        Thread acceptor = new Thread(() -> acceptLoop(channel), "sidecar-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Sidecar listening on {}", socketPath);
+    }
+
+    /**
+     * @return The path of the socket file
+     */
+    public Path getSocketPath() {
+        return socketPath;
+    }
+
+    /**
+     * Closes the socket and every open connection, and removes the socket file.
+     */
+    @PreDestroy
+    public void stop() {
+        ServerSocketChannel channel = server;
+        if (channel == null) {
+            return;
+        }
+        server = null;
+        closeQuietly(channel);
+        connections.forEach(SidecarListener::closeQuietly);
+        try {
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            log.warn("Failed to remove sidecar socket {}", socketPath, e);
+        }
+    }
+
+    private void acceptLoop(ServerSocketChannel channel) {
+        while (server == channel) {
+            SocketChannel connection;
+            try {
+                connection = channel.accept();
+            } catch (IOException e) {
+                if (server == channel) {
+                    log.warn("Sidecar stopped accepting connections", e);
+                }
+                return;
+            }
+            if (connections.size() >= maxConnections) {
+                log.warn("Sidecar connection rejected: {} connections are open", maxConnections);
+                closeQuietly(connection);
+                continue;
+            }
+            connections.add(connection);
+            connectionThreads.start(() -> serve(connection));
+        }
+    }
+
+    /**
+     * Serves one connection until the client closes it or sends a malformed frame.
+     * The responses to the frames read before a malformed frame are still written before the connection closes.
+     */
+    private void serve(SocketChannel connection) {
+        ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        try (connection) {
+            while (connection.read(in) >= 0) {
+                in.flip();
+                int needed;
+                try {
+                    while ((needed = nextFrameSize(in)) > 0 && in.remaining() >= needed) {
+                        out = handleFrame(in, needed, out);
+                    }
+                } catch (IllegalStateException e) {
+                    flush(connection, out);
+                    throw e;
+                }
+                in.compact();
+                if (needed > in.capacity()) {
+                    in = ByteBuffer.allocate(needed).put(in.flip());
+                }
+                flush(connection, out);
+            }
+        } catch (IllegalStateException e) {
+            log.warn("Sidecar connection closed: {}", e.getMessage());
+        } catch (IOException e) {
+            if (server != null) {
+                log.debug("Sidecar connection closed: {}", e.getMessage());
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    /**
+     * Writes the responses appended to the buffer and clears it.
+     */
+    private static void flush(SocketChannel connection, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            connection.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Returns the size of the frame at the buffer's position, including its length prefix.
+     *
+     * @return The frame size, or 0 if the length prefix has not been read completely
+     * @throws IllegalStateException if the frame is too short or larger than the maximum frame size
+     */
+    private int nextFrameSize(ByteBuffer in) {
+        if (in.remaining() < SidecarProtocol.LENGTH_BYTES) {
+            return 0;
+        }
+        int length = in.getInt(in.position());
+        if (length < SidecarProtocol.REQUEST_HEADER_BYTES || length > maxFrameSize) {
+            throw new IllegalStateException("Invalid frame length " + length);
+        }
+        return SidecarProtocol.LENGTH_BYTES + length;
+    }
+
+    /**
+     * Validates the request frame at the buffer's position and appends its response.
+     *
+     * @param in Buffer positioned at a complete frame; advanced past it
+     * @param frameSize Size of the frame, including its length prefix
+     * @param out Buffer the response is appended to
+     * @return The buffer holding the response, which is a larger copy of {@code out} if it was full
+     */
+    private ByteBuffer handleFrame(ByteBuffer in, int frameSize, ByteBuffer out) throws IOException {
+        int start = in.position();
+        int correlationId = in.getInt(start + SidecarProtocol.LENGTH_BYTES);
+        int format = in.get(start + SidecarProtocol.LENGTH_BYTES + 4);
+        boolean failFast = (in.get(start + SidecarProtocol.LENGTH_BYTES + 5) & SidecarProtocol.FLAG_FAIL_FAST) != 0;
+        int payloadOffset = start + SidecarProtocol.LENGTH_BYTES + SidecarProtocol.REQUEST_HEADER_BYTES;
+        in.position(start + frameSize);
+
+        if (format < 0 || format >= FORMATS.length) {
+            byte[] message = ("Unknown format " + format).getBytes(StandardCharsets.UTF_8);
+            return writeResponse(out, correlationId, Status.ERROR, 0, message);
+        }
+
+        ByteArrayInputStream request = new ByteArrayInputStream(in.array(), in.arrayOffset() + payloadOffset,
+                start + frameSize - payloadOffset);
+        ValidationResultDTO result = validationService.validateRequest(request, FORMATS[format], failFast);
+        Status status = result.isValid() ? Status.VALID : Status.INVALID;
+        byte[] body = result.getAnomalies().isEmpty() ? EMPTY : objectMapper.writeValueAsBytes(result.getAnomalies());
+        return writeResponse(out, correlationId, status, result.getModelVersion(), body);
+    }
+
+    private static ByteBuffer writeResponse(ByteBuffer out, int correlationId, Status status, long modelVersion,
+                                            byte[] body) {
+        int length = SidecarProtocol.RESPONSE_HEADER_BYTES + body.length;
+        int needed = SidecarProtocol.LENGTH_BYTES + length;
+        if (out.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + needed));
+            out = grown.put(out.flip());
+        }
+        return out.putInt(length)
+                .putInt(correlationId)
+                .put((byte) status.ordinal())
+                .putLong(modelVersion)
+                .put(body);
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closing
+        }
+    }
+}
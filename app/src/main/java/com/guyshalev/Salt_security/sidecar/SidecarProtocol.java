@@ -0,0 +1,55 @@
+package com.guyshalev.Salt_security.sidecar;
+
+import com.guyshalev.Salt_security.service.RequestFormat;
+
+/**
+ * Framing of the sidecar socket. Every frame starts with a big-endian {@code int} holding the length of the rest
+ * of the frame.
+ * <ul>
+ *     <li>A request frame continues with an {@code int} correlation id, a {@code byte} format (the ordinal of a
+ *     {@link RequestFormat}), a {@code byte} of flags ({@link #FLAG_FAIL_FAST}) and the encoded request.</li>
+ *     <li>A response frame continues with the {@code int} correlation id of its request, a {@code byte} status
+ *     (the ordinal of a {@link Status}), the {@code long} model version and a body: empty for a valid request or
+ *     a fail-fast verdict, the anomalies as a JSON object for an invalid request, or a UTF-8 message for an
+ *     error.</li>
+ * </ul>
+ * Requests on one connection are answered in the order they were sent, so a client may pipeline any number of
+ * requests before reading the responses.
+ */
+public final class SidecarProtocol {
+
+    /**
+     * Size of the length prefix of every frame.
+     */
+    public static final int LENGTH_BYTES = 4;
+
+    /**
+     * Size of a request frame's header after the length prefix: correlation id, format and flags.
+     */
+    public static final int REQUEST_HEADER_BYTES = 6;
+
+    /**
+     * Size of a response frame's header after the length prefix: correlation id, status and model version.
+     */
+    public static final int RESPONSE_HEADER_BYTES = 13;
+
+    /**
+     * Request flag: stop at the first anomaly and answer with the verdict only.
+     */
+    public static final int FLAG_FAIL_FAST = 1;
+
+    /**
+     * Outcome of a request.
+     */
+    public enum Status {
+        /** The request matches its model. */
+        VALID,
+        /** The request does not match its model, or no model matches it. */
+        INVALID,
+        /** The frame could not be processed, for example because of an unknown format. */
+        ERROR
+    }
+
+    private SidecarProtocol() {
+    }
+}
@@ -0,0 +1,196 @@
+package com.guyshalev.Salt_security.event;
+
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.config.ValidationProperties.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for AnomalyEventPublisher.
+ * Uses an in-memory sink that can hold the writer inside a write, so the buffer fills up deterministically.
+ */
+class AnomalyEventPublisherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ValidationProperties properties;
+    private RecordingSink sink;
+    private AnomalyEventPublisher publisher;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ValidationProperties();
+        properties.getEvents().setEnabled(true);
+        properties.getEvents().setFlushInterval(Duration.ofMinutes(1));
+        sink = new RecordingSink();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        sink.release.countDown();
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+
+    private void start() {
+        publisher = new AnomalyEventPublisher(properties, meterRegistry, sink);
+    }
+
+    private void publish(int id) {
+        publisher.publish(1, "GET", "/users/" + id, "/users/{id}", Map.of("query_params.id", "Unexpected parameter"));
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("validation.events.dropped").tag("reason", reason).counter().count();
+    }
+
+    /**
+     * Publishes one event and waits until the writer is held inside the sink with it.
+     */
+    private void blockWriter() throws InterruptedException {
+        sink.holding = true;
+        publish(0);
+        assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void whenBatchIsFull_thenWritesItWithoutWaitingForTheFlushInterval() throws Exception {
+        properties.getEvents().setBatchSize(3);
+        start();
+
+        for (int i = 0; i < 7; i++) {
+            publish(i);
+        }
+        publisher.close();
+
+        assertEquals(List.of(3, 3, 1), sink.batchSizes);
+        assertEquals(7, sink.events.size());
+        assertEquals("/users/0", sink.events.get(0).path());
+        assertEquals("/users/{id}", sink.events.get(0).modelPath());
+        assertEquals(7, meterRegistry.get("validation.events.written").counter().count());
+        assertTrue(sink.closed);
+    }
+
+    @Test
+    void whenFlushIntervalElapses_thenWritesPartialBatch() throws Exception {
+        properties.getEvents().setFlushInterval(Duration.ofMillis(20));
+        start();
+
+        publish(1);
+
+        assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, sink.events.size());
+    }
+
+    @Test
+    void whenBufferIsFull_thenDropsAndCountsEvents() throws Exception {
+        properties.getEvents().setBufferSize(4);
+        properties.getEvents().setBatchSize(1);
+        start();
+        blockWriter();
+
+        for (int i = 1; i <= 6; i++) {
+            publish(i);
+        }
+
+        assertEquals(2, dropped("full"));
+        assertEquals(4, meterRegistry.get("validation.events.queue.depth").gauge().value());
+
+        sink.release.countDown();
+        publisher.close();
+        assertEquals(5, sink.events.size());
+    }
+
+    @Test
+    void whenSamplingAndBufferIsMoreThanHalfFull_thenKeepsOneInSampleRateEvents() throws Exception {
+        properties.getEvents().setBufferSize(8);
+        properties.getEvents().setBatchSize(1);
+        properties.getEvents().setOverflowPolicy(OverflowPolicy.SAMPLE);
+        properties.getEvents().setSampleRate(2);
+        start();
+        blockWriter();
+
+        // Five events fill the buffer past half, then every other event is kept until it is full
+        for (int i = 1; i <= 12; i++) {
+            publish(i);
+        }
+
+        assertEquals(3, dropped("sampled"));
+        assertEquals(1, dropped("full"));
+
+        sink.release.countDown();
+        publisher.close();
+        assertEquals(9, sink.events.size());
+    }
+
+    @Test
+    void whenSinkFails_thenCountsEventsAsDropped() throws Exception {
+        sink.failing = true;
+        start();
+
+        publish(1);
+        publish(2);
+        publisher.close();
+
+        assertEquals(2, dropped("sink_error"));
+    }
+
+    @Test
+    void whenDisabled_thenPublishingIsIgnored() throws Exception {
+        properties.getEvents().setEnabled(false);
+        start();
+
+        publish(1);
+        publisher.close();
+
+        assertFalse(publisher.isEnabled());
+        assertTrue(sink.events.isEmpty());
+        assertTrue(meterRegistry.find("validation.events.dropped").counters().isEmpty());
+    }
+
+    private static class RecordingSink implements AnomalyEventSink {
+        private final List<AnomalyEvent> events = new CopyOnWriteArrayList<>();
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean holding;
+        private volatile boolean failing;
+        private volatile boolean closed;
+
+        @Override
+        public void write(List<AnomalyEvent> batch) throws IOException {
+            if (failing) {
+                throw new IOException("disk full");
+            }
+            events.addAll(new ArrayList<>(batch));
+            batchSizes.add(batch.size());
+            entered.countDown();
+            if (holding) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.guyshalev.Salt_security.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for EventRingBuffer.
+ */
+class EventRingBufferTest {
+
+    @Test
+    void whenCapacityIsNotAPowerOfTwo_thenRoundsUp() {
+        assertEquals(8, new EventRingBuffer<>(5).capacity());
+        assertEquals(8, new EventRingBuffer<>(8).capacity());
+        assertEquals(16, new EventRingBuffer<>(9).capacity());
+    }
+
+    @Test
+    void whenFull_thenRejectsUntilDrained() {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(drained, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertTrue(buffer.offer(4));
+        assertEquals(2, buffer.drainTo(drained, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void whenManyProducersOffer_thenConsumerReceivesEveryElementOnce() throws Exception {
+        int producers = 4;
+        int perProducer = 25_000;
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int p = 0; p < producers; p++) {
+                int first = p * perProducer;
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = first; i < first + perProducer; i++) {
+                        while (!buffer.offer(i)) {
+                            // Lets the consumer run when there are fewer cores than threads
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+
+            Set<Integer> received = new HashSet<>();
+            List<Integer> batch = new ArrayList<>();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (received.size() < producers * perProducer && System.nanoTime() < deadline) {
+                batch.clear();
+                if (buffer.drainTo(batch, 32) == 0) {
+                    Thread.yield();
+                }
+                for (Integer element : batch) {
+                    assertTrue(received.add(element), "Received " + element + " twice");
+                }
+            }
+            assertEquals(producers * perProducer, received.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.guyshalev.Salt_security.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for NdjsonFileSink.
+ */
+class NdjsonFileSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private static AnomalyEvent event(int id) {
+        return new AnomalyEvent(1000 + id, 3, "POST", "/orders/" + id, "/orders/{id}",
+                Map.of("body.amount", "Expected type: Int, got: String"));
+    }
+
+    private List<Path> rolledFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> !file.getFileName().toString().equals(NdjsonFileSink.CURRENT_FILE))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Test
+    void whenWritingEvents_thenAppendsOneJsonObjectPerLine() throws Exception {
+        try (NdjsonFileSink sink = new NdjsonFileSink(objectMapper, directory.resolve("events"), 1 << 20, 2)) {
+            sink.write(List.of(event(1), event(2)));
+            sink.write(List.of(event(3)));
+        }
+
+        List<String> lines = Files.readAllLines(directory.resolve("events").resolve(NdjsonFileSink.CURRENT_FILE));
+        assertEquals(3, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("/orders/1", first.get("path").asText());
+        assertEquals("/orders/{id}", first.get("modelPath").asText());
+        assertEquals(3, first.get("modelVersion").asLong());
+        assertEquals("Expected type: Int, got: String", first.get("anomalies").get("body.amount").asText());
+    }
+
+    @Test
+    void whenFileReachesMaxSize_thenRollsOverAndKeepsNewestFiles() throws Exception {
+        long lineSize = objectMapper.writeValueAsBytes(event(1)).length + 1;
+        try (NdjsonFileSink sink = new NdjsonFileSink(objectMapper, directory, lineSize * 2, 2)) {
+            for (int i = 1; i <= 9; i++) {
+                sink.write(List.of(event(i)));
+            }
+        }
+
+        List<Path> rolled = rolledFiles();
+        assertEquals(2, rolled.size());
+        assertEquals(2, Files.readAllLines(rolled.get(1)).size());
+        assertTrue(Files.readAllLines(rolled.get(1)).get(1).contains("/orders/8"));
+        List<String> current = Files.readAllLines(directory.resolve(NdjsonFileSink.CURRENT_FILE));
+        assertEquals(1, current.size());
+        assertTrue(current.get(0).contains("/orders/9"));
+    }
+
+    @Test
+    void whenReopened_thenAppendsToExistingFile() throws Exception {
+        try (NdjsonFileSink sink = new NdjsonFileSink(objectMapper, directory, 1 << 20, 2)) {
+            sink.write(List.of(event(1)));
+        }
+        try (NdjsonFileSink sink = new NdjsonFileSink(objectMapper, directory, 1 << 20, 2)) {
+            sink.write(List.of(event(2)));
+        }
+
+        assertEquals(2, Files.readAllLines(directory.resolve(NdjsonFileSink.CURRENT_FILE)).size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.guyshalev.Salt_security.integration;
+
+import com.guyshalev.Salt_security.dal.ModelRepository;
+import com.guyshalev.Salt_security.service.ModelImportService;
+import com.guyshalev.Salt_security.service.ModelRegistry;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for ModelImportService.
+ * Uses a small batch size so that an import spans several database batches.
+ */
+@SpringBootTest(properties = "validation.model-import.batch-size=7")
+class ModelImportIntegrationTest {
+
+    @Autowired
+    private ModelImportService modelImportService;
+
+    @Autowired
+    private ValidationService validationService;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private ModelRegistry modelRegistry;
+
+    private static String model(int i) {
+        return "{\"path\": \"/items/" + i + "\", \"method\": \"GET\", \"query_params\": "
+                + "[{\"name\": \"id\", \"types\": [\"Int\"], \"required\": true}]}";
+    }
+
+    private static InputStream models(int count) {
+        String json = IntStream.range(0, count)
+                .mapToObj(ModelImportIntegrationTest::model)
+                .collect(Collectors.joining(",", "[", "]"));
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void whenImportingModels_thenAllModelsAreStoredAndRegistered() {
+        validationService.saveModels("[" + model(-1) + "]");
+
+        int imported = modelImportService.importModels(models(100));
+
+        assertEquals(100, imported);
+        assertEquals(100, modelRepository.count());
+        assertEquals(100, modelRegistry.snapshot().getModelCount());
+        assertTrue(modelRegistry.find("GET", "/items/99").isPresent());
+        assertTrue(modelRegistry.find("GET", "/items/-1").isEmpty());
+        assertTrue(validationService.validateRequest(
+                "{\"path\": \"/items/42\", \"method\": \"GET\", \"query_params\": [{\"name\": \"id\", \"value\": 1}]}")
+                .isValid());
+    }
+
+    @Test
+    void whenImportingEmptyArray_thenNoModelsRemain() {
+        validationService.saveModels("[" + model(-1) + "]");
+
+        int imported = modelImportService.importModels(models(0));
+
+        assertEquals(0, imported);
+        assertEquals(0, modelRepository.count());
+        assertEquals(0, modelRegistry.snapshot().getModelCount());
+    }
+
+    @Test
+    void whenImportContainsInvalidModel_thenThrowsExceptionAndKeepsRegistry() {
+        validationService.saveModels("[" + model(-1) + "]");
+        long version = modelRegistry.snapshot().getVersion();
+        String json = "[" + model(0) + ", " + model(1) + ", {\"path\": \"/items/2\"}]";
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> modelImportService.importModels(
+                        new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+
+        assertTrue(exception.getMessage().contains("index 2"));
+        assertEquals(version, modelRegistry.snapshot().getVersion());
+    }
+
+    @Test
+    void whenImportIsNotAnArray_thenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> modelImportService.importModels(
+                new ByteArrayInputStream(model(0).getBytes(StandardCharsets.UTF_8))));
+        assertThrows(IllegalArgumentException.class, () -> modelImportService.importModels(
+                new ByteArrayInputStream("[{".getBytes(StandardCharsets.UTF_8))));
+    }
+}
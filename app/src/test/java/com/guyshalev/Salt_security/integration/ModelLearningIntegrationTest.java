@@ -0,0 +1,78 @@
+package com.guyshalev.Salt_security.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.ModelLearner;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for learning mode: models are inferred from the requests sent to /api/validate.
+ */
+@SpringBootTest(properties = {"validation.learning.enabled=true", "validation.learning.min-samples=3"})
+@AutoConfigureMockMvc
+class ModelLearningIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ValidationService validationService;
+
+    @Autowired
+    private ModelLearner modelLearner;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void cleanup() {
+        modelLearner.reset();
+    }
+
+    private void validate(String request) throws Exception {
+        mockMvc.perform(post("/api/validate").contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void whenTrafficIsObserved_thenProposedModelsAcceptIt() throws Exception {
+        String template = """
+                {"path": "/orders/%d", "method": "POST",
+                 "headers": [{"name": "Authorization", "value": "Bearer token%d"}],
+                 "body": [{"name": "email", "value": "user%d@example.com"}, {"name": "note", "value": "%s"}]}""";
+        for (int i = 1; i <= 3; i++) {
+            validate(template.formatted(i, i, i, i == 2 ? "42" : "gift"));
+        }
+
+        String proposed = mockMvc.perform(get("/api/models/learned"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode models = objectMapper.readTree(proposed);
+        assertEquals(1, models.size());
+        assertEquals("/orders/{id}", models.get(0).get("path").asText());
+        assertEquals("[\"Email\"]", models.get(0).get("body").get(0).get("types").toString());
+        assertEquals("[\"String\"]", models.get(0).get("body").get(1).get("types").toString());
+
+        mockMvc.perform(post("/api/models").contentType(MediaType.APPLICATION_JSON).content(proposed))
+                .andExpect(status().isOk());
+        ValidationResultDTO result = validationService.validateRequest(template.formatted(9, 9, 9, "later"));
+        assertTrue(result.isValid(), result.getAnomalies().toString());
+
+        mockMvc.perform(delete("/api/models/learned")).andExpect(status().isNoContent());
+        assertEquals(0, modelLearner.getEndpointCount());
+    }
+}
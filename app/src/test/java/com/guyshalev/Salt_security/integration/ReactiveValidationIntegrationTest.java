@@ -0,0 +1,173 @@
+package com.guyshalev.Salt_security.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the reactive web layer, served by Netty with the {@code reactive} profile.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.main.web-application-type=reactive", "validation.batch.max-size=2000"})
+@ActiveProfiles("reactive")
+class ReactiveValidationIntegrationTest {
+
+    private static final String MODELS = """
+            [{"path": "/users/{id}", "method": "GET",
+              "query_params": [{"name": "verbose", "types": ["Boolean"], "required": true}]}]""";
+
+    private static final String VALID_USER = """
+            {"path": "/users/%d", "method": "GET", "query_params": [{"name": "verbose", "value": true}]}""";
+    private static final String MISSING_VERBOSE = """
+            {"path": "/users/%d", "method": "GET", "query_params": []}""";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    @Autowired
+    private ValidationService validationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        webTestClient.post().uri("/api/models")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(MODELS)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void whenReactiveProfileIsActive_thenServesOnNetty() {
+        assertInstanceOf(NettyWebServer.class, context.getWebServer());
+    }
+
+    @Test
+    void whenValidatingRequest_thenRespondsLikeServletStack() throws Exception {
+        String request = String.format(MISSING_VERBOSE, 1);
+
+        byte[] body = webTestClient.post().uri("/api/validate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        JsonNode actual = objectMapper.readTree(body);
+        ValidationResultDTO expected = validationService.validateRequest(request);
+        assertFalse(actual.get("valid").asBoolean());
+        assertEquals(objectMapper.valueToTree(expected.getAnomalies()), actual.get("anomalies"));
+
+        webTestClient.post().uri("/api/validate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Fail-Fast", "true")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"valid\":false}", true);
+    }
+
+    @Test
+    void whenStreamingNdjsonBatch_thenEmitsOneResultPerRequestInOrder() {
+        String requests = IntStream.range(0, 2000)
+                .mapToObj(i -> String.format(i % 3 == 0 ? MISSING_VERBOSE : VALID_USER, i))
+                .collect(Collectors.joining("\n"));
+
+        List<ValidationResultDTO> results = webTestClient.post().uri("/api/validate/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(ValidationResultDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(results);
+        assertEquals(2000, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i % 3 != 0, results.get(i).isValid(), "request " + i);
+        }
+    }
+
+    @Test
+    void whenBatchExceedsMaximumSize_thenRejectsItBeforeAnyResult() {
+        String requests = IntStream.range(0, 2001)
+                .mapToObj(i -> String.format(VALID_USER, i))
+                .collect(Collectors.joining("\n"));
+
+        webTestClient.post().uri("/api/validate/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus().is5xxServerError()
+                .expectBody()
+                .jsonPath("$.details.error").isEqualTo("Batch contains more than 2000 requests, the maximum is 2000");
+    }
+
+    @Test
+    void whenJsonBatchIsNotAnArray_thenRejectsIt() {
+        webTestClient.post().uri("/api/validate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(" " + String.format(VALID_USER, 1))
+                .exchange()
+                .expectStatus().is5xxServerError()
+                .expectBody()
+                .jsonPath("$.details.error").isEqualTo("Input must be an array of requests");
+
+        webTestClient.post().uri("/api/validate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[" + String.format(VALID_USER, 1) + "]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].valid").isEqualTo(true);
+    }
+
+    @Test
+    void whenImportingModelsInBulk_thenModelsAreReplaced() {
+        // Larger than the pipe the body is streamed through
+        String models = IntStream.range(0, 2000)
+                .mapToObj(i -> String.format("""
+                        {"path": "/items/%d", "method": "POST",
+                         "body": [{"name": "quantity", "types": ["Int"], "required": true}]}""", i))
+                .collect(Collectors.joining(",", "[", "]"));
+
+        webTestClient.post().uri("/api/models/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(models)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/api/models")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(2000);
+        webTestClient.delete().uri("/api/models?method=GET&path={path}", "/users/{id}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
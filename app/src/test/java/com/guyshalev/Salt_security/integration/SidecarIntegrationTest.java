@@ -0,0 +1,136 @@
+package com.guyshalev.Salt_security.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.service.ValidationService;
+import com.guyshalev.Salt_security.sidecar.SidecarClient;
+import com.guyshalev.Salt_security.sidecar.SidecarClient.Response;
+import com.guyshalev.Salt_security.sidecar.SidecarListener;
+import com.guyshalev.Salt_security.sidecar.SidecarProtocol.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the sidecar listener, talking to it over a real Unix domain socket.
+ */
+@SpringBootTest(properties = {"validation.sidecar.enabled=true", "validation.sidecar.max-frame-size=4KB"})
+class SidecarIntegrationTest {
+
+    private static final String MODELS = """
+            [{"path": "/users/{id}", "method": "GET",
+              "query_params": [{"name": "verbose", "types": ["Boolean"], "required": true}]}]""";
+
+    private static final String VALID_USER = """
+            {"path": "/users/%d", "method": "GET", "query_params": [{"name": "verbose", "value": true}]}""";
+    private static final String MISSING_VERBOSE = """
+            {"path": "/users/%d", "method": "GET", "query_params": []}""";
+
+    @Autowired
+    private ValidationService validationService;
+
+    @Autowired
+    private SidecarListener sidecarListener;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void socketPath(DynamicPropertyRegistry registry) throws IOException {
+        String socketPath = Files.createTempDirectory("sidecar").resolve("validation.sock").toString();
+        registry.add("validation.sidecar.socket-path", () -> socketPath);
+    }
+
+    @BeforeEach
+    void setup() {
+        validationService.saveModels(MODELS);
+    }
+
+    @Test
+    void whenRequestsArePipelined_thenEveryRequestIsAnsweredInOrder() throws Exception {
+        try (SidecarClient client = SidecarClient.connect(sidecarListener.getSocketPath())) {
+            for (int i = 0; i < 200; i++) {
+                String request = String.format(i % 3 == 0 ? MISSING_VERBOSE : VALID_USER, i);
+                client.send(i, RequestFormat.JSON, false, request.getBytes(StandardCharsets.UTF_8));
+            }
+            client.flush();
+
+            for (int i = 0; i < 200; i++) {
+                Response response = client.receive();
+                assertEquals(i, response.correlationId());
+                if (i % 3 == 0) {
+                    assertEquals(Status.INVALID, response.status());
+                    Map<?, ?> anomalies = objectMapper.readValue(response.body(), Map.class);
+                    assertEquals("Required parameter is missing", anomalies.get("query_params.verbose"));
+                } else {
+                    assertEquals(Status.VALID, response.status());
+                    assertEquals(0, response.body().length);
+                }
+            }
+        }
+    }
+
+    @Test
+    void whenFailFast_thenAnswersWithVerdictOnly() throws Exception {
+        try (SidecarClient client = SidecarClient.connect(sidecarListener.getSocketPath())) {
+            client.send(7, RequestFormat.JSON, true,
+                    String.format(MISSING_VERBOSE, 1).getBytes(StandardCharsets.UTF_8));
+            client.flush();
+
+            Response response = client.receive();
+            assertEquals(7, response.correlationId());
+            assertEquals(Status.INVALID, response.status());
+            assertEquals(0, response.body().length);
+        }
+    }
+
+    @Test
+    void whenRequestIsMalformed_thenAnswersWithSameErrorAsHttp() throws Exception {
+        try (SidecarClient client = SidecarClient.connect(sidecarListener.getSocketPath())) {
+            Response response = client.validate("{not json".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(Status.INVALID, response.status());
+            Map<?, ?> anomalies = objectMapper.readValue(response.body(), Map.class);
+            assertTrue(anomalies.get("error").toString().startsWith("Failed to validate request"));
+
+            // The connection stays usable
+            assertEquals(Status.VALID,
+                    client.validate(String.format(VALID_USER, 2).getBytes(StandardCharsets.UTF_8)).status());
+        }
+    }
+
+    @Test
+    void whenFrameIsLargerThanMaximum_thenConnectionIsClosed() throws Exception {
+        try (SidecarClient client = SidecarClient.connect(sidecarListener.getSocketPath())) {
+            client.send(1, RequestFormat.JSON, false, new byte[8 * 1024]);
+            client.flush();
+
+            assertThrows(EOFException.class, client::receive);
+        }
+    }
+
+    @Test
+    void whenFrameIsLargerThanMaximum_thenEarlierRequestsAreStillAnswered() throws Exception {
+        try (SidecarClient client = SidecarClient.connect(sidecarListener.getSocketPath())) {
+            client.send(1, RequestFormat.JSON, false, String.format(VALID_USER, 1).getBytes(StandardCharsets.UTF_8));
+            client.send(2, RequestFormat.JSON, false, new byte[8 * 1024]);
+            client.flush();
+
+            Response response = client.receive();
+            assertEquals(1, response.correlationId());
+            assertEquals(Status.VALID, response.status());
+            assertThrows(EOFException.class, client::receive);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.guyshalev.Salt_security.integration;
+
+import com.guyshalev.Salt_security.replay.ReplayReport;
+import com.guyshalev.Salt_security.replay.ReplayReport.EndpointReport;
+import com.guyshalev.Salt_security.replay.TrafficReplayer;
+import com.guyshalev.Salt_security.service.ModelSnapshot;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for TrafficReplayer.
+ * Uses a chunk size of a few lines, so that every file is split into many regions at line boundaries.
+ */
+@SpringBootTest(properties = "validation.replay.chunk-size=300B")
+class TrafficReplayIntegrationTest {
+
+    private static final String MODELS = """
+            [{"path": "/users/{id}", "method": "GET",
+              "query_params": [{"name": "verbose", "types": ["Boolean"], "required": true}]},
+             {"path": "/orders", "method": "POST",
+              "body": [{"name": "amount", "types": ["Int"], "required": true}]}]""";
+
+    private static final String VALID_USER = """
+            {"path": "/users/%d", "method": "GET", "query_params": [{"name": "verbose", "value": true}]}""";
+    private static final String MISSING_VERBOSE = """
+            {"path": "/users/%d", "method": "GET", "query_params": []}""";
+    private static final String WRONG_AMOUNT = """
+            {"path": "/orders", "method": "POST", "body": [{"name": "amount", "value": "ten"}, {"name": "x", "value": 1}]}""";
+    private static final String UNMATCHED = """
+            {"path": "/unknown", "method": "GET"}""";
+
+    @Autowired
+    private TrafficReplayer trafficReplayer;
+
+    @Autowired
+    private ValidationService validationService;
+
+    @TempDir
+    Path directory;
+
+    private ModelSnapshot snapshot;
+
+    @BeforeEach
+    void setup() {
+        snapshot = validationService.compileSnapshot(new ByteArrayInputStream(MODELS.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Path write(String name, List<String> lines, String separator) throws Exception {
+        Path file = directory.resolve(name);
+        Files.writeString(file, String.join(separator, lines));
+        return file;
+    }
+
+    private static Map<String, EndpointReport> byPath(ReplayReport report) {
+        return Map.of(report.getEndpoints().get(0).getPath(), report.getEndpoints().get(0),
+                report.getEndpoints().get(1).getPath(), report.getEndpoints().get(1));
+    }
+
+    @Test
+    void whenReplayingFilesSplitIntoRegions_thenEveryLineIsValidatedOnce() throws Exception {
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            first.add(VALID_USER.formatted(i));
+            first.add(MISSING_VERBOSE.formatted(i));
+            second.add(WRONG_AMOUNT);
+            second.add(UNMATCHED);
+        }
+        first.add("");
+        second.add("{not json");
+
+        ReplayReport report = trafficReplayer.replay(
+                List.of(write("a.ndjson", first, "\n"), write("b.ndjson", second, "\r\n")), snapshot);
+
+        assertEquals(2, report.getFiles());
+        assertEquals(Files.size(directory.resolve("a.ndjson")) + Files.size(directory.resolve("b.ndjson")),
+                report.getBytes());
+        assertEquals(2001, report.getRequests());
+        assertEquals(1501, report.getInvalid());
+        assertEquals(1, report.getMalformed());
+        assertEquals(500, report.getUnmatched());
+
+        Map<String, EndpointReport> endpoints = byPath(report);
+        EndpointReport users = endpoints.get("/users/{id}");
+        assertEquals("GET", users.getMethod());
+        assertEquals(1000, users.getRequests());
+        assertEquals(500, users.getInvalid());
+        assertEquals(Map.of("query_params.verbose", 500L), users.getAnomalies());
+        EndpointReport orders = endpoints.get("/orders");
+        assertEquals(500, orders.getInvalid());
+        assertEquals(Map.of("body.amount", 500L, "body.x", 500L), orders.getAnomalies());
+    }
+
+    @Test
+    void whenFileHasNoTrailingNewline_thenLastLineIsValidated() throws Exception {
+        Path file = write("single.ndjson", List.of(VALID_USER.formatted(1), MISSING_VERBOSE.formatted(2)), "\n");
+
+        ReplayReport report = trafficReplayer.replay(List.of(file), snapshot);
+
+        assertEquals(2, report.getRequests());
+        assertEquals(1, report.getInvalid());
+        assertEquals(0, report.getMalformed());
+    }
+
+    @Test
+    void whenCandidateModelsAreCompiled_thenRegisteredModelsAreUnchanged() {
+        assertEquals(0, snapshot.getVersion());
+        assertEquals(2, snapshot.getModelCount());
+        assertTrue(validationService.getAllModels().stream().noneMatch(model -> model.getPath().equals("/orders")));
+        assertThrows(IllegalArgumentException.class,
+                () -> validationService.compileSnapshot(new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8))));
+    }
+}
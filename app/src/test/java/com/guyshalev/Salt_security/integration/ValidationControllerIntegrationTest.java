@@ -0,0 +1,130 @@
+package com.guyshalev.Salt_security.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.RequestFormat;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the validation endpoints, covering the request and response formats.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ValidationControllerIntegrationTest {
+
+    private static final String VALID_REQUEST = """
+            {"path": "/users/info", "method": "GET",
+             "query_params": [{"name": "user_id", "value": 42}],
+             "headers": [{"name": "Authorization", "value": "Bearer abc"}]}""";
+
+    private static final String INVALID_REQUEST = """
+            {"path": "/users/info", "method": "GET",
+             "query_params": [{"name": "user_id", "value": true}],
+             "headers": []}""";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ValidationService validationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        validationService.saveModels("""
+                [{
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [{"name": "user_id", "types": ["Int"], "required": true}],
+                    "headers": [{"name": "Authorization", "types": ["Auth-Token"], "required": true}]
+                }]""");
+    }
+
+    @Test
+    void whenPostingCborRequest_thenValidatesLikeJson() throws Exception {
+        byte[] body = new CBORMapper().writeValueAsBytes(objectMapper.readTree(INVALID_REQUEST));
+
+        MvcResult result = mockMvc.perform(post("/api/validate")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode actual = objectMapper.readTree(result.getResponse().getContentAsByteArray());
+        ValidationResultDTO expected = validationService.validateRequest(INVALID_REQUEST);
+        assertFalse(actual.get("valid").asBoolean());
+        assertEquals(objectMapper.valueToTree(expected.getAnomalies()), actual.get("anomalies"));
+    }
+
+    @Test
+    void whenFailFastIsRequested_thenRespondsWithVerdictOnly() throws Exception {
+        mockMvc.perform(post("/api/validate").param("failFast", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(VALID_REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"valid\":true}", true));
+
+        mockMvc.perform(post("/api/validate").header("X-Fail-Fast", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(INVALID_REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"valid\":false}", true));
+    }
+
+    @Test
+    void whenPostingNdjsonBatch_thenValidatesEachLine() throws Exception {
+        String body = VALID_REQUEST.replace("\n", "") + "\n\n" + INVALID_REQUEST.replace("\n", "") + "\n";
+
+        MvcResult result = mockMvc.perform(post("/api/validate/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode results = objectMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).get("valid").asBoolean());
+        assertFalse(results.get(1).get("valid").asBoolean());
+    }
+
+    @Test
+    void whenPostingSmileBatch_thenRespondsInSmile() throws Exception {
+        SmileMapper smileMapper = new SmileMapper();
+        byte[] body = smileMapper.writeValueAsBytes(List.of(
+                objectMapper.readTree(VALID_REQUEST), objectMapper.readTree(INVALID_REQUEST)));
+
+        MvcResult result = mockMvc.perform(post("/api/validate/batch")
+                        .contentType(RequestFormat.SMILE.getMediaType())
+                        .accept(RequestFormat.SMILE.getMediaType())
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode results = smileMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).get("valid").asBoolean());
+        assertFalse(results.get(1).get("valid").asBoolean());
+    }
+}
@@ -0,0 +1,488 @@
+package com.guyshalev.Salt_security.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.model.dto.ModelDTO;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.CustomTypeService;
+import com.guyshalev.Salt_security.service.ValidationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for ValidationService.
+ * Tests the complete flow of saving models and validating requests.
+ */
+@SpringBootTest
+class ValidationServiceIntegrationTest {
+
+    @Autowired
+    private ValidationService validationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomTypeService customTypeService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setup() throws Exception {
+        String validModel = """
+                [{
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "with_extra_data",
+                            "types": ["Boolean"],
+                            "required": false
+                        },
+                        {
+                            "name": "user_id",
+                            "types": ["Int", "UUID"],
+                            "required": false
+                        }
+                    ],
+                    "headers": [
+                        {
+                            "name": "Authorization",
+                            "types": ["Auth-Token"],
+                            "required": true
+                        }
+                    ],
+                    "body": []
+                }]""";
+        validationService.saveModels(validModel);
+    }
+
+    @Test
+    void whenSavingValidModel_thenSuccess() {
+        List<ModelDTO> models = validationService.getAllModels();
+        assertEquals(1, models.size());
+        assertEquals("/users/info", models.get(0).getPath());
+        assertEquals("GET", models.get(0).getMethod());
+    }
+
+    @Test
+    void whenSavingInvalidModel_thenThrowsException() {
+        String invalidModel = """
+                [{
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "param1",
+                            "types": ["InvalidType"],
+                            "required": false
+                        }
+                    ]
+                }]""";
+
+        assertThrows(IllegalArgumentException.class, () -> validationService.saveModels(invalidModel));
+    }
+
+    @Test
+    void whenValidatingValidRequest_thenSuccess() throws Exception {
+        String validRequest = """
+                {
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "with_extra_data",
+                            "value": false
+                        }
+                    ],
+                    "headers": [
+                        {
+                            "name": "Authorization",
+                            "value": "Bearer abc123def456"
+                        }
+                    ],
+                    "body": []
+                }""";
+
+        ValidationResultDTO result = validationService.validateRequest(validRequest);
+        assertTrue(result.isValid());
+        assertTrue(result.getAnomalies().isEmpty());
+    }
+
+    @Test
+    void whenValidatingRequestWithMissingRequiredHeader_thenFails() throws Exception {
+        String requestWithMissingHeader = """
+                {
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "with_extra_data",
+                            "value": false
+                        }
+                    ],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        ValidationResultDTO result = validationService.validateRequest(requestWithMissingHeader);
+        assertFalse(result.isValid());
+        assertTrue(result.getAnomalies().containsKey("headers.Authorization"));
+        assertEquals("Required parameter is missing", result.getAnomalies().get("headers.Authorization"));
+    }
+
+    @Test
+    void whenValidatingRequestWithInvalidType_thenFails() throws Exception {
+        String requestWithInvalidType = """
+                {
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "with_extra_data",
+                            "value": "not-a-boolean"
+                        }
+                    ],
+                    "headers": [
+                        {
+                            "name": "Authorization",
+                            "value": "Bearer abc123def456"
+                        }
+                    ],
+                    "body": []
+                }""";
+
+        ValidationResultDTO result = validationService.validateRequest(requestWithInvalidType);
+        assertFalse(result.isValid());
+        assertTrue(result.getAnomalies().containsKey("query_params.with_extra_data"));
+    }
+
+    @Test
+    void whenValidatingRequestWithInvalidAuthToken_thenFails() throws Exception {
+        String requestWithInvalidToken = """
+                {
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [],
+                    "headers": [
+                        {
+                            "name": "Authorization",
+                            "value": "InvalidToken"
+                        }
+                    ],
+                    "body": []
+                }""";
+
+        ValidationResultDTO result = validationService.validateRequest(requestWithInvalidToken);
+        assertFalse(result.isValid());
+        assertTrue(result.getAnomalies().containsKey("headers.Authorization"));
+    }
+
+    @Test
+    void whenValidatingRequestWithUnexpectedParameter_thenFails() throws Exception {
+        String requestWithExtraParam = """
+                {
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "unexpected_param",
+                            "value": "test"
+                        }
+                    ],
+                    "headers": [
+                        {
+                            "name": "Authorization",
+                            "value": "Bearer abc123def456"
+                        }
+                    ],
+                    "body": []
+                }""";
+
+        ValidationResultDTO result = validationService.validateRequest(requestWithExtraParam);
+        assertFalse(result.isValid());
+        assertTrue(result.getAnomalies().containsKey("query_params.unexpected_param"));
+        assertEquals("Unexpected parameter", result.getAnomalies().get("query_params.unexpected_param"));
+    }
+
+    @Test
+    void whenValidatingRequestForNonExistentPath_thenFails() throws Exception {
+        String requestWithWrongPath = """
+                {
+                    "path": "/non/existent",
+                    "method": "GET",
+                    "query_params": [],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        ValidationResultDTO result = validationService.validateRequest(requestWithWrongPath);
+        assertFalse(result.isValid());
+        assertEquals(
+                "No model found for path '/non/existent' and method 'GET'",
+                result.getAnomalies().get("error")
+        );
+    }
+
+    @Test
+    void whenValidatingMalformedJson_thenFails() {
+        String malformedJson = "{ invalid json }";
+
+        ValidationResultDTO result = validationService.validateRequest(malformedJson);
+        assertFalse(result.isValid());
+        assertNotNull(result.getAnomalies().get("error"));
+    }
+
+    @Test
+    void whenValidatingWithMultipleTypes_thenSucceeds() throws Exception {
+        String requestWithUUID = """
+                {
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "user_id",
+                            "value": "123e4567-e89b-12d3-a456-426614174000"
+                        }
+                    ],
+                    "headers": [
+                        {
+                            "name": "Authorization",
+                            "value": "Bearer abc123def456"
+                        }
+                    ],
+                    "body": []
+                }""";
+
+        ValidationResultDTO result = validationService.validateRequest(requestWithUUID);
+        assertTrue(result.isValid());
+        assertTrue(result.getAnomalies().isEmpty());
+
+        String requestWithInt = """
+                {
+                    "path": "/users/info",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "user_id",
+                            "value": 12345
+                        }
+                    ],
+                    "headers": [
+                        {
+                            "name": "Authorization",
+                            "value": "Bearer abc123def456"
+                        }
+                    ],
+                    "body": []
+                }""";
+
+        result = validationService.validateRequest(requestWithInt);
+        assertTrue(result.isValid());
+        assertTrue(result.getAnomalies().isEmpty());
+    }
+
+    @Test
+    void whenUpdatingModelsIncrementally_thenOnlyAffectedModelsChange() {
+        validationService.saveModel("""
+                {"path": "/orders", "method": "POST", "body": [{"name": "id", "types": ["Int"], "required": true}]}""");
+        validationService.saveModel("""
+                {"path": "/orders", "method": "POST", "body": [{"name": "id", "types": ["UUID"], "required": true}]}""");
+
+        assertEquals(2, validationService.getAllModels().size());
+        assertFalse(validationService.validateRequest("""
+                {"path": "/orders", "method": "POST", "body": [{"name": "id", "value": 1}]}""").isValid());
+
+        // Deleting and re-creating the same method and path in one patch must not violate the unique index
+        validationService.patchModels("""
+                [{"op": "delete", "method": "POST", "path": "/orders"},
+                 {"op": "put", "model": {"path": "/orders", "method": "POST", "body": []}},
+                 {"op": "delete", "method": "GET", "path": "/users/info"}]""");
+
+        List<ModelDTO> models = validationService.getAllModels();
+        assertEquals(1, models.size());
+        assertEquals("/orders", models.get(0).getPath());
+        assertTrue(validationService.validateRequest("""
+                {"path": "/orders", "method": "POST", "body": []}""").isValid());
+
+        assertTrue(validationService.deleteModel("POST", "/orders"));
+        assertFalse(validationService.deleteModel("POST", "/orders"));
+        assertTrue(validationService.getAllModels().isEmpty());
+    }
+
+    @Test
+    void whenModelDeclaresNestedBody_thenNestedValuesAreValidated() {
+        validationService.saveModel("""
+                {"path": "/orders", "method": "POST", "body": [
+                    {"name": "order", "types": ["Object"], "required": true, "fields": [
+                        {"name": "id", "types": ["Int"], "required": true},
+                        {"name": "items", "types": ["List"], "required": true,
+                         "items": {"types": ["Object"], "fields": [{"name": "sku", "types": ["String"], "required": true}]}}
+                    ]}
+                ]}""");
+
+        assertTrue(validationService.validateRequest("""
+                {"path": "/orders", "method": "POST",
+                 "body": [{"name": "order", "value": {"id": 1, "items": [{"sku": "a"}, {"sku": "b"}]}}]}""").isValid());
+
+        ValidationResultDTO result = validationService.validateRequest("""
+                {"path": "/orders", "method": "POST",
+                 "body": [{"name": "order", "value": {"id": 1, "items": [{"sku": "a"}, {"sku": 2}]}}]}""");
+        assertFalse(result.isValid());
+        assertEquals("Value at 'items[1].sku' does not match any of the allowed types: [\"String\"]",
+                result.getAnomalies().get("body.order"));
+    }
+
+    @Test
+    void whenNestedSchemaIsInvalid_thenModelIsRejected() {
+        // Fields are only allowed for objects and items only for lists
+        assertThrows(IllegalArgumentException.class, () -> validationService.saveModel("""
+                {"path": "/orders", "method": "POST", "body": [
+                    {"name": "order", "types": ["String"], "required": true, "fields": []}]}"""));
+        assertThrows(IllegalArgumentException.class, () -> validationService.saveModel("""
+                {"path": "/orders", "method": "POST", "body": [
+                    {"name": "order", "types": ["Object"], "required": true, "items": {"types": ["Int"]}}]}"""));
+
+        String tooDeep = "{\"types\": [\"Int\"]}";
+        for (int i = 0; i < 16; i++) {
+            tooDeep = "{\"types\": [\"List\"], \"items\": " + tooDeep + "}";
+        }
+        String model = "{\"path\": \"/orders\", \"method\": \"POST\", \"body\": [{\"name\": \"order\", "
+                + "\"required\": true, " + tooDeep.substring(1) + "]}";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> validationService.saveModel(model));
+        assertTrue(e.getMessage().contains("Must not be nested more than 16 levels deep"));
+    }
+
+    @Test
+    void whenCustomTypeChanges_thenModelsUsingItAreRecompiled() {
+        customTypeService.saveType("""
+                {"name": "TenantId", "pattern": "tnt-[0-9]{4}"}""");
+        validationService.saveModel("""
+                {"path": "/tenants", "method": "GET",
+                 "query_params": [{"name": "tenant", "types": ["TenantId", "Int"], "required": true}]}""");
+        String request = """
+                {"path": "/tenants", "method": "GET", "query_params": [{"name": "tenant", "value": "tnt-12ab"}]}""";
+
+        ValidationResultDTO before = validationService.validateRequest(request);
+        assertFalse(before.isValid());
+
+        customTypeService.saveType("""
+                {"name": "TenantId", "pattern": "tnt-[0-9a-f]{4}"}""");
+        ValidationResultDTO after = validationService.validateRequest(request);
+        assertTrue(after.isValid());
+        assertTrue(after.getModelVersion() > before.getModelVersion());
+        assertEquals(1, customTypeService.getAllTypes().size());
+
+        // A type in use cannot be deleted, and a built-in name cannot be taken
+        assertThrows(IllegalArgumentException.class, () -> customTypeService.deleteType("TenantId"));
+        assertThrows(IllegalArgumentException.class, () -> customTypeService.saveType("""
+                {"name": "UUID", "pattern": "x"}"""));
+        assertThrows(IllegalArgumentException.class, () -> validationService.saveModel("""
+                {"path": "/other", "method": "GET",
+                 "query_params": [{"name": "id", "types": ["NoSuchType"], "required": true}]}"""));
+    }
+
+    @Test
+    void whenModelStartsUsingATypeBeingDeleted_thenModelWaitsAndIsRejected() throws Exception {
+        customTypeService.saveType("""
+                {"name": "TicketId", "pattern": "tk-[0-9]+"}""");
+        CountDownLatch deleted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        AtomicReference<Throwable> saveFailure = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // The deletion has passed its in-use check but not committed yet when the model is saved
+            Future<?> deletion = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                assertTrue(customTypeService.deleteType("TicketId"));
+                deleted.countDown();
+                try {
+                    commit.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertTrue(deleted.await(10, TimeUnit.SECONDS));
+
+            Thread save = new Thread(() -> {
+                try {
+                    validationService.saveModel("""
+                            {"path": "/tickets", "method": "GET",
+                             "query_params": [{"name": "ticket", "types": ["TicketId"], "required": true}]}""");
+                } catch (Throwable e) {
+                    saveFailure.set(e);
+                }
+            });
+            save.start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (save.getState() != Thread.State.WAITING && save.isAlive() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(save.isAlive(), "The model was saved before the type deletion was published");
+
+            commit.countDown();
+            deletion.get();
+            save.join();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertInstanceOf(IllegalArgumentException.class, saveFailure.get());
+        assertTrue(customTypeService.getAllTypes().stream().noneMatch(type -> type.getName().equals("TicketId")));
+        assertTrue(validationService.getAllModels().stream().noneMatch(model -> model.getPath().equals("/tickets")));
+        assertFalse(validationService.validateRequest("""
+                {"path": "/tickets", "method": "GET", "query_params": [{"name": "ticket", "value": "tk-1"}]}""")
+                .isValid());
+    }
+
+    @Test
+    void whenTypesAndModelsChangeConcurrently_thenNoChangeIsLost() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> changes = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int id = i;
+                changes.add(executor.submit(() -> customTypeService.saveType(
+                        "{\"name\": \"Code" + id + "\", \"pattern\": \"c" + id + "-[0-9]+\"}")));
+                changes.add(executor.submit(() -> validationService.saveModel(
+                        "{\"path\": \"/codes/" + id + "\", \"method\": \"GET\", \"query_params\": []}")));
+            }
+            for (Future<?> change : changes) {
+                change.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        String types = IntStream.range(0, threads)
+                .mapToObj(i -> "\"Code" + i + "\"")
+                .collect(Collectors.joining(","));
+        validationService.saveModel("""
+                {"path": "/codes", "method": "GET",
+                 "query_params": [{"name": "code", "types": [%s], "required": true}]}""".formatted(types));
+        for (int i = 0; i < threads; i++) {
+            assertTrue(validationService.validateRequest("""
+                    {"path": "/codes", "method": "GET", "query_params": [{"name": "code", "value": "c%d-42"}]}"""
+                    .formatted(i)).isValid());
+            assertTrue(validationService.validateRequest("""
+                    {"path": "/codes/%d", "method": "GET", "query_params": []}""".formatted(i)).isValid());
+        }
+    }
+}
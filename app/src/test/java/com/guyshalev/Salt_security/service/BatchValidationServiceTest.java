@@ -0,0 +1,153 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BatchValidationService.
+ * Uses the real validation pipeline to check that results come back in request order.
+ */
+class BatchValidationServiceTest {
+
+    private static final String MODEL = """
+            {
+                "path": "/orders",
+                "method": "GET",
+                "query_params": [
+                    {
+                        "name": "id",
+                        "types": ["Int"],
+                        "required": true
+                    }
+                ]
+            }""";
+
+    private BatchValidationService batchValidationService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ModelRegistry modelRegistry = new ModelRegistry();
+        modelRegistry.publish(List.of(new ModelCompiler(objectMapper, new TypeRegistry())
+                .compile(objectMapper.readTree(MODEL))));
+
+        ValidationProperties properties = new ValidationProperties();
+        properties.getBatch().setParallelism(4);
+        properties.getBatch().setMaxSize(1_000);
+
+        ValidationService validationService = ValidationServiceFixtures.validationService(objectMapper,
+                modelRegistry, properties);
+        batchValidationService = new BatchValidationService(validationService, modelRegistry, objectMapper,
+                properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchValidationService.shutdown();
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String request(int i) {
+        // Even requests are valid, odd requests carry a non-numeric id
+        String value = i % 2 == 0 ? String.valueOf(i) : "\"id-" + i + "\"";
+        return "{\"path\": \"/orders\", \"method\": \"GET\", \"query_params\": [{\"name\": \"id\", \"value\": "
+                + value + "}]}";
+    }
+
+    @Test
+    void whenValidatingJsonArray_thenResultsKeepRequestOrder() {
+        String batch = IntStream.range(0, 500)
+                .mapToObj(BatchValidationServiceTest::request)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        List<ValidationResultDTO> results = batchValidationService.validateBatch(stream(batch), RequestFormat.JSON);
+
+        assertEquals(500, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i % 2 == 0, results.get(i).isValid(), "result " + i);
+        }
+        assertTrue(results.get(1).getAnomalies().get("query_params.id").contains("id-1"));
+    }
+
+    @Test
+    void whenValidatingNdjson_thenOneResultPerLine() {
+        String batch = request(0) + "\n\n" + request(1) + "\r\n{ invalid json }\n" + request(2) + "\n";
+
+        List<ValidationResultDTO> results = batchValidationService.validateNdjson(stream(batch));
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isValid());
+        assertFalse(results.get(1).isValid());
+        assertTrue(results.get(2).getAnomalies().get("error").startsWith("Failed to validate request"));
+        assertTrue(results.get(3).isValid());
+    }
+
+    @Test
+    void whenBatchIsNotAnArray_thenThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> batchValidationService.validateBatch(stream(request(0)), RequestFormat.JSON));
+        assertThrows(IllegalArgumentException.class,
+                () -> batchValidationService.validateBatch(stream("[invalid"), RequestFormat.JSON));
+    }
+
+    @Test
+    void whenBatchExceedsMaxSize_thenThrowsException() {
+        String batch = IntStream.range(0, 1_001)
+                .mapToObj(BatchValidationServiceTest::request)
+                .collect(Collectors.joining("\n"));
+
+        assertThrows(IllegalArgumentException.class, () -> batchValidationService.validateNdjson(stream(batch)));
+    }
+
+    @Test
+    void whenArrayExceedsMaxSize_thenRejectsBeforeReadingTheRest() {
+        String head = IntStream.range(0, 1_000)
+                .mapToObj(BatchValidationServiceTest::request)
+                .collect(Collectors.joining(",", "[", ",{"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> batchValidationService.validateBatch(unreadableAfter(head), RequestFormat.JSON));
+        assertEquals("Batch contains more than 1000 requests, the maximum is 1000", e.getMessage());
+    }
+
+    @Test
+    void whenNdjsonExceedsMaxSize_thenRejectsBeforeReadingTheRest() {
+        String head = IntStream.range(0, 1_001)
+                .mapToObj(i -> request(i) + "\n")
+                .collect(Collectors.joining());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> batchValidationService.validateNdjson(unreadableAfter(head)));
+        assertEquals("Batch contains more than 1000 requests, the maximum is 1000", e.getMessage());
+    }
+
+    /**
+     * A stream that fails once the given content has been read, to show that nothing after it is needed.
+     */
+    private static InputStream unreadableAfter(String content) {
+        return new SequenceInputStream(stream(content), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Read past the limit");
+            }
+        });
+    }
+}
@@ -0,0 +1,172 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.compiled.ParameterType;
+import com.guyshalev.Salt_security.model.dto.ModelDTO;
+import com.guyshalev.Salt_security.model.dto.ParameterDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ModelLearner.
+ * Uses small table limits, so that eviction is exercised with a handful of keys.
+ */
+class ModelLearnerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ModelCompiler modelCompiler = new ModelCompiler(objectMapper, new TypeRegistry());
+
+    private ValidationProperties properties;
+    private ModelLearner learner;
+
+    @BeforeEach
+    void setup() {
+        properties = new ValidationProperties();
+        properties.getLearning().setEnabled(true);
+        properties.getLearning().setMaxEndpoints(2);
+        properties.getLearning().setMaxParameters(2);
+        properties.getLearning().setMinSamples(2);
+        learner = new ModelLearner(new TypeValidator(TypeValidator.DEFAULT_MAX_SCHEMA_ELEMENTS), properties);
+    }
+
+    private void observe(String request) throws Exception {
+        observe(request, ModelSnapshot.EMPTY);
+    }
+
+    private void observe(String request, ModelSnapshot snapshot) throws Exception {
+        learner.observe(objectMapper.readTree(request), snapshot);
+    }
+
+    private static ParameterDTO parameter(List<ParameterDTO> parameters, String name) {
+        return parameters.stream().filter(parameter -> parameter.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void whenRequestsAreObserved_thenProposesPresenceAndMostSpecificTypes() throws Exception {
+        observe("""
+                {"path": "/users/42/orders", "method": "GET",
+                 "query_params": [{"name": "id", "value": "3f2504e0-4f89-11d3-9a0c-0305e82c3301"},
+                                  {"name": "page", "value": 1}],
+                 "headers": [{"name": "Authorization", "value": "Bearer abc"}]}""");
+        observe("""
+                {"path": "/users/7/orders", "method": "GET",
+                 "query_params": [{"name": "id", "value": "plain"}],
+                 "headers": [{"name": "Authorization", "value": "Bearer def"}]}""");
+
+        List<ModelDTO> models = learner.proposeModels();
+
+        assertEquals(1, models.size());
+        ModelDTO model = models.get(0);
+        assertEquals("/users/{id}/orders", model.getPath());
+        assertEquals("GET", model.getMethod());
+        ParameterDTO id = parameter(model.getQueryParams(), "id");
+        assertEquals(List.of("String"), id.getTypes());
+        assertTrue(id.isRequired());
+        ParameterDTO page = parameter(model.getQueryParams(), "page");
+        assertEquals(List.of("Int"), page.getTypes());
+        assertFalse(page.isRequired());
+        assertEquals(List.of("Auth-Token"), parameter(model.getHeaders(), "Authorization").getTypes());
+        assertTrue(model.getBody().isEmpty());
+    }
+
+    @Test
+    void whenValuesHaveDisjointTypes_thenProposesEachOfThem() {
+        int booleanMask = ParameterType.BOOLEAN.getBit();
+        int textMask = ParameterType.STRING.getBit();
+        int numericTextMask = ParameterType.INT.getBit() | ParameterType.STRING.getBit();
+
+        assertEquals(List.of("Boolean", "String"),
+                ModelLearner.proposeTypes(new int[]{booleanMask, numericTextMask, textMask}, 3));
+        assertEquals(List.of("Int"), ModelLearner.proposeTypes(new int[]{numericTextMask}, 1));
+        assertEquals(List.of(), ModelLearner.proposeTypes(new int[0], 0));
+    }
+
+    @Test
+    void whenRequestMatchesModel_thenTracksItUnderModelPath() throws Exception {
+        ModelSnapshot snapshot = ModelSnapshot.of(1, List.of(modelCompiler.compile(objectMapper.readTree("""
+                {"path": "/users/{userId}", "method": "GET", "query_params": []}"""))));
+
+        observe("""
+                {"path": "/users/alice", "method": "GET"}""", snapshot);
+        observe("""
+                {"path": "/users/bob", "method": "GET"}""", snapshot);
+
+        assertEquals("/users/{userId}", learner.proposeModels().get(0).getPath());
+    }
+
+    @Test
+    void whenTablesAreFull_thenRarestKeysAreEvicted() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            observe("""
+                    {"path": "/frequent", "method": "GET",
+                     "query_params": [{"name": "a", "value": 1}, {"name": "b", "value": 2}]}""");
+        }
+        for (int i = 0; i < 3; i++) {
+            observe("{\"path\": \"/rare" + i + "\", \"method\": \"GET\","
+                    + " \"query_params\": [{\"name\": \"c" + i + "\", \"value\": 3}]}");
+            observe("""
+                    {"path": "/frequent", "method": "GET", "query_params": [{"name": "x", "value": 1}]}""");
+        }
+
+        assertEquals(2, learner.getEndpointCount());
+        List<ModelDTO> models = learner.proposeModels();
+        assertEquals(1, models.size());
+        List<ParameterDTO> parameters = models.get(0).getQueryParams();
+        assertEquals(2, parameters.size());
+        // The parameter tracked after an eviction missed earlier requests, so it is not proposed as required
+        assertTrue(parameters.stream().noneMatch(ParameterDTO::isRequired));
+    }
+
+    @Test
+    void whenEndpointsAreObservedConcurrently_thenFrequentEndpointsAreKept() throws Exception {
+        properties.getLearning().setMaxEndpoints(8);
+        learner = new ModelLearner(new TypeValidator(TypeValidator.DEFAULT_MAX_SCHEMA_ELEMENTS), properties);
+        JsonNode[] frequent = new JsonNode[4];
+        for (int i = 0; i < frequent.length; i++) {
+            frequent[i] = objectMapper.readTree("{\"path\": \"/frequent" + i + "\", \"method\": \"GET\"}");
+        }
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    learner.observe(frequent[thread], ModelSnapshot.EMPTY);
+                    if (i % 50 == 0) {
+                        learner.observe(objectMapper.createObjectNode()
+                                .put("path", "/rare" + thread + "-" + i).put("method", "GET"), ModelSnapshot.EMPTY);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8, learner.getEndpointCount());
+        // Endpoints seen once are tracked but not proposed
+        assertEquals(List.of("/frequent0", "/frequent1", "/frequent2", "/frequent3"),
+                learner.proposeModels().stream().map(ModelDTO::getPath).toList());
+    }
+
+    @Test
+    void whenLearningIsDisabled_thenNothingIsTracked() throws Exception {
+        learner = new ModelLearner(new TypeValidator(TypeValidator.DEFAULT_MAX_SCHEMA_ELEMENTS),
+                new ValidationProperties());
+
+        JsonNode request = objectMapper.readTree("""
+                {"path": "/users", "method": "GET"}""");
+        learner.observe(request, ModelSnapshot.EMPTY);
+        learner.observe(request, ModelSnapshot.EMPTY);
+
+        assertFalse(learner.isEnabled());
+        assertEquals(0, learner.getEndpointCount());
+    }
+}
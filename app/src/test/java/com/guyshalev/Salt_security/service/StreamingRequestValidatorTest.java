@@ -0,0 +1,211 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for StreamingRequestValidator.
+ * Every request is validated both in streaming mode and on a JSON tree, from a String and from bytes,
+ * and the results must be identical; in fail-fast mode the verdict must be the same. Well-formed requests must also give the same results when encoded
+ * as CBOR or Smile.
+ */
+class StreamingRequestValidatorTest {
+
+    private static final String MODEL = """
+            {
+                "path": "/users/info",
+                "method": "GET",
+                "query_params": [
+                    {
+                        "name": "with_extra_data",
+                        "types": ["Boolean"],
+                        "required": false
+                    },
+                    {
+                        "name": "user_id",
+                        "types": ["Int", "UUID"],
+                        "required": true
+                    }
+                ],
+                "headers": [
+                    {
+                        "name": "Authorization",
+                        "types": ["Auth-Token"],
+                        "required": true
+                    }
+                ],
+                "body": [
+                    {
+                        "name": "address",
+                        "types": ["Object"],
+                        "required": false,
+                        "fields": [
+                            {"name": "city", "types": ["String"], "required": true},
+                            {"name": "lines", "types": ["List"], "required": false, "items": {"types": ["String"]}}
+                        ]
+                    },
+                    {
+                        "name": "orders",
+                        "types": ["List"],
+                        "required": false,
+                        "items": {"types": ["Object"], "fields": [{"name": "id", "types": ["Int"], "required": true}]}
+                    }
+                ]
+            }""";
+
+    private StreamingRequestValidator streamingRequestValidator;
+    private ModelRegistry modelRegistry;
+    private ValidationService treeValidationService;
+    private ValidationService streamingValidationService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeValidator typeValidator = new TypeValidator(TypeValidator.DEFAULT_MAX_SCHEMA_ELEMENTS);
+        modelRegistry = new ModelRegistry();
+        modelRegistry.publish(List.of(new ModelCompiler(objectMapper, new TypeRegistry())
+                .compile(objectMapper.readTree(MODEL))));
+        streamingRequestValidator = new StreamingRequestValidator(objectMapper, typeValidator,
+                ValidationObserver.NONE, AnomalyPublisher.NONE);
+
+        ValidationProperties streamingProperties = new ValidationProperties();
+        streamingProperties.setStreaming(true);
+        treeValidationService = ValidationServiceFixtures.validationService(objectMapper, modelRegistry,
+                new ValidationProperties());
+        streamingValidationService = ValidationServiceFixtures.validationService(objectMapper, modelRegistry,
+                streamingProperties);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // valid request
+            """
+            {"path": "/users/info", "method": "GET",
+             "query_params": [{"name": "user_id", "value": 42}, {"name": "with_extra_data", "value": "true"}],
+             "headers": [{"name": "Authorization", "value": "Bearer abc123"}], "body": []}""",
+            // path and method after the parameter sections
+            """
+            {"query_params": [{"name": "user_id", "value": "123e4567-e89b-12d3-a456-426614174000"}],
+             "headers": [{"name": "Authorization", "value": "Bearer abc123"}],
+             "path": "/users/info", "method": "GET"}""",
+            // anomalies: type mismatch, unexpected parameter, missing required parameter
+            """
+            {"path": "/users/info", "method": "GET",
+             "query_params": [{"name": "user_id", "value": {"nested": [1, 2]}}, {"name": "extra", "value": null}],
+             "headers": []}""",
+            // nested body values
+            """
+            {"path": "/users/info", "method": "GET", "query_params": [{"name": "user_id", "value": 42}],
+             "headers": [{"name": "Authorization", "value": "Bearer abc123"}],
+             "body": [{"name": "address", "value": {"city": "Haifa", "lines": ["a", "b"]}},
+                      {"name": "orders", "value": [{"id": 1}, {"id": "2"}]}]}""",
+            // nested anomalies: type mismatch in a list item, missing field of a list item
+            """
+            {"path": "/users/info", "method": "GET", "query_params": [{"name": "user_id", "value": 42}],
+             "headers": [{"name": "Authorization", "value": "Bearer abc123"}],
+             "body": [{"name": "address", "value": {"city": "Haifa", "lines": ["a", 3], "zip": 1}},
+                      {"name": "orders", "value": [{"id": 1}, {}]}]}""",
+            // anomalies found before the model is known
+            """
+            {"headers": [{"name": "Authorization", "value": "token"}], "body": [{"name": "b", "value": 1}],
+             "method": "GET", "path": "/users/info"}""",
+            // duplicate request parameters
+            """
+            {"path": "/users/info", "method": "GET",
+             "query_params": [{"name": "user_id", "value": "x"}, {"name": "user_id", "value": 1}],
+             "headers": [{"name": "Authorization", "value": "Bearer a"}]}""",
+            // structural errors
+            """
+            {"path": 1, "query_params": {}, "headers": [1, {"value": 2}, {"name": 3}],
+             "body": [{"name": "x", "value": 1, "name": "y"}]}""",
+            """
+            {"path": "/users/info", "method": "GET", "query_params": null}""",
+            // unknown model
+            """
+            {"path": "/unknown", "method": "GET", "query_params": [{"name": "a", "value": 1}]}""",
+            // non-object roots
+            "[1, 2, 3]",
+            "\"text\"",
+            ""
+    })
+    void whenValidatingInStreamingMode_thenMatchesTreeValidation(String request) {
+        ValidationResultDTO expected = treeValidationService.validateRequest(request);
+        ValidationResultDTO actual = streamingValidationService.validateRequest(request);
+
+        assertEquals(expected.isValid(), actual.isValid());
+        assertEquals(expected.getAnomalies(), actual.getAnomalies());
+        assertEquals(expected.getModelVersion(), actual.getModelVersion());
+
+        for (ValidationService service : List.of(treeValidationService, streamingValidationService)) {
+            ValidationResultDTO fromBytes = service.validateRequest(
+                    new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)));
+            assertEquals(expected.isValid(), fromBytes.isValid());
+            assertEquals(expected.getAnomalies(), fromBytes.getAnomalies());
+
+            ValidationResultDTO failFast = service.validateRequest(
+                    new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)), RequestFormat.JSON, true);
+            assertEquals(expected.isValid(), failFast.isValid());
+            assertTrue(failFast.getAnomalies().isEmpty());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            """
+            {"path": "/users/info", "method": "GET",
+             "query_params": [{"name": "user_id", "value": 42}, {"name": "with_extra_data", "value": true}],
+             "headers": [{"name": "Authorization", "value": "Bearer abc"}], "body": []}""",
+            """
+            {"path": "/users/info", "method": "GET",
+             "query_params": [{"name": "user_id", "value": 1.5}, {"name": "unknown", "value": null}],
+             "headers": [{"name": "Authorization"}]}""",
+            """
+            {"path": "/unknown", "method": "GET", "query_params": [{"name": "a", "value": 1}]}"""
+    })
+    void whenValidatingBinaryFormats_thenMatchesJsonValidation(String request) throws Exception {
+        ValidationResultDTO expected = treeValidationService.validateRequest(request);
+        Object value = new ObjectMapper().readTree(request);
+
+        for (RequestFormat format : List.of(RequestFormat.CBOR, RequestFormat.SMILE)) {
+            byte[] encoded = RequestFormat.mappers(new ObjectMapper()).get(format).writeValueAsBytes(value);
+            for (ValidationService service : List.of(treeValidationService, streamingValidationService)) {
+                ValidationResultDTO actual = service.validateRequest(new ByteArrayInputStream(encoded), format);
+                assertEquals(expected.isValid(), actual.isValid(), format.name());
+                assertEquals(expected.getAnomalies(), actual.getAnomalies(), format.name());
+            }
+        }
+    }
+
+    @Test
+    void whenRequestRepeatsTopLevelField_thenFallsBackToTree() throws Exception {
+        String request = """
+                {"path": "/other", "method": "GET", "path": "/users/info", "headers": []}""";
+
+        Optional<ValidationResultDTO> result = streamingRequestValidator.validate(request, modelRegistry.snapshot());
+
+        assertTrue(result.isEmpty());
+        assertEquals(treeValidationService.validateRequest(request).getAnomalies(),
+                streamingValidationService.validateRequest(request).getAnomalies());
+    }
+
+    @Test
+    void whenValidatingMalformedJson_thenReturnsError() {
+        ValidationResultDTO result = streamingValidationService.validateRequest(
+                "{\"path\": \"/users/info\", \"query_params\": [1,}");
+
+        assertFalse(result.isValid());
+        assertTrue(result.getAnomalies().get("error").startsWith("Failed to validate request"));
+    }
+}
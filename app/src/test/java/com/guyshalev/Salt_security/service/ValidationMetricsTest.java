@@ -0,0 +1,128 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.compiled.CompiledSection;
+import com.guyshalev.Salt_security.service.ValidationMetrics.ModelMeters;
+import com.guyshalev.Salt_security.service.ValidationObserver.AnomalyKind;
+import com.guyshalev.Salt_security.service.ValidationObserver.Phase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ValidationMetrics.
+ * Every model is compiled again for each snapshot, as publishing a model set does.
+ */
+class ValidationMetricsTest {
+
+    private static final String MODEL = """
+            {"path": "/users/{id}", "method": "GET",
+             "query_params": [{"name": "verbose", "types": ["Boolean"], "required": true}]}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ModelCompiler modelCompiler = new ModelCompiler(objectMapper, new TypeRegistry());
+    private SimpleMeterRegistry meterRegistry;
+    private ValidationMetrics validationMetrics;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        validationMetrics = new ValidationMetrics(meterRegistry, new ValidationProperties());
+    }
+
+    private CompiledModel compile() throws Exception {
+        return modelCompiler.compile(objectMapper.readTree(MODEL));
+    }
+
+    private int timerCount() {
+        return meterRegistry.find("validation.phase").tag("path", "/users/{id}").timers().size();
+    }
+
+    @Test
+    void whenRequestRunsOnOlderSnapshot_thenReusesMetersOfItsEndpoint() throws Exception {
+        CompiledModel older = compile();
+        CompiledModel newer = compile();
+        ModelSnapshot version1 = ModelSnapshot.of(1, List.of(older));
+        ModelSnapshot version2 = ModelSnapshot.of(2, List.of(newer));
+
+        ModelMeters current = validationMetrics.forModel(version2, newer);
+        ModelMeters stale = validationMetrics.forModel(version1, older);
+
+        assertSame(current, stale);
+        assertSame(stale, validationMetrics.forModel(version1, older));
+        assertSame(current, validationMetrics.forModel(version2, newer));
+        assertEquals(Phase.values().length, timerCount());
+    }
+
+    @Test
+    void whenSnapshotIsUnpublished_thenReusesMetersOfItsEndpoint() throws Exception {
+        CompiledModel published = compile();
+        ModelMeters current = validationMetrics.forModel(ModelSnapshot.of(1, List.of(published)), published);
+
+        for (int i = 0; i < 3; i++) {
+            CompiledModel replayed = compile();
+            assertSame(current, validationMetrics.forModel(ModelSnapshot.of(0, List.of(replayed)), replayed));
+        }
+        assertEquals(Phase.values().length, timerCount());
+    }
+
+    @Test
+    void whenModelsAreRecompiled_thenAnomaliesAreCountedOnce() throws Exception {
+        for (long version = 1; version <= 3; version++) {
+            CompiledModel model = compile();
+            CompiledSection section = model.getSection("query_params");
+            validationMetrics.forModel(ModelSnapshot.of(version, List.of(model)), model)
+                    .anomaly(section, section.getParameter("verbose"), AnomalyKind.TYPE_MISMATCH);
+        }
+
+        assertEquals(1, meterRegistry.find("validation.anomalies").counters().size());
+        assertEquals(3, meterRegistry.get("validation.anomalies")
+                .tag("parameter", "verbose").tag("kind", "type_mismatch").counter().count());
+    }
+
+    @Test
+    void whenSnapshotsAreObservedConcurrently_thenEveryRequestSharesTheSameMeters() throws Exception {
+        int threads = 4;
+        List<ModelSnapshot> snapshots = new ArrayList<>();
+        List<CompiledModel> models = new ArrayList<>();
+        for (long version = 1; version <= 8; version++) {
+            CompiledModel model = compile();
+            models.add(model);
+            snapshots.add(ModelSnapshot.of(version, List.of(model)));
+        }
+
+        Set<ModelMeters> seen = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    // Each thread walks the versions from a different starting point, so older and newer
+                    // snapshots race to install their cache
+                    for (int i = 0; i < 10_000; i++) {
+                        int index = (i + offset) % snapshots.size();
+                        seen.add(validationMetrics.forModel(snapshots.get(index), models.get(index)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(1, seen.size());
+        assertEquals(Phase.values().length, timerCount());
+    }
+}
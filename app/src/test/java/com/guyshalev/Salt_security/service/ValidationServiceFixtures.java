@@ -0,0 +1,43 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.dal.ModelRepository;
+import com.guyshalev.Salt_security.event.AnomalyEventPublisher;
+import com.guyshalev.Salt_security.mapper.ModelMapper;
+import com.guyshalev.Salt_security.validator.RequestValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Builds validation services outside of Spring for unit tests.
+ * Every validation component is real and configured from the given properties, as in the application; the
+ * repository and mapper are mocks, and no anomaly event sink is attached.
+ */
+final class ValidationServiceFixtures {
+
+    private ValidationServiceFixtures() {
+    }
+
+    /**
+     * @param objectMapper Mapper used to parse requests and models
+     * @param modelRegistry Registry the service validates against
+     * @param properties The validation properties, which decide streaming, caching and learning
+     * @return The service
+     */
+    static ValidationService validationService(ObjectMapper objectMapper, ModelRegistry modelRegistry,
+                                               ValidationProperties properties) {
+        TypeRegistry typeRegistry = new TypeRegistry();
+        TypeValidator typeValidator = new TypeValidator(properties.getSchema().getMaxElements());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationMetrics validationMetrics = new ValidationMetrics(meterRegistry, properties);
+        AnomalyEventPublisher publisher = new AnomalyEventPublisher(properties, meterRegistry, batch -> { });
+        return new ValidationService(mock(ModelRepository.class), objectMapper,
+                new RequestValidator(properties.getSchema().getMaxDepth(), typeRegistry), typeValidator,
+                mock(ModelMapper.class), new ModelCompiler(objectMapper, typeRegistry), modelRegistry,
+                new StreamingRequestValidator(objectMapper, typeValidator, validationMetrics, publisher), properties,
+                validationMetrics, new VerdictCache(meterRegistry, properties), publisher,
+                new ModelLearner(typeValidator, properties));
+    }
+}
@@ -0,0 +1,691 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.dal.ModelRepository;
+import com.guyshalev.Salt_security.event.AnomalyEventPublisher;
+import com.guyshalev.Salt_security.mapper.ModelMapper;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.compiled.ParameterType;
+import com.guyshalev.Salt_security.model.dto.ModelDTO;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.model.entity.Model;
+import com.guyshalev.Salt_security.validator.RequestValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ValidationService.
+ * Tests the service layer in isolation using mocks for dependencies.
+ */
+@ExtendWith(MockitoExtension.class)
+class ValidationServiceTest {
+
+    @Mock
+    private ModelRepository modelRepository;
+    @Mock
+    private RequestValidator requestValidator;
+    @Mock
+    private TypeValidator typeValidator;
+    @Mock
+    private ModelMapper modelMapper;
+
+    private ValidationService validationService;
+    private ObjectMapper objectMapper;
+    private ModelCompiler modelCompiler;
+    private ModelRegistry modelRegistry;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        objectMapper = new ObjectMapper();
+        modelCompiler = new ModelCompiler(objectMapper, new TypeRegistry());
+        modelRegistry = new ModelRegistry();
+        meterRegistry = new SimpleMeterRegistry();
+        validationService = validationService(new ValidationProperties());
+    }
+
+    /**
+     * Builds a service on the mocked validators that records no anomaly events.
+     */
+    private ValidationService validationService(ValidationProperties properties) {
+        return validationService(properties, new AnomalyEventPublisher(properties, meterRegistry, batch -> { }));
+    }
+
+    private ValidationService validationService(ValidationProperties properties, AnomalyEventPublisher publisher) {
+        ValidationMetrics validationMetrics = new ValidationMetrics(meterRegistry, properties);
+        return new ValidationService(modelRepository, objectMapper, requestValidator, typeValidator, modelMapper,
+                modelCompiler, modelRegistry,
+                new StreamingRequestValidator(objectMapper, typeValidator, validationMetrics, publisher), properties,
+                validationMetrics, new VerdictCache(meterRegistry, properties), publisher,
+                new ModelLearner(typeValidator, properties));
+    }
+
+    private void registerModel(String modelJson) throws Exception {
+        modelRegistry.publish(List.of(modelCompiler.compile(objectMapper.readTree(modelJson))));
+    }
+
+    /**
+     * Makes every request value satisfy exactly the built-in types of the given mask.
+     */
+    private void stubValueTypes(int valueMask) {
+        when(typeValidator.matches(any(), any()))
+                .thenAnswer(call -> call.<CompiledParameter>getArgument(1).accepts(valueMask));
+    }
+
+    /**
+     * SaveModels Tests
+     */
+    @Test
+    void whenSavingValidModels_thenSuccess() throws Exception {
+        // Prepare test data
+        String validModels = """
+                [{
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [],
+                    "headers": [],
+                    "body": []
+                }]""";
+
+        // Configure mocks
+        when(requestValidator.validateModel(any(JsonNode.class))).thenReturn(new HashMap<>());
+
+        // Execute
+        assertDoesNotThrow(() -> validationService.saveModels(validModels));
+
+        // Verify
+        verify(modelRepository).deleteAllInBatch();
+        verify(modelRepository).save(any(Model.class));
+        assertTrue(modelRegistry.find("GET", "/test").isPresent());
+    }
+
+    @Test
+    void whenSavingInvalidJson_thenThrowsException() {
+        String invalidJson = "invalid json";
+
+        assertThrows(IllegalArgumentException.class,
+                () -> validationService.saveModels(invalidJson));
+
+        verify(modelRepository, never()).save(any());
+    }
+
+    @Test
+    void whenSavingNonArrayJson_thenThrowsException() throws Exception {
+        String nonArrayJson = """
+                {
+                    "path": "/test",
+                    "method": "GET"
+                }""";
+
+        assertThrows(IllegalArgumentException.class,
+                () -> validationService.saveModels(nonArrayJson));
+
+        verify(modelRepository, never()).save(any());
+    }
+
+    @Test
+    void whenModelValidationFails_thenThrowsException() throws Exception {
+        // Prepare test data
+        String models = """
+                [{
+                    "path": "/test",
+                    "method": "GET"
+                }]""";
+
+        // Configure mock to return validation errors
+        when(requestValidator.validateModel(any(JsonNode.class)))
+                .thenReturn(Collections.singletonMap("error", "Invalid model"));
+
+        // Execute and verify
+        assertThrows(IllegalArgumentException.class,
+                () -> validationService.saveModels(models));
+
+        verify(modelRepository, never()).save(any());
+        assertTrue(modelRegistry.find("GET", "/test").isEmpty());
+    }
+
+    @Test
+    void whenLoadingModels_thenRegistryServesStoredModels() {
+        // Prepare test data
+        String modelJson = """
+                {
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        // Configure mocks
+        when(modelRepository.findAll()).thenReturn(List.of(new Model("/test", "GET", modelJson)));
+
+        // Execute
+        validationService.loadModels();
+
+        // Verify
+        assertTrue(modelRegistry.find("GET", "/test").isPresent());
+        assertTrue(modelRegistry.find("POST", "/test").isEmpty());
+    }
+
+    @Test
+    void whenSavingDuplicateModels_thenThrowsException() {
+        String models = """
+                [{"path": "/users/{id}", "method": "GET"}, {"path": "/users/{userId}", "method": "GET"}]""";
+        when(requestValidator.validateModel(any(JsonNode.class))).thenReturn(new HashMap<>());
+
+        assertThrows(IllegalArgumentException.class, () -> validationService.saveModels(models));
+
+        verify(modelRepository, never()).deleteAllInBatch();
+    }
+
+    /**
+     * SaveModel, DeleteModel and PatchModels Tests
+     */
+    @Test
+    void whenSavingSingleModel_thenOnlyThatModelIsUpdated() throws Exception {
+        registerModel("""
+                {"path": "/other", "method": "GET"}""");
+        Model existing = new Model("/test", "GET", "{}");
+        when(requestValidator.validateModel(any(JsonNode.class))).thenReturn(new HashMap<>());
+        when(modelRepository.findByPathAndMethod("/test", "GET")).thenReturn(Optional.of(existing));
+
+        validationService.saveModel("""
+                {"path": "/test", "method": "GET", "headers": []}""");
+
+        verify(modelRepository).save(existing);
+        verify(modelRepository, never()).deleteAllInBatch();
+        assertTrue(existing.getJsonContent().contains("headers"));
+        assertTrue(modelRegistry.find("GET", "/test").isPresent());
+        assertTrue(modelRegistry.find("GET", "/other").isPresent());
+        assertEquals(2, modelRegistry.snapshot().getVersion());
+    }
+
+    @Test
+    void whenSavingModelWithConflictingTemplatePath_thenThrowsException() throws Exception {
+        registerModel("""
+                {"path": "/users/{id}", "method": "GET"}""");
+        when(requestValidator.validateModel(any(JsonNode.class))).thenReturn(new HashMap<>());
+
+        assertThrows(IllegalArgumentException.class, () -> validationService.saveModel("""
+                {"path": "/users/{userId}", "method": "GET"}"""));
+
+        verify(modelRepository, never()).save(any());
+        assertEquals("/users/{id}", modelRegistry.find("GET", "/users/1").get().getPath());
+    }
+
+    @Test
+    void whenDeletingModel_thenRemovedFromRepositoryAndRegistry() throws Exception {
+        registerModel("""
+                {"path": "/test", "method": "GET"}""");
+        Model existing = new Model("/test", "GET", "{}");
+        when(modelRepository.findByPathAndMethod("/test", "GET")).thenReturn(Optional.of(existing));
+
+        assertTrue(validationService.deleteModel("GET", "/test"));
+
+        verify(modelRepository).delete(existing);
+        assertTrue(modelRegistry.find("GET", "/test").isEmpty());
+    }
+
+    @Test
+    void whenDeletingUnknownModel_thenReturnsFalse() {
+        when(modelRepository.findByPathAndMethod("/test", "GET")).thenReturn(Optional.empty());
+
+        assertFalse(validationService.deleteModel("GET", "/test"));
+
+        verify(modelRepository, never()).delete(any());
+        assertEquals(0, modelRegistry.snapshot().getVersion());
+    }
+
+    @Test
+    void whenPatchingModels_thenAllChangesArePublishedAsOneVersion() throws Exception {
+        registerModel("""
+                {"path": "/old", "method": "GET"}""");
+        when(requestValidator.validateModel(any(JsonNode.class))).thenReturn(new HashMap<>());
+        when(modelRepository.findByPathAndMethod(any(), any())).thenReturn(Optional.empty());
+
+        validationService.patchModels("""
+                [{"op": "put", "model": {"path": "/new", "method": "POST"}},
+                 {"op": "delete", "method": "GET", "path": "/old"}]""");
+
+        verify(modelRepository).save(any(Model.class));
+        assertTrue(modelRegistry.find("POST", "/new").isPresent());
+        assertTrue(modelRegistry.find("GET", "/old").isEmpty());
+        assertEquals(2, modelRegistry.snapshot().getVersion());
+    }
+
+    @Test
+    void whenPatchContainsInvalidChange_thenNothingIsApplied() throws Exception {
+        registerModel("""
+                {"path": "/old", "method": "GET"}""");
+        when(requestValidator.validateModel(any(JsonNode.class))).thenReturn(new HashMap<>());
+
+        assertThrows(IllegalArgumentException.class, () -> validationService.patchModels("""
+                [{"op": "put", "model": {"path": "/new", "method": "POST"}}, {"op": "delete", "path": "/old"}]"""));
+
+        verify(modelRepository, never()).save(any());
+        verify(modelRepository, never()).delete(any());
+        assertTrue(modelRegistry.find("POST", "/new").isEmpty());
+    }
+
+    /**
+     * GetAllModels Tests
+     */
+    @Test
+    void whenGettingAllModels_thenSuccess() {
+        // Prepare test data
+        List<Model> models = Collections.singletonList(new Model("/test", "GET", "{}"));
+        List<ModelDTO> expectedDtos = Collections.singletonList(new ModelDTO());
+
+        // Configure mocks
+        when(modelRepository.findAll()).thenReturn(models);
+        when(modelMapper.toDTOList(models)).thenReturn(expectedDtos);
+
+        // Execute
+        List<ModelDTO> result = validationService.getAllModels();
+
+        // Verify
+        assertEquals(expectedDtos, result);
+        verify(modelRepository).findAll();
+        verify(modelMapper).toDTOList(models);
+    }
+
+    /**
+     * ValidateRequest Tests
+     */
+    @Test
+    void whenValidatingValidRequest_thenSuccess() throws Exception {
+        // Prepare test data
+        String validRequest = """
+                {
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        registerModel(validRequest);
+
+        // Configure mocks
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+
+        // Execute
+        ValidationResultDTO result = validationService.validateRequest(validRequest);
+
+        // Verify
+        assertTrue(result.isValid());
+        assertTrue(result.getAnomalies().isEmpty());
+    }
+
+    @Test
+    void whenModelsAreReplaced_thenResultReportsSnapshotVersion() throws Exception {
+        // Prepare test data
+        String modelJson = """
+                {
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [],
+                    "headers": [],
+                    "body": []
+                }""";
+        registerModel(modelJson);
+        long firstVersion = modelRegistry.snapshot().getVersion();
+
+        // Configure mocks
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+
+        // Execute
+        ValidationResultDTO first = validationService.validateRequest(modelJson);
+        registerModel(modelJson);
+        ValidationResultDTO second = validationService.validateRequest(modelJson);
+
+        // Verify
+        assertEquals(firstVersion, first.getModelVersion());
+        assertEquals(firstVersion + 1, second.getModelVersion());
+    }
+
+    @Test
+    void whenValidatingInvalidJson_thenReturnsError() {
+        String invalidJson = "invalid json";
+
+        ValidationResultDTO result = validationService.validateRequest(invalidJson);
+
+        assertFalse(result.isValid());
+        assertFalse(result.getAnomalies().isEmpty());
+    }
+
+    @Test
+    void whenNoMatchingModel_thenReturnsError() throws Exception {
+        // Prepare test data
+        String request = """
+                {
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        // Configure mock
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+
+        // Execute
+        ValidationResultDTO result = validationService.validateRequest(request);
+
+        // Verify
+        assertFalse(result.isValid());
+        assertTrue(result.getAnomalies().containsKey("error"));
+        assertTrue(result.getAnomalies().get("error").contains("No model found"));
+    }
+
+    @Test
+    void whenRequestValidationFails_thenReturnsErrors() throws Exception {
+        // Prepare test data
+        String request = """
+                {
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        // Configure mock to return validation errors
+        when(requestValidator.validateRequest(any(JsonNode.class)))
+                .thenReturn(Collections.singletonMap("error", "Invalid request"));
+
+        // Execute
+        ValidationResultDTO result = validationService.validateRequest(request);
+
+        // Verify
+        assertFalse(result.isValid());
+        assertFalse(result.getAnomalies().isEmpty());
+    }
+
+    @Test
+    void whenParameterTypeMismatch_thenReturnsError() throws Exception {
+        // Prepare test data
+        String request = """
+                {
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "param1",
+                            "value": "not-a-number"
+                        }
+                    ],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        String modelJson = """
+                {
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "param1",
+                            "types": ["Int"],
+                            "required": true
+                        }
+                    ],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        registerModel(modelJson);
+
+        // Configure mocks
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+        stubValueTypes(ParameterType.STRING.getBit());
+
+        // Execute
+        ValidationResultDTO result = validationService.validateRequest(request);
+
+        // Verify
+        assertFalse(result.isValid());
+        assertTrue(result.getAnomalies().containsKey("query_params.param1"));
+    }
+
+    @Test
+    void whenMissingRequiredParameter_thenReturnsError() throws Exception {
+        // Prepare test data
+        String request = """
+                {
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        String modelJson = """
+                {
+                    "path": "/test",
+                    "method": "GET",
+                    "query_params": [
+                        {
+                            "name": "required_param",
+                            "types": ["String"],
+                            "required": true
+                        }
+                    ],
+                    "headers": [],
+                    "body": []
+                }""";
+
+        registerModel(modelJson);
+
+        // Configure mocks
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+
+        // Execute
+        ValidationResultDTO result = validationService.validateRequest(request);
+
+        // Verify
+        assertFalse(result.isValid());
+        assertTrue(result.getAnomalies().containsKey("query_params.required_param"));
+        assertEquals("Required parameter is missing",
+                result.getAnomalies().get("query_params.required_param"));
+    }
+
+    @Test
+    void whenRequestRepeatsParameter_thenReportsDuplicate() throws Exception {
+        registerModel("""
+                {"path": "/test", "method": "GET",
+                 "query_params": [{"name": "a", "types": ["Int"], "required": true},
+                                  {"name": "b", "types": ["Int"], "required": true}]}""");
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+        stubValueTypes(ParameterType.STRING.getBit());
+
+        ValidationResultDTO result = validationService.validateRequest("""
+                {"path": "/test", "method": "GET",
+                 "query_params": [{"name": "a", "value": "x"}, {"name": "a", "value": 2}]}""");
+
+        // The duplicate does not replace the anomaly of the first occurrence
+        assertFalse(result.isValid());
+        assertEquals(Map.of("query_params.a", "Value '\"x\"' does not match any of the allowed types: [\"Int\"]",
+                "query_params.a#duplicate", "Duplicate parameter",
+                "query_params.b", "Required parameter is missing"), result.getAnomalies());
+        assertEquals(1, meterRegistry.get("validation.anomalies")
+                .tags("parameter", "a", "kind", "duplicate").counter().count());
+    }
+
+    @Test
+    void whenSectionHasManyParameters_thenEveryMissingRequiredParameterIsReported() throws Exception {
+        int count = 5_000;
+        StringBuilder model = new StringBuilder("{\"path\": \"/test\", \"method\": \"GET\", \"headers\": [");
+        StringBuilder request = new StringBuilder("{\"path\": \"/test\", \"method\": \"GET\", \"headers\": [");
+        for (int i = 0; i < count; i++) {
+            model.append(i > 0 ? ", " : "")
+                    .append("{\"name\": \"h").append(i).append("\", \"types\": [\"Int\"], \"required\": true}");
+            if (i % 2 == 0) {
+                request.append(i > 0 ? ", " : "").append("{\"name\": \"h").append(i).append("\", \"value\": 1}");
+            }
+        }
+        registerModel(model.append("]}").toString());
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+        stubValueTypes(ParameterType.INT.getBit());
+
+        ValidationResultDTO result = validationService.validateRequest(request.append("]}").toString());
+
+        assertEquals(count / 2, result.getAnomalies().size());
+        assertEquals("Required parameter is missing", result.getAnomalies().get("headers.h1"));
+        assertFalse(result.getAnomalies().containsKey("headers.h0"));
+    }
+
+    @Test
+    void whenValidatingInFailFastMode_thenStopsAtFirstAnomalyWithoutReport() throws Exception {
+        registerModel("""
+                {"path": "/test", "method": "GET",
+                 "query_params": [{"name": "a", "types": ["Int"], "required": true},
+                                  {"name": "b", "types": ["Int"], "required": true}]}""");
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+        stubValueTypes(ParameterType.STRING.getBit());
+        byte[] request = """
+                {"path": "/test", "method": "GET",
+                 "query_params": [{"name": "a", "value": "x"}, {"name": "b", "value": "y"}]}"""
+                .getBytes(StandardCharsets.UTF_8);
+
+        ValidationResultDTO full = validationService.validateRequest(
+                new ByteArrayInputStream(request), RequestFormat.JSON, false);
+        ValidationResultDTO fast = validationService.validateRequest(
+                new ByteArrayInputStream(request), RequestFormat.JSON, true);
+
+        assertFalse(full.isValid());
+        assertEquals(2, full.getAnomalies().size());
+        assertFalse(fast.isValid());
+        assertTrue(fast.getAnomalies().isEmpty());
+        verify(typeValidator, times(3)).matches(any(), any());
+    }
+
+    @Test
+    void whenVerdictCacheIsEnabled_thenIdenticalRequestsAreValidatedOncePerModelVersion() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getCache().setEnabled(true);
+        ValidationService cachingService = validationService(properties);
+        String modelJson = """
+                {"path": "/test", "method": "GET",
+                 "query_params": [{"name": "a", "types": ["Int"], "required": true}]}""";
+        registerModel(modelJson);
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+        stubValueTypes(ParameterType.INT.getBit());
+        byte[] request = """
+                {"path": "/test", "method": "GET", "query_params": [{"name": "a", "value": 1}]}"""
+                .getBytes(StandardCharsets.UTF_8);
+
+        ValidationResultDTO first = cachingService.validateRequest(new ByteArrayInputStream(request));
+        ValidationResultDTO second = cachingService.validateRequest(new ByteArrayInputStream(request));
+        registerModel(modelJson);
+        ValidationResultDTO third = cachingService.validateRequest(new ByteArrayInputStream(request));
+
+        assertTrue(first.isValid());
+        assertNotSame(first, second);
+        assertTrue(second.isValid());
+        assertEquals(first.getModelVersion(), second.getModelVersion());
+        assertEquals(first.getModelVersion() + 1, third.getModelVersion());
+        verify(typeValidator, times(2)).matches(any(), any());
+        assertEquals(1, meterRegistry.get("validation.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void whenRequestFailsAgainstItsModel_thenPublishesAnomalyEvent() throws Exception {
+        AnomalyEventPublisher publisher = mock(AnomalyEventPublisher.class);
+        ValidationProperties properties = new ValidationProperties();
+        ValidationService publishingService = validationService(properties, publisher);
+        registerModel("""
+                {"path": "/users/{id}", "method": "GET",
+                 "query_params": [{"name": "a", "types": ["Int"], "required": true}]}""");
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+        stubValueTypes(ParameterType.INT.getBit());
+
+        publishingService.validateRequest("""
+                {"path": "/users/7", "method": "GET", "query_params": [{"name": "a", "value": 1}]}""");
+        publishingService.validateRequest("""
+                {"path": "/orders", "method": "GET", "query_params": []}""");
+        ValidationResultDTO invalid = publishingService.validateRequest("""
+                {"path": "/users/7", "method": "GET", "query_params": []}""");
+
+        assertFalse(invalid.isValid());
+        verify(publisher).publish(invalid.getModelVersion(), "GET", "/users/7", "/users/{id}",
+                invalid.getAnomalies());
+        verifyNoMoreInteractions(publisher);
+    }
+
+    @Test
+    void whenRejectedRequestIsAnsweredFromCache_thenPublishesAnomalyEventAgain() throws Exception {
+        AnomalyEventPublisher publisher = mock(AnomalyEventPublisher.class);
+        ValidationProperties properties = new ValidationProperties();
+        properties.getCache().setEnabled(true);
+        ValidationService cachingService = validationService(properties, publisher);
+        registerModel("""
+                {"path": "/users/{id}", "method": "GET",
+                 "query_params": [{"name": "a", "types": ["Int"], "required": true}]}""");
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+        byte[] request = """
+                {"path": "/users/7", "method": "GET", "query_params": []}""".getBytes(StandardCharsets.UTF_8);
+
+        ValidationResultDTO first = cachingService.validateRequest(new ByteArrayInputStream(request));
+        ValidationResultDTO second = cachingService.validateRequest(new ByteArrayInputStream(request));
+
+        assertNotSame(first, second);
+        assertFalse(second.isValid());
+        assertEquals(first.getAnomalies(), second.getAnomalies());
+        assertEquals(1, meterRegistry.get("validation.cache.requests").tag("result", "hit").counter().count());
+        verify(publisher, times(2)).publish(first.getModelVersion(), "GET", "/users/7", "/users/{id}",
+                first.getAnomalies());
+        verifyNoMoreInteractions(publisher);
+    }
+
+    /**
+     * Metrics Tests
+     */
+    @Test
+    void whenValidatingRequest_thenRecordsPhasesAndAnomalies() throws Exception {
+        registerModel("""
+                {"path": "/users/{id}", "method": "GET",
+                 "query_params": [{"name": "id", "types": ["Int"], "required": true},
+                                  {"name": "name", "types": ["String"], "required": true}]}""");
+        when(requestValidator.validateRequest(any(JsonNode.class))).thenReturn(new HashMap<>());
+        stubValueTypes(ParameterType.STRING.getBit());
+
+        validationService.validateRequest("""
+                {"path": "/users/7", "method": "GET",
+                 "query_params": [{"name": "id", "value": "x"}, {"name": "extra", "value": 1}]}""");
+        validationService.validateRequest("""
+                {"path": "/unknown", "method": "GET"}""");
+
+        for (String phase : List.of("parse", "structure", "lookup", "type_check")) {
+            assertEquals(1, meterRegistry.get("validation.phase")
+                    .tags("phase", phase, "method", "GET", "path", "/users/{id}").timer().count(), phase);
+        }
+        assertEquals(1, meterRegistry.get("validation.phase")
+                .tags("phase", "lookup", "method", "UNMATCHED", "path", "UNMATCHED").timer().count());
+        assertEquals(1, meterRegistry.get("validation.anomalies")
+                .tags("path", "/users/{id}", "section", "query_params", "parameter", "id", "kind", "type_mismatch")
+                .counter().count());
+        assertEquals(1, meterRegistry.get("validation.anomalies")
+                .tags("parameter", "name", "kind", "missing").counter().count());
+        assertEquals(1, meterRegistry.get("validation.anomalies")
+                .tags("parameter", "UNDECLARED", "kind", "unexpected").counter().count());
+    }
+}
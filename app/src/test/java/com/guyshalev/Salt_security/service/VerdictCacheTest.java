@@ -0,0 +1,234 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.config.ValidationProperties;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.VerdictCache.Verdict;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for VerdictCache.
+ * Uses a manual clock to expire entries and plain snapshots to switch model versions.
+ */
+class VerdictCacheTest {
+
+    private static final ModelSnapshot VERSION_1 = new ModelSnapshot(1, Map.of());
+    private static final ModelSnapshot VERSION_2 = new ModelSnapshot(2, Map.of());
+
+    private SimpleMeterRegistry meterRegistry;
+    private ValidationProperties properties;
+    private long now;
+    private VerdictCache cache;
+
+    private static byte[] request(String path) {
+        return ("{\"path\": \"" + path + "\", \"method\": \"GET\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Verdict verdict(long version) {
+        return Verdict.of(new ValidationResultDTO(true, Map.of(), version), null);
+    }
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ValidationProperties();
+        properties.getCache().setEnabled(true);
+        properties.getCache().setMaxSize(2);
+        properties.getCache().setTtl(Duration.ofSeconds(10));
+        properties.getCache().setMaxRequestBytes(100);
+        cache = new VerdictCache(meterRegistry, properties, () -> now);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("validation.cache.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    void whenRequestIsIdentical_thenReturnsCachedResult() {
+        Verdict verdict = verdict(1);
+        cache.put(VERSION_1, request("/a"), RequestFormat.JSON, false, verdict);
+
+        assertSame(verdict, cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false));
+        assertNull(cache.get(VERSION_1, request("/b"), RequestFormat.JSON, false));
+        assertNull(cache.get(VERSION_1, request("/a"), RequestFormat.CBOR, false));
+        assertNull(cache.get(VERSION_1, request("/a"), RequestFormat.JSON, true));
+        assertEquals(1, count("hit"));
+        assertEquals(3, count("miss"));
+    }
+
+    @Test
+    void whenModelVersionChanges_thenCachedResultsAreDropped() {
+        cache.put(VERSION_1, request("/a"), RequestFormat.JSON, false, verdict(1));
+
+        assertNull(cache.get(VERSION_2, request("/a"), RequestFormat.JSON, false));
+        assertEquals(0, cache.size());
+
+        // A request still running on the old version neither reads nor fills the new cache
+        cache.put(VERSION_1, request("/a"), RequestFormat.JSON, false, verdict(1));
+        assertNull(cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void whenSnapshotDiffersButHasSameVersion_thenCachedResultsAreNotShared() {
+        ModelSnapshot candidate = new ModelSnapshot(1, Map.of());
+        cache.put(VERSION_1, request("/a"), RequestFormat.JSON, false, verdict(1));
+
+        assertNull(cache.get(candidate, request("/a"), RequestFormat.JSON, false));
+        cache.put(candidate, request("/b"), RequestFormat.JSON, false, verdict(1));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false));
+    }
+
+    @Test
+    void whenRequestsRaceOnTwoVersions_thenNewerCacheIsKept() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                ModelSnapshot snapshot = i % 2 == 0 ? VERSION_1 : VERSION_2;
+                requests.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        cache.put(snapshot, request("/a"), RequestFormat.JSON, false, verdict(snapshot.getVersion()));
+                    }
+                }));
+            }
+            for (Future<?> request : requests) {
+                request.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertNull(cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false));
+        assertEquals(2, cache.get(VERSION_2, request("/a"), RequestFormat.JSON, false).result().getModelVersion());
+    }
+
+    @Test
+    void whenTtlElapses_thenEntryExpires() {
+        cache.put(VERSION_1, request("/a"), RequestFormat.JSON, false, verdict(1));
+
+        now += TimeUnit.SECONDS.toNanos(9);
+        assertNotNull(cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false));
+        now += TimeUnit.SECONDS.toNanos(1);
+        assertNull(cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void whenCacheIsFull_thenLeastRecentlyUsedEntryIsEvicted() {
+        cache.put(VERSION_1, request("/a"), RequestFormat.JSON, false, verdict(1));
+        cache.put(VERSION_1, request("/b"), RequestFormat.JSON, false, verdict(1));
+        cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false);
+        cache.put(VERSION_1, request("/c"), RequestFormat.JSON, false, verdict(1));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false));
+        assertNull(cache.get(VERSION_1, request("/b"), RequestFormat.JSON, false));
+        assertNotNull(cache.get(VERSION_1, request("/c"), RequestFormat.JSON, false));
+    }
+
+    @Test
+    void whenCacheIsSegmented_thenEverySegmentKeepsItsShareOfTheMaximumSize() {
+        properties.getCache().setMaxSize(1_024);
+        properties.getCache().setMaxRequestBytes(1_000);
+        VerdictCache segmented = new VerdictCache(meterRegistry, properties, () -> now);
+        for (int i = 0; i < 10_000; i++) {
+            segmented.put(VERSION_1, request("/" + i), RequestFormat.JSON, false, verdict(1));
+        }
+
+        assertTrue(segmented.size() <= 1_024, "size " + segmented.size());
+        assertTrue(segmented.size() > 1_024 * 3 / 4, "size " + segmented.size());
+        assertNotNull(segmented.get(VERSION_1, request("/9999"), RequestFormat.JSON, false));
+    }
+
+    @Test
+    void whenCachedResultIsModified_thenLaterHitsAreUnaffected() {
+        ValidationResultDTO result = new ValidationResultDTO(false, new HashMap<>(Map.of("query.id", "Missing")), 1);
+        cache.put(VERSION_1, request("/a"), RequestFormat.JSON, false, Verdict.of(result, null));
+        result.getAnomalies().clear();
+
+        ValidationResultDTO hit = cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false).result();
+        hit.setValid(true);
+        assertThrows(UnsupportedOperationException.class, () -> hit.getAnomalies().clear());
+
+        ValidationResultDTO again = cache.get(VERSION_1, request("/a"), RequestFormat.JSON, false).result();
+        assertNotSame(hit, again);
+        assertFalse(again.isValid());
+        assertEquals(Map.of("query.id", "Missing"), again.getAnomalies());
+    }
+
+    @Test
+    void whenRequestsHitConcurrently_thenEveryLookupFindsItsOwnResult() throws Exception {
+        int threads = 8;
+        int requests = 256;
+        properties.getCache().setMaxSize(4_096);
+        properties.getCache().setMaxRequestBytes(1_000);
+        VerdictCache segmented = new VerdictCache(meterRegistry, properties, () -> now);
+        for (int i = 0; i < requests; i++) {
+            segmented.put(VERSION_1, request("/" + i), RequestFormat.JSON, false, verdict(i));
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> lookups = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                lookups.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        int i = j % requests;
+                        Verdict hit = segmented.get(VERSION_1, request("/" + i), RequestFormat.JSON, false);
+                        assertEquals(i, hit.result().getModelVersion());
+                    }
+                }));
+            }
+            for (Future<?> lookup : lookups) {
+                lookup.get();
+            }
+        }
+
+        assertEquals(threads * 10_000, count("hit"));
+        assertEquals(0, count("miss"));
+        assertEquals(requests, segmented.size());
+    }
+
+    @Test
+    void whenRequestIsTooLargeOrCacheDisabled_thenNothingIsCached() {
+        byte[] large = request("/" + "x".repeat(100));
+        cache.put(VERSION_1, large, RequestFormat.JSON, false, verdict(1));
+        assertNull(cache.get(VERSION_1, large, RequestFormat.JSON, false));
+        assertEquals(0, cache.size());
+
+        properties.getCache().setEnabled(false);
+        VerdictCache disabled = new VerdictCache(new SimpleMeterRegistry(), properties);
+        assertFalse(disabled.isEnabled());
+        disabled.put(VERSION_1, request("/a"), RequestFormat.JSON, false, verdict(1));
+        assertNull(disabled.get(VERSION_1, request("/a"), RequestFormat.JSON, false));
+    }
+
+    @Test
+    void whenFingerprintingBytes_thenEveryByteMatters() {
+        byte[] bytes = new byte[37];
+        long fingerprint = VerdictCache.fingerprint(bytes);
+        assertEquals(fingerprint, VerdictCache.fingerprint(bytes.clone()));
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] changed = bytes.clone();
+            changed[i] = 1;
+            assertNotEquals(fingerprint, VerdictCache.fingerprint(changed), "byte " + i);
+        }
+        assertNotEquals(fingerprint, VerdictCache.fingerprint(new byte[36]));
+    }
+}
@@ -0,0 +1,41 @@
+package com.guyshalev.Salt_security.model.compiled;
+
+import lombok.Getter;
+
+/**
+ * Immutable validator form of a stored model, keyed by its method and path.
+ * A section is null when the model does not declare it, in which case that section is not validated.
+ */
+@Getter
+public class CompiledModel {
+
+    private final String path;
+    private final String method;
+    private final CompiledSection queryParams;
+    private final CompiledSection headers;
+    private final CompiledSection body;
+
+    public CompiledModel(String path, String method,
+                         CompiledSection queryParams, CompiledSection headers, CompiledSection body) {
+        this.path = path;
+        this.method = method;
+        this.queryParams = queryParams;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * Returns the compiled section with the given name.
+     *
+     * @param section The section name (query_params, headers, or body)
+     * @return The compiled section, or null if the model does not declare it
+     */
+    public CompiledSection getSection(String section) {
+        return switch (section) {
+            case "query_params" -> queryParams;
+            case "headers" -> headers;
+            case "body" -> body;
+            default -> null;
+        };
+    }
+}
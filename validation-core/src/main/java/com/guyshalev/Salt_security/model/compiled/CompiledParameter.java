@@ -0,0 +1,74 @@
+package com.guyshalev.Salt_security.model.compiled;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Immutable, pre-parsed form of a single model parameter definition.
+ * Built once when models are saved so that request validation never has to re-read the model JSON.
+ */
+@Getter
+public class CompiledParameter {
+
+    private final String name;
+    /** Position of the parameter in its section, used to track which parameters a request contains. */
+    private final int index;
+    private final List<String> types;
+    private final int typeMask;
+    private final boolean required;
+    private final String typesDescription;
+    /** The fields of an object value, or null if they are not checked. */
+    private final CompiledSection fields;
+    /** The definition every element of a list value must match, or null if elements are not checked. */
+    private final CompiledParameter items;
+    /** The allowed custom types, which a textual value may match instead of one of the built-in types. */
+    private final List<CustomType> customTypes;
+
+    public CompiledParameter(String name, int index, List<String> types, boolean required,
+                             String typesDescription, CompiledSection fields, CompiledParameter items,
+                             List<CustomType> customTypes) {
+        this.name = name;
+        this.index = index;
+        this.types = List.copyOf(types);
+        this.typeMask = ParameterType.maskOf(types);
+        this.required = required;
+        this.typesDescription = typesDescription;
+        this.fields = fields;
+        this.items = items;
+        this.customTypes = List.copyOf(customTypes);
+    }
+
+    /**
+     * @return true if the contents of object or list values are checked against a nested schema
+     */
+    public boolean isNested() {
+        return fields != null || items != null;
+    }
+
+    /**
+     * Checks a value's type mask, as produced by {@code TypeValidator.classify}, against the allowed
+     * built-in types.
+     *
+     * @param valueMask The mask of all types the value satisfies
+     * @return true if the value satisfies at least one allowed built-in type
+     */
+    public boolean accepts(int valueMask) {
+        return (valueMask & typeMask) != 0;
+    }
+
+    /**
+     * Checks a text against the allowed custom types.
+     *
+     * @param text The textual value
+     * @return true if the text matches at least one allowed custom type
+     */
+    public boolean acceptsCustom(String text) {
+        for (CustomType type : customTypes) {
+            if (type.matches(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
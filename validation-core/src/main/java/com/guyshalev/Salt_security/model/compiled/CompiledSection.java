@@ -0,0 +1,59 @@
+package com.guyshalev.Salt_security.model.compiled;
+
+import lombok.Getter;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup tables for one parameter section (query_params, headers or body) of a model.
+ * Every parameter has an index within the section, so the parameters present in a request can be tracked
+ * in a bit set and the required parameters checked in a single pass.
+ */
+@Getter
+public class CompiledSection {
+
+    private final String name;
+    private final Map<String, CompiledParameter> parameters;
+    private final List<CompiledParameter> requiredParameters;
+    private final int parameterCount;
+
+    /**
+     * @param name The section name
+     * @param parameters The section's parameters, each at the position of its index
+     */
+    public CompiledSection(String name, List<CompiledParameter> parameters) {
+        Map<String, CompiledParameter> byName = new HashMap<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            CompiledParameter parameter = parameters.get(i);
+            if (parameter.getIndex() != i || byName.put(parameter.getName(), parameter) != null) {
+                throw new IllegalArgumentException("Parameters of section '" + name
+                        + "' must have unique names and consecutive indices");
+            }
+        }
+        this.name = name;
+        // Not Map.copyOf: its open addressing keeps the raw hash codes, and similar names such as p1, p2, ...
+        // have consecutive hash codes that pile up into long probe sequences. HashMap spreads them.
+        this.parameters = Collections.unmodifiableMap(byName);
+        this.requiredParameters = parameters.stream()
+                .filter(CompiledParameter::isRequired)
+                .toList();
+        this.parameterCount = parameters.size();
+    }
+
+    public CompiledParameter getParameter(String parameterName) {
+        return parameters.get(parameterName);
+    }
+
+    /**
+     * Creates an empty set of present parameters for one request.
+     *
+     * @return A bit set sized for the section's parameter indices
+     */
+    public BitSet newPresenceSet() {
+        return new BitSet(parameterCount);
+    }
+}
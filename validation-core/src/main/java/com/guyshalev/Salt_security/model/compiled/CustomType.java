@@ -0,0 +1,77 @@
+package com.guyshalev.Salt_security.model.compiled;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * A user-defined parameter type: a name and a pattern compiled into a deterministic finite automaton.
+ * The characters a pattern distinguishes are partitioned into classes, and the automaton has one transition
+ * per state and class, so matching reads every character of a value once and never backtracks.
+ */
+public class CustomType {
+
+    private static final int ASCII = 128;
+
+    @Getter
+    private final String name;
+    @Getter
+    private final String pattern;
+    @Getter
+    private final int stateCount;
+    // First character of every character class, in ascending order starting at 0
+    private final char[] classStarts;
+    private final short[] asciiClasses;
+    // Next state by (state * class count + class), -1 for the dead state
+    private final int[] transitions;
+    private final boolean[] accepting;
+
+    /**
+     * @param name The type name, as used in model definitions
+     * @param pattern The source pattern
+     * @param classStarts The first character of every character class, ascending and starting at 0
+     * @param transitions The next state of every state and class, or -1 if no match is possible; state 0 is
+     *                    the start state
+     * @param accepting Whether each state accepts
+     */
+    public CustomType(String name, String pattern, char[] classStarts, int[] transitions, boolean[] accepting) {
+        if (classStarts.length == 0 || classStarts[0] != 0
+                || transitions.length != accepting.length * classStarts.length) {
+            throw new IllegalArgumentException("Inconsistent automaton for type '" + name + "'");
+        }
+        this.name = name;
+        this.pattern = pattern;
+        this.stateCount = accepting.length;
+        this.classStarts = classStarts.clone();
+        this.transitions = transitions.clone();
+        this.accepting = accepting.clone();
+        this.asciiClasses = new short[ASCII];
+        for (char c = 0; c < ASCII; c++) {
+            asciiClasses[c] = (short) classOf(c);
+        }
+    }
+
+    /**
+     * Checks whether the whole text matches the pattern, in time linear in its length.
+     *
+     * @param text The text to match
+     * @return true if the text matches
+     */
+    public boolean matches(CharSequence text) {
+        int classCount = classStarts.length;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            state = transitions[state * classCount + (c < ASCII ? asciiClasses[c] : classOf(c))];
+            if (state < 0) {
+                return false;
+            }
+        }
+        return accepting[state];
+    }
+
+    private int classOf(char c) {
+        int position = Arrays.binarySearch(classStarts, c);
+        return position >= 0 ? position : -position - 2;
+    }
+}
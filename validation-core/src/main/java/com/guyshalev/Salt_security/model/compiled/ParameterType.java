@@ -0,0 +1,61 @@
+package com.guyshalev.Salt_security.model.compiled;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The parameter types a model may declare, each with its own bit so that a set of types fits in one int mask.
+ */
+@Getter
+public enum ParameterType {
+    INT("Int"),
+    STRING("String"),
+    BOOLEAN("Boolean"),
+    LIST("List"),
+    DATE("Date"),
+    EMAIL("Email"),
+    UUID("UUID"),
+    AUTH_TOKEN("Auth-Token"),
+    OBJECT("Object");
+
+    private static final List<String> NAMES = Arrays.stream(values())
+            .map(ParameterType::getTypeName)
+            .toList();
+
+    private final String typeName;
+    private final int bit;
+
+    ParameterType(String typeName) {
+        this.typeName = typeName;
+        this.bit = 1 << ordinal();
+    }
+
+    /**
+     * Returns the names of all types, as used in model definitions.
+     *
+     * @return The type names in declaration order
+     */
+    public static List<String> names() {
+        return NAMES;
+    }
+
+    /**
+     * Builds the mask of the given type names. Unknown names do not contribute a bit.
+     *
+     * @param typeNames The type names, as used in model definitions
+     * @return The combined mask
+     */
+    public static int maskOf(Iterable<String> typeNames) {
+        int mask = 0;
+        for (String typeName : typeNames) {
+            for (ParameterType type : values()) {
+                if (type.typeName.equals(typeName)) {
+                    mask |= type.bit;
+                }
+            }
+        }
+        return mask;
+    }
+}
@@ -12,4 +12,5 @@ import java.util.Map;
 public class ValidationResultDTO {
     private boolean valid;
     private Map<String, String> anomalies;
+    private long modelVersion;
 }
@@ -0,0 +1,28 @@
+package com.guyshalev.Salt_security.service;
+
+import java.util.Map;
+
+/**
+ * Receives every request that was validated against a model and did not match it.
+ * Called on the validating thread, so implementations should hand the anomalies off rather than process them.
+ */
+@FunctionalInterface
+public interface AnomalyPublisher {
+
+    /**
+     * Publisher that discards everything.
+     */
+    AnomalyPublisher NONE = (modelVersion, method, path, modelPath, anomalies) -> {
+    };
+
+    /**
+     * Publishes the anomalies of a rejected request.
+     *
+     * @param modelVersion The version of the model set the request was validated against
+     * @param method The request method
+     * @param path The request path
+     * @param modelPath The path of the matched model
+     * @param anomalies The anomalies, keyed by section and parameter
+     */
+    void publish(long modelVersion, String method, String path, String modelPath, Map<String, String> anomalies);
+}
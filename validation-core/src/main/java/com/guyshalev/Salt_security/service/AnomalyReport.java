@@ -0,0 +1,144 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.TypeValidator.SchemaViolation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects the anomalies found in a single request.
+ * In fail-fast mode the report only keeps the first anomaly, under its key and a fixed message naming its kind, so
+ * that it can be published; no other keys or messages are built, and validation stops as soon as
+ * {@link #isDecided()} returns true.
+ */
+final class AnomalyReport {
+
+    private final boolean failFast;
+    private final Map<String, String> anomalies;
+    private boolean found;
+    /** The key and kind of the first anomaly, kept in fail-fast mode only */
+    private String firstKey;
+    private String firstKind;
+
+    AnomalyReport(boolean failFast) {
+        this.failFast = failFast;
+        this.anomalies = failFast ? null : new HashMap<>();
+    }
+
+    /**
+     * @return true if the request is already known to be invalid and no further anomalies are needed
+     */
+    boolean isDecided() {
+        return failFast && found;
+    }
+
+    /**
+     * Adds an anomaly of a parameter.
+     *
+     * @param section The section the parameter belongs to
+     * @param parameter The parameter name
+     * @param message The anomaly description
+     */
+    void add(String section, String parameter, String message) {
+        if (anomalies != null) {
+            anomalies.put(section + "." + parameter, message);
+        } else {
+            first(section, parameter, message);
+        }
+        found = true;
+    }
+
+    /**
+     * Adds a repeated occurrence of a declared parameter. It is reported under its own key, the parameter's key
+     * followed by {@code #duplicate}, so that it does not replace the anomaly found in the first occurrence.
+     *
+     * @param section The section the parameter belongs to
+     * @param parameter The parameter name
+     */
+    void duplicate(String section, String parameter) {
+        add(section, parameter + "#duplicate", "Duplicate parameter");
+    }
+
+    /**
+     * Adds a parameter whose value does not match any of the declared types.
+     *
+     * @param section The section the parameter belongs to
+     * @param modelParam The parameter definition
+     * @param value The request value
+     */
+    void typeMismatch(String section, CompiledParameter modelParam, JsonNode value) {
+        if (anomalies != null) {
+            anomalies.put(section + "." + modelParam.getName(), String.format(
+                    "Value '%s' does not match any of the allowed types: %s",
+                    value.toString(),
+                    modelParam.getTypesDescription()
+            ));
+        } else {
+            first(section, modelParam.getName(), "Value does not match any of the allowed types");
+        }
+        found = true;
+    }
+
+    /**
+     * Adds a parameter whose value does not match the nested schema of its definition.
+     *
+     * @param section The section the parameter belongs to
+     * @param modelParam The parameter definition
+     * @param violation The first place where the value does not match
+     */
+    void schemaViolation(String section, CompiledParameter modelParam, SchemaViolation violation) {
+        if (anomalies != null) {
+            anomalies.put(section + "." + modelParam.getName(), violation.message());
+        } else {
+            first(section, modelParam.getName(), "Value does not match its schema");
+        }
+        found = true;
+    }
+
+    /**
+     * Keeps the first anomaly found in fail-fast mode.
+     */
+    private void first(String section, String parameter, String kind) {
+        if (!found) {
+            firstKey = section + "." + parameter;
+            firstKind = kind;
+        }
+    }
+
+    /**
+     * Builds the validation result.
+     *
+     * @param version The version of the model snapshot the request was validated against
+     * @return The result, with an empty anomaly map in fail-fast mode
+     */
+    ValidationResultDTO toResult(long version) {
+        return new ValidationResultDTO(!found, anomalies == null ? Map.of() : anomalies, version);
+    }
+
+    /**
+     * @return The anomalies to publish for a rejected request: all of them, or in fail-fast mode the first one,
+     * described by its kind
+     */
+    Map<String, String> toPublished() {
+        if (anomalies != null) {
+            return anomalies;
+        }
+        return firstKey == null ? Map.of() : Map.of(firstKey, firstKind);
+    }
+
+    /**
+     * Builds the result of a request that failed before its parameters were checked, such as a malformed
+     * request or one without a matching model.
+     *
+     * @param failFast Whether only the verdict is reported
+     * @param anomalies The anomalies explaining the failure
+     * @param version The version of the model snapshot the request was validated against
+     * @return The result, with an empty anomaly map in fail-fast mode
+     */
+    static ValidationResultDTO failed(boolean failFast, Map<String, String> anomalies, long version) {
+        return new ValidationResultDTO(false, failFast ? Map.of() : anomalies, version);
+    }
+}
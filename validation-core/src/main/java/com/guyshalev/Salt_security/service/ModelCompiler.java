@@ -0,0 +1,176 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.compiled.CompiledSection;
+import com.guyshalev.Salt_security.model.compiled.CustomType;
+import com.guyshalev.Salt_security.model.compiled.ParameterType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Component responsible for turning model JSON into immutable {@link CompiledModel} instances.
+ * Expects models that already passed {@code RequestValidator.validateModel}.
+ * Custom type names are resolved against the types registered at the time of compilation.
+ */
+public class ModelCompiler {
+
+    private final ObjectMapper objectMapper;
+    private final TypeRegistry typeRegistry;
+
+    public ModelCompiler(ObjectMapper objectMapper, TypeRegistry typeRegistry) {
+        this.objectMapper = objectMapper;
+        this.typeRegistry = typeRegistry;
+    }
+
+    /**
+     * Compiles a structurally valid model definition given as JSON, such as a stored model.
+     *
+     * @param jsonModel JSON string containing the model
+     * @return The compiled model
+     * @throws IllegalArgumentException if the JSON cannot be parsed or the model cannot be compiled
+     */
+    public CompiledModel compile(String jsonModel) {
+        JsonNode modelNode;
+        try {
+            modelNode = objectMapper.readTree(jsonModel);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to parse model: " + e.getOriginalMessage());
+        }
+        try {
+            return compile(modelNode);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Failed to compile model for path '" + modelNode.path("path").asText()
+                    + "' and method '" + modelNode.path("method").asText() + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compiles a structurally valid model definition.
+     *
+     * @param modelNode The model definition
+     * @return The compiled model
+     * @throws IllegalArgumentException if the model uses a custom type that is not registered
+     */
+    public CompiledModel compile(JsonNode modelNode) {
+        return new CompiledModel(
+                modelNode.get("path").asText(),
+                modelNode.get("method").asText(),
+                compileSection(modelNode, "query_params"),
+                compileSection(modelNode, "headers"),
+                compileSection(modelNode, "body"));
+    }
+
+    /**
+     * Resolves the custom types of a compiled model again, against the given types instead of the ones registered
+     * when it was compiled, without reading its definition again.
+     *
+     * @param model The compiled model
+     * @param types The custom types to resolve against, keyed by name
+     * @return The model with its custom types resolved against the given types
+     * @throws IllegalArgumentException if the model uses a custom type that is not among the given types
+     */
+    public CompiledModel rebind(CompiledModel model, Map<String, CustomType> types) {
+        try {
+            return new CompiledModel(model.getPath(), model.getMethod(),
+                    rebind(model.getQueryParams(), types),
+                    rebind(model.getHeaders(), types),
+                    rebind(model.getBody(), types));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Failed to compile model for path '" + model.getPath()
+                    + "' and method '" + model.getMethod() + "': " + e.getMessage());
+        }
+    }
+
+    private CompiledSection rebind(CompiledSection section, Map<String, CustomType> types) {
+        if (section == null) {
+            return null;
+        }
+        CompiledParameter[] parameters = new CompiledParameter[section.getParameterCount()];
+        for (CompiledParameter parameter : section.getParameters().values()) {
+            parameters[parameter.getIndex()] = rebind(parameter, types);
+        }
+        return new CompiledSection(section.getName(), List.of(parameters));
+    }
+
+    private CompiledParameter rebind(CompiledParameter parameter, Map<String, CustomType> types) {
+        if (parameter == null) {
+            return null;
+        }
+        List<CustomType> customTypes = new ArrayList<>();
+        for (String typeName : parameter.getTypes()) {
+            if (!ParameterType.names().contains(typeName)) {
+                CustomType customType = types.get(typeName);
+                if (customType == null) {
+                    throw new IllegalArgumentException("Unknown type '" + typeName + "'");
+                }
+                customTypes.add(customType);
+            }
+        }
+        return new CompiledParameter(parameter.getName(), parameter.getIndex(), parameter.getTypes(),
+                parameter.isRequired(), parameter.getTypesDescription(), rebind(parameter.getFields(), types),
+                rebind(parameter.getItems(), types), customTypes);
+    }
+
+    private CompiledSection compileSection(JsonNode modelNode, String section) {
+        JsonNode sectionNode = modelNode.get(section);
+        if (sectionNode == null || !sectionNode.isArray()) {
+            return null;
+        }
+        return compileParameters(section, sectionNode);
+    }
+
+    /**
+     * Compiles the parameters of a section, or the fields of an object parameter.
+     */
+    private CompiledSection compileParameters(String name, JsonNode parametersNode) {
+        // A parameter declared twice keeps its first position and its last definition
+        Map<String, JsonNode> definitions = new LinkedHashMap<>();
+        for (JsonNode param : parametersNode) {
+            definitions.put(param.get("name").asText(), param);
+        }
+
+        List<CompiledParameter> parameters = new ArrayList<>(definitions.size());
+        for (Map.Entry<String, JsonNode> definition : definitions.entrySet()) {
+            parameters.add(compileParameter(definition.getKey(), parameters.size(), definition.getValue()));
+        }
+        return new CompiledSection(name, parameters);
+    }
+
+    /**
+     * Compiles a parameter, field or list item definition together with its nested fields and items.
+     * List items have no name and are never required.
+     *
+     * @throws IllegalArgumentException if the definition uses a custom type that is not registered
+     */
+    private CompiledParameter compileParameter(String name, int index, JsonNode param) {
+        JsonNode typesNode = param.get("types");
+        List<String> types = new ArrayList<>(typesNode.size());
+        List<CustomType> customTypes = new ArrayList<>();
+        for (JsonNode type : typesNode) {
+            String typeName = type.asText();
+            types.add(typeName);
+            if (!ParameterType.names().contains(typeName)) {
+                CustomType customType = typeRegistry.find(typeName);
+                if (customType == null) {
+                    throw new IllegalArgumentException("Unknown type '" + typeName + "'");
+                }
+                customTypes.add(customType);
+            }
+        }
+
+        JsonNode fieldsNode = param.get("fields");
+        JsonNode itemsNode = param.get("items");
+        return new CompiledParameter(name, index, types, param.path("required").asBoolean(),
+                typesNode.toString(),
+                fieldsNode == null ? null : compileParameters(name, fieldsNode),
+                itemsNode == null ? null : compileParameter("items", 0, itemsNode),
+                customTypes);
+    }
+}
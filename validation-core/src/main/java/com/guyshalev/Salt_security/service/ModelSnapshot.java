@@ -0,0 +1,129 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable, versioned view of the complete model set.
+ * A snapshot is never modified once published; every change to the model set produces a new snapshot
+ * with a higher version, so a request validated against one snapshot sees a consistent set of models.
+ */
+public class ModelSnapshot {
+
+    static final ModelSnapshot EMPTY = new ModelSnapshot(0, Map.of());
+
+    @Getter
+    private final long version;
+    @Getter
+    private final int modelCount;
+    private final Map<String, PathTrie> triesByMethod;
+
+    ModelSnapshot(long version, Map<String, PathTrie> triesByMethod) {
+        this.version = version;
+        this.triesByMethod = Map.copyOf(triesByMethod);
+        this.modelCount = triesByMethod.values().stream().mapToInt(PathTrie::size).sum();
+    }
+
+    /**
+     * Builds a snapshot from the given models.
+     *
+     * @param version The version of the snapshot
+     * @param models The compiled models
+     * @return The snapshot
+     */
+    public static ModelSnapshot of(long version, Collection<CompiledModel> models) {
+        Map<String, List<CompiledModel>> byMethod = new HashMap<>();
+        for (CompiledModel model : models) {
+            byMethod.computeIfAbsent(model.getMethod(), method -> new ArrayList<>()).add(model);
+        }
+
+        Map<String, PathTrie> tries = new HashMap<>();
+        byMethod.forEach((method, methodModels) -> tries.put(method, PathTrie.of(methodModels)));
+        return new ModelSnapshot(version, tries);
+    }
+
+    /**
+     * Returns a snapshot with the same models and the given version.
+     */
+    ModelSnapshot withVersion(long newVersion) {
+        return new ModelSnapshot(newVersion, triesByMethod);
+    }
+
+    /**
+     * Returns a snapshot that also contains the given model, replacing the model registered for the same
+     * method and path. Only the trie of the model's method is copied, and only along the model's path.
+     */
+    ModelSnapshot with(CompiledModel model) {
+        Map<String, PathTrie> tries = new HashMap<>(triesByMethod);
+        tries.put(model.getMethod(), tries.getOrDefault(model.getMethod(), PathTrie.EMPTY).with(model));
+        return new ModelSnapshot(version, tries);
+    }
+
+    /**
+     * Returns a snapshot without the model registered for the given method and model path.
+     */
+    ModelSnapshot without(String method, String path) {
+        PathTrie trie = triesByMethod.get(method);
+        if (trie == null || trie.get(path) == null) {
+            return this;
+        }
+        Map<String, PathTrie> tries = new HashMap<>(triesByMethod);
+        PathTrie remaining = trie.without(path);
+        if (remaining.size() == 0) {
+            tries.remove(method);
+        } else {
+            tries.put(method, remaining);
+        }
+        return new ModelSnapshot(version, tries);
+    }
+
+    /**
+     * Returns a snapshot in which every model is replaced by the result of the given function.
+     */
+    ModelSnapshot map(UnaryOperator<CompiledModel> function) {
+        return of(version, models().stream().map(function).toList());
+    }
+
+    /**
+     * Returns all models of the snapshot.
+     *
+     * @return The models, in no particular order
+     */
+    public List<CompiledModel> models() {
+        List<CompiledModel> models = new ArrayList<>(modelCount);
+        triesByMethod.values().forEach(trie -> models.addAll(trie.models()));
+        return models;
+    }
+
+    /**
+     * Returns the model registered for exactly the given method and model path.
+     *
+     * @param method The HTTP method
+     * @param path The model path, with template segments written as in the model
+     * @return The registered compiled model, if any
+     */
+    public Optional<CompiledModel> get(String method, String path) {
+        PathTrie trie = triesByMethod.get(method);
+        return trie == null ? Optional.empty() : Optional.ofNullable(trie.get(path));
+    }
+
+    /**
+     * Finds the compiled model for the given method and concrete request path.
+     *
+     * @param method The HTTP method
+     * @param path The request path, matched against literal and template model paths
+     * @return The matching compiled model, if any
+     */
+    public Optional<CompiledModel> find(String method, String path) {
+        PathTrie trie = triesByMethod.get(method);
+        return trie == null ? Optional.empty() : Optional.ofNullable(trie.find(path));
+    }
+}
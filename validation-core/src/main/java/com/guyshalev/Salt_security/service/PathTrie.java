@@ -0,0 +1,248 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable segment trie that resolves a concrete request path to the model registered for it.
+ * Model paths may contain template segments such as {@code /users/{id}/orders}; a template segment matches
+ * any non-empty request segment. Literal segments take precedence over template segments, and the trie
+ * falls back to a template branch only when the literal branch has no match for the rest of the path.
+ * A lookup visits every trie node at most once, and at depth d at most 2^d nodes, one per choice of literal or
+ * template branch at each level above. A path of k segments that only matches through template branches after the
+ * literal branches fail deep down can therefore cost up to min(2^(k+1), trie nodes) hash lookups, which grows with
+ * the number of models sharing literal prefixes with the path. Without such backtracking, the cost is linear in k.
+ * The request path is split into segments once per lookup, however much the lookup backtracks.
+ * Adding or removing a single model copies only the nodes along its path and shares all other nodes
+ * with the original trie.
+ */
+public final class PathTrie {
+
+    static final PathTrie EMPTY = new PathTrie(Node.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PathTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Builds a trie from the given models. When two models share a path, the later one wins.
+     *
+     * @param models The models to index by path
+     * @return The trie
+     */
+    public static PathTrie of(Collection<CompiledModel> models) {
+        MutableNode root = new MutableNode();
+        for (CompiledModel model : models) {
+            MutableNode node = root;
+            for (String segment : segments(model.getPath())) {
+                node = node.child(segment);
+            }
+            node.model = model;
+        }
+        int[] size = new int[1];
+        return new PathTrie(root.freeze(size), size[0]);
+    }
+
+    /**
+     * Returns a trie that also contains the given model, replacing the model registered for the same path.
+     * This trie is left unchanged.
+     *
+     * @param model The model to add
+     * @return The new trie
+     */
+    public PathTrie with(CompiledModel model) {
+        boolean replaces = get(model.getPath()) != null;
+        return new PathTrie(put(root, segments(model.getPath()), 0, model), replaces ? size : size + 1);
+    }
+
+    /**
+     * Returns a trie without the model registered for the given model path. This trie is left unchanged.
+     *
+     * @param path The model path, with template segments written as in the model
+     * @return The new trie, or this trie if no model is registered for the path
+     */
+    public PathTrie without(String path) {
+        if (get(path) == null) {
+            return this;
+        }
+        Node newRoot = put(root, segments(path), 0, null);
+        return new PathTrie(newRoot == null ? Node.EMPTY : newRoot, size - 1);
+    }
+
+    /**
+     * Returns the model registered for exactly the given model path. Unlike {@link #find(String)}, template
+     * segments of the given path only match template segments of model paths.
+     *
+     * @param path The model path, with template segments written as in the model
+     * @return The registered model, or null if none is registered for the path
+     */
+    public CompiledModel get(String path) {
+        Node node = root;
+        for (String segment : segments(path)) {
+            node = isTemplate(segment) ? node.template : node.literals.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.model;
+    }
+
+    /**
+     * Returns all models in the trie.
+     *
+     * @return The models, in no particular order
+     */
+    public List<CompiledModel> models() {
+        List<CompiledModel> models = new ArrayList<>(size);
+        collect(root, models);
+        return models;
+    }
+
+    /**
+     * Returns the number of models in the trie.
+     *
+     * @return The number of models
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if a model path segment is a template segment, such as {@code {id}}.
+     *
+     * @param segment The path segment
+     * @return true if the segment is a template segment
+     */
+    public static boolean isTemplate(String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+    }
+
+    /**
+     * Normalizes a model path so that paths the trie cannot tell apart are equal. Template segments only
+     * differ in their names, so {@code /users/{id}} and {@code /users/{userId}} normalize to the same path.
+     *
+     * @param path The model path
+     * @return The path with every template segment replaced by {@code {}}
+     */
+    public static String normalize(String path) {
+        String[] segments = segments(path);
+        for (int i = 0; i < segments.length; i++) {
+            if (isTemplate(segments[i])) {
+                segments[i] = "{}";
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    /**
+     * Finds the model whose path matches the given request path.
+     *
+     * @param path The concrete request path
+     * @return The matching model, or null if none matches
+     */
+    public CompiledModel find(String path) {
+        return match(root, segments(path), 0);
+    }
+
+    private static void collect(Node node, List<CompiledModel> models) {
+        if (node.model != null) {
+            models.add(node.model);
+        }
+        for (Node literal : node.literals.values()) {
+            collect(literal, models);
+        }
+        if (node.template != null) {
+            collect(node.template, models);
+        }
+    }
+
+    private static String[] segments(String path) {
+        return path.split("/", -1);
+    }
+
+    /**
+     * Copies the nodes along the given segments, setting the model at the last one. Nodes left without
+     * a model or children are dropped.
+     */
+    private static Node put(Node node, String[] segments, int index, CompiledModel model) {
+        Node current = node == null ? Node.EMPTY : node;
+        Node updated;
+        if (index == segments.length) {
+            updated = new Node(current.literals, current.template, model);
+        } else if (isTemplate(segments[index])) {
+            updated = new Node(current.literals, put(current.template, segments, index + 1, model), current.model);
+        } else {
+            String segment = segments[index];
+            Node child = put(current.literals.get(segment), segments, index + 1, model);
+            Map<String, Node> literals = new HashMap<>(current.literals);
+            if (child == null) {
+                literals.remove(segment);
+            } else {
+                literals.put(segment, child);
+            }
+            updated = new Node(Map.copyOf(literals), current.template, current.model);
+        }
+        return updated.isEmpty() ? null : updated;
+    }
+
+    private static CompiledModel match(Node node, String[] segments, int index) {
+        String segment = segments[index];
+        boolean lastSegment = index == segments.length - 1;
+
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            CompiledModel model = lastSegment ? literal.model : match(literal, segments, index + 1);
+            if (model != null) {
+                return model;
+            }
+        }
+
+        if (node.template != null && !segment.isEmpty()) {
+            return lastSegment ? node.template.model : match(node.template, segments, index + 1);
+        }
+        return null;
+    }
+
+    private record Node(Map<String, Node> literals, Node template, CompiledModel model) {
+
+        private static final Node EMPTY = new Node(Map.of(), null, null);
+
+        private boolean isEmpty() {
+            return model == null && template == null && literals.isEmpty();
+        }
+    }
+
+    private static final class MutableNode {
+        private final Map<String, MutableNode> literals = new HashMap<>();
+        private MutableNode template;
+        private CompiledModel model;
+
+        private MutableNode child(String segment) {
+            if (isTemplate(segment)) {
+                if (template == null) {
+                    template = new MutableNode();
+                }
+                return template;
+            }
+            return literals.computeIfAbsent(segment, key -> new MutableNode());
+        }
+
+        private Node freeze(int[] size) {
+            Map<String, Node> frozenLiterals = new HashMap<>();
+            literals.forEach((segment, child) -> frozenLiterals.put(segment, child.freeze(size)));
+            if (model != null) {
+                size[0]++;
+            }
+            return new Node(Map.copyOf(frozenLiterals), template == null ? null : template.freeze(size), model);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.compiled.CompiledSection;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.TypeValidator.SchemaViolation;
+import com.guyshalev.Salt_security.service.ValidationObserver.AnomalyKind;
+import com.guyshalev.Salt_security.service.ValidationObserver.ModelObserver;
+import com.guyshalev.Salt_security.service.ValidationObserver.Phase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Validates API requests in a single pass over the JSON tokens, without building a tree for the whole request.
+ * Structural checks, model lookup and type checks happen while the request is read. Only parameter values are
+ * materialized, and parameters are buffered only when they appear before the request's path and method.
+ * Produces the same results as the tree-based validation in {@link ValidationEngine}.
+ * In fail-fast mode reading stops at the first anomaly, so the rest of the request is never parsed.
+ */
+public class StreamingRequestValidator {
+
+    private static final List<String> SECTIONS = List.of("query_params", "headers", "body");
+
+    private final ObjectMapper objectMapper;
+    private final TypeValidator typeValidator;
+    private final ValidationObserver validationObserver;
+    private final AnomalyPublisher anomalyPublisher;
+
+    public StreamingRequestValidator(ObjectMapper objectMapper, TypeValidator typeValidator,
+                                     ValidationObserver validationObserver,
+                                     AnomalyPublisher anomalyPublisher) {
+        this.objectMapper = objectMapper;
+        this.typeValidator = typeValidator;
+        this.validationObserver = validationObserver;
+        this.anomalyPublisher = anomalyPublisher;
+    }
+
+    /**
+     * Validates a JSON request against the models of the given snapshot.
+     *
+     * @param jsonRequest JSON string containing the request to validate
+     * @param snapshot The model snapshot to validate against
+     * @return The validation result, or empty if the request repeats a top-level field and
+     *         has to be validated on a JSON tree instead
+     * @throws IOException if the request is not valid JSON
+     */
+    public Optional<ValidationResultDTO> validate(String jsonRequest, ModelSnapshot snapshot) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(jsonRequest)) {
+            return validate(parser, snapshot);
+        }
+    }
+
+    /**
+     * Validates the request read from the given parser. The parser may read JSON or any binary format
+     * with the same data model, such as CBOR or Smile.
+     *
+     * @param parser Parser positioned before the request's first token
+     * @param snapshot The model snapshot to validate against
+     * @return The validation result, or empty if the request repeats a top-level field
+     * @throws IOException if the request is not valid JSON
+     */
+    public Optional<ValidationResultDTO> validate(JsonParser parser, ModelSnapshot snapshot) throws IOException {
+        return validate(parser, snapshot, false);
+    }
+
+    /**
+     * Validates the request read from the given parser, optionally stopping at the first anomaly.
+     * A request that is rejected early in fail-fast mode is not read to its end, so content after the
+     * first anomaly is not checked to be well-formed, and a top-level field repeated after it does not
+     * override the earlier occurrence.
+     *
+     * @param parser Parser positioned before the request's first token
+     * @param snapshot The model snapshot to validate against
+     * @param failFast Whether to stop at the first anomaly and report only the verdict
+     * @return The validation result, or empty if the request repeats a top-level field
+     * @throws IOException if the request is not valid JSON
+     */
+    public Optional<ValidationResultDTO> validate(JsonParser parser, ModelSnapshot snapshot, boolean failFast)
+            throws IOException {
+        return validate(parser, snapshot, failFast, anomalyPublisher);
+    }
+
+    /**
+     * Validates the request read from the given parser, passing a rejected request that matched a model to the
+     * given publisher instead of this validator's.
+     *
+     * @param parser Parser positioned before the request's first token
+     * @param snapshot The model snapshot to validate against
+     * @param failFast Whether to stop at the first anomaly and report only the verdict
+     * @param publisher Receives the anomalies of a rejected request
+     * @return The validation result, or empty if the request repeats a top-level field
+     * @throws IOException if the request is not valid JSON
+     */
+    public Optional<ValidationResultDTO> validate(JsonParser parser, ModelSnapshot snapshot, boolean failFast,
+                                                  AnomalyPublisher publisher) throws IOException {
+        return validate(parser, new RequestState(snapshot, failFast, publisher));
+    }
+
+    /**
+     * Validates the request read from the given parser and reports which model it was validated against,
+     * for callers that aggregate results per model.
+     *
+     * @param parser Parser positioned before the request's first token
+     * @param snapshot The model snapshot to validate against
+     * @param matchedModel Receives the model matching the request's method and path, or null if there is
+     *                     none; only called if a result is returned
+     * @return The validation result, or empty if the request repeats a top-level field
+     * @throws IOException if the request is not valid JSON
+     */
+    public Optional<ValidationResultDTO> validate(JsonParser parser, ModelSnapshot snapshot,
+                                                  Consumer<CompiledModel> matchedModel) throws IOException {
+        RequestState state = new RequestState(snapshot, false, anomalyPublisher);
+        Optional<ValidationResultDTO> result = validate(parser, state);
+        if (result.isPresent()) {
+            matchedModel.accept(state.model);
+        }
+        return result;
+    }
+
+    private Optional<ValidationResultDTO> validate(JsonParser parser, RequestState state) throws IOException {
+        ModelSnapshot snapshot = state.snapshot;
+        boolean failFast = state.failFast;
+
+        JsonToken rootToken = parser.nextToken();
+        if (rootToken != JsonToken.START_OBJECT) {
+            if (!failFast) {
+                parser.skipChildren();
+            }
+            state.structureErrors.put("root", "Must be a JSON object");
+            recordDuration(state, null);
+            return Optional.of(AnomalyReport.failed(failFast, state.structureErrors, snapshot.getVersion()));
+        }
+
+        Set<String> seenFields = new HashSet<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+
+            boolean tracked = field.equals("path") || field.equals("method") || SECTIONS.contains(field);
+            if (tracked && !seenFields.add(field)) {
+                // Repeated keys resolve to the last occurrence, which is only known once the whole tree is read
+                return Optional.empty();
+            }
+
+            switch (field) {
+                case "path" -> state.path = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "method" -> state.method = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "query_params", "headers", "body" -> readSection(parser, field, state);
+                default -> parser.skipChildren();
+            }
+
+            if (!state.modelLookedUp && state.path != null && state.method != null) {
+                state.model = snapshot.find(state.method, state.path).orElse(null);
+                state.modelLookedUp = true;
+            }
+            if (state.isDecided()) {
+                return Optional.of(reject(state));
+            }
+        }
+
+        return Optional.of(finish(state));
+    }
+
+    private void readSection(JsonParser parser, String section, RequestState state) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            state.structureErrors.put(section, "Must be an array");
+            return;
+        }
+
+        int index = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            String path = section + "[" + index++ + "]";
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                state.structureErrors.put(path, "Must be an object");
+            } else {
+                readParameter(parser, section, path, state);
+            }
+            if (state.isDecided()) {
+                return;
+            }
+        }
+    }
+
+    private void readParameter(JsonParser parser, String section, String path, RequestState state) throws IOException {
+        boolean hasName = false;
+        String name = null;
+        JsonNode value = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "name" -> {
+                    hasName = true;
+                    name = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    parser.skipChildren();
+                }
+                case "value" -> value = parser.readValueAsTree();
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (!hasName || name == null) {
+            state.structureErrors.put(path + ".name", "Required and must be a string");
+        }
+        if (value == null) {
+            state.structureErrors.put(path + ".value", "Required");
+        }
+        if (name == null || value == null || !state.structureErrors.isEmpty()) {
+            // Anomalies are discarded once the request is known to be malformed
+            return;
+        }
+
+        if (state.model != null) {
+            checkParameter(state, section, name, value);
+        } else if (!state.modelLookedUp) {
+            state.buffered.add(new BufferedParameter(section, name, value));
+        }
+    }
+
+    /**
+     * Ends a fail-fast validation that found an anomaly before the end of the request.
+     * Only parameter anomalies are counted and published, as the request is not known to be malformed.
+     */
+    private ValidationResultDTO reject(RequestState state) {
+        ModelObserver observer = recordDuration(state, state.structureErrors.isEmpty() ? state.model : null);
+        if (state.structureErrors.isEmpty()) {
+            countAnomalies(state, observer);
+            if (state.model != null) {
+                publish(state, state.anomalies.toPublished());
+            }
+        }
+        return new ValidationResultDTO(false, Map.of(), state.snapshot.getVersion());
+    }
+
+    private ValidationResultDTO finish(RequestState state) {
+        if (state.path == null) {
+            state.structureErrors.put("path", "Required and must be a string");
+        }
+        if (state.method == null) {
+            state.structureErrors.put("method", "Required and must be a string");
+        }
+        long version = state.snapshot.getVersion();
+        if (!state.structureErrors.isEmpty()) {
+            recordDuration(state, null);
+            return AnomalyReport.failed(state.failFast, state.structureErrors, version);
+        }
+
+        if (state.model == null) {
+            recordDuration(state, null);
+            return AnomalyReport.failed(state.failFast, Map.of("error",
+                    "No model found for path '" + state.path + "' and method '" + state.method + "'"), version);
+        }
+
+        for (BufferedParameter parameter : state.buffered) {
+            if (state.anomalies.isDecided()) {
+                break;
+            }
+            checkParameter(state, parameter.section(), parameter.name(), parameter.value());
+        }
+
+        for (String section : SECTIONS) {
+            CompiledSection modelSection = state.model.getSection(section);
+            if (modelSection == null || state.anomalies.isDecided()) {
+                continue;
+            }
+            BitSet present = state.present[SECTIONS.indexOf(section)];
+            for (CompiledParameter requiredParam : modelSection.getRequiredParameters()) {
+                if (present == null || !present.get(requiredParam.getIndex())) {
+                    state.anomalies.add(section, requiredParam.getName(), "Required parameter is missing");
+                    state.countedAnomalies.add(
+                            new CountedAnomaly(modelSection, requiredParam, AnomalyKind.MISSING));
+                    if (state.anomalies.isDecided()) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        countAnomalies(state, recordDuration(state, state.model));
+        ValidationResultDTO result = state.anomalies.toResult(version);
+        if (!result.isValid()) {
+            publish(state, state.anomalies.toPublished());
+        }
+        return result;
+    }
+
+    private void publish(RequestState state, Map<String, String> anomalies) {
+        state.publisher.publish(state.snapshot.getVersion(), state.method, state.path,
+                state.model.getPath(), anomalies);
+    }
+
+    private static void countAnomalies(RequestState state, ModelObserver observer) {
+        for (CountedAnomaly anomaly : state.countedAnomalies) {
+            if (anomaly.parameter() == null) {
+                observer.unexpected(anomaly.section());
+            } else {
+                observer.anomaly(anomaly.section(), anomaly.parameter(), anomaly.kind());
+            }
+        }
+    }
+
+    private ModelObserver recordDuration(RequestState state, CompiledModel model) {
+        ModelObserver observer = validationObserver.forModel(state.snapshot, model);
+        observer.record(Phase.STREAMING, System.nanoTime() - state.startNanos);
+        return observer;
+    }
+
+    private void checkParameter(RequestState state, String section, String name, JsonNode value) {
+        CompiledSection modelSection = state.model.getSection(section);
+        if (modelSection == null) {
+            return;
+        }
+        CompiledParameter modelParam = modelSection.getParameter(name);
+        if (modelParam == null) {
+            state.anomalies.add(section, name, "Unexpected parameter");
+            state.countedAnomalies.add(new CountedAnomaly(modelSection, null, AnomalyKind.UNEXPECTED));
+            return;
+        }
+
+        int sectionIndex = SECTIONS.indexOf(section);
+        BitSet present = state.present[sectionIndex];
+        if (present == null) {
+            present = modelSection.newPresenceSet();
+            state.present[sectionIndex] = present;
+        }
+        if (present.get(modelParam.getIndex())) {
+            state.anomalies.duplicate(section, name);
+            state.countedAnomalies.add(new CountedAnomaly(modelSection, modelParam, AnomalyKind.DUPLICATE));
+            return;
+        }
+        present.set(modelParam.getIndex());
+
+        if (!typeValidator.matches(value, modelParam)) {
+            state.countedAnomalies.add(new CountedAnomaly(modelSection, modelParam, AnomalyKind.TYPE_MISMATCH));
+            state.anomalies.typeMismatch(section, modelParam, value);
+            return;
+        }
+
+        SchemaViolation violation = typeValidator.checkSchema(value, modelParam);
+        if (violation != null) {
+            state.countedAnomalies.add(new CountedAnomaly(modelSection, modelParam, AnomalyKind.SCHEMA_MISMATCH));
+            state.anomalies.schemaViolation(section, modelParam, violation);
+        }
+    }
+
+    private record BufferedParameter(String section, String name, JsonNode value) {
+    }
+
+    /**
+     * An anomaly to count once the request is known to be well-formed; the parameter is null for
+     * parameters the model does not declare.
+     */
+    private record CountedAnomaly(CompiledSection section, CompiledParameter parameter, AnomalyKind kind) {
+    }
+
+    /**
+     * Mutable state of a single request while it is being read.
+     */
+    private static class RequestState {
+        private final ModelSnapshot snapshot;
+        private final boolean failFast;
+        private final AnomalyPublisher publisher;
+        private final Map<String, String> structureErrors = new HashMap<>();
+        private final AnomalyReport anomalies;
+        // Declared parameters seen so far, by section in the order of SECTIONS
+        private final BitSet[] present = new BitSet[SECTIONS.size()];
+        private final List<BufferedParameter> buffered = new ArrayList<>();
+        private final List<CountedAnomaly> countedAnomalies = new ArrayList<>();
+        private final long startNanos = System.nanoTime();
+        private String path;
+        private String method;
+        private boolean modelLookedUp;
+        private CompiledModel model;
+
+        private RequestState(ModelSnapshot snapshot, boolean failFast, AnomalyPublisher publisher) {
+            this.snapshot = snapshot;
+            this.failFast = failFast;
+            this.publisher = publisher;
+            this.anomalies = new AnomalyReport(failFast);
+        }
+
+        /**
+         * @return true if the request is already known to be invalid in fail-fast mode
+         */
+        private boolean isDecided() {
+            return failFast && (!structureErrors.isEmpty() || anomalies.isDecided()
+                    || (modelLookedUp && model == null));
+        }
+    }
+}
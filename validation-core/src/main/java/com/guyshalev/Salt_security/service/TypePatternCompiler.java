@@ -0,0 +1,582 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.model.compiled.CustomType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compiles the patterns of custom types into deterministic automata.
+ * Patterns use a regular subset of the {@code java.util.regex} syntax: literals, the escapes {@code \d \D \w
+ * \W \s \S \t \n \r \f \\uXXXX} and escaped punctuation, character classes with ranges and negation,
+ * {@code .}, groups, alternation and the greedy quantifiers {@code * + ? {n} {n,} {n,m}}. A pattern always
+ * matches the whole value, so a leading {@code ^} and a trailing {@code $} are accepted and ignored.
+ * Backreferences, lookaround, lazy and possessive quantifiers cannot be matched in linear time and are rejected.
+ * The pattern is turned into a nondeterministic automaton and then into a deterministic one by subset
+ * construction; both are size-limited, so compiling a hostile pattern fails instead of exhausting memory.
+ */
+public class TypePatternCompiler {
+
+    /** Default maximum length of a pattern. */
+    public static final int DEFAULT_MAX_PATTERN_LENGTH = 512;
+    /** Default maximum number of states of a compiled automaton. */
+    public static final int DEFAULT_MAX_STATES = 2_000;
+
+    private static final int MAX_CHAR = Character.MAX_VALUE;
+    private static final int MAX_REPEAT = 1000;
+    private static final int MAX_NFA_STATES = 10_000;
+
+    private static final int[] DIGIT = {'0', '9'};
+    private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+    private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+    private static final int[] DOT = complement(normalize(new int[]{'\n', '\n', '\r', '\r', 0x85, 0x85,
+            0x2028, 0x2029}));
+
+    private final int maxPatternLength;
+    private final int maxStates;
+
+    public TypePatternCompiler() {
+        this(DEFAULT_MAX_PATTERN_LENGTH, DEFAULT_MAX_STATES);
+    }
+
+    /**
+     * @param maxPatternLength Maximum length of a pattern
+     * @param maxStates Maximum number of states of the deterministic automaton a pattern compiles into
+     */
+    public TypePatternCompiler(int maxPatternLength, int maxStates) {
+        this.maxPatternLength = maxPatternLength;
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * Compiles a custom type.
+     *
+     * @param name The type name
+     * @param pattern The pattern values of the type must match
+     * @return The compiled type
+     * @throws IllegalArgumentException if the pattern is invalid, uses unsupported syntax or needs more
+     *                                  automaton states than allowed
+     */
+    public CustomType compile(String name, String pattern) {
+        if (pattern.length() > maxPatternLength) {
+            throw new IllegalArgumentException("Pattern of type '" + name + "' is longer than "
+                    + maxPatternLength + " characters");
+        }
+        Node root = new Parser(pattern).parse();
+        Nfa nfa = new Nfa();
+        Fragment fragment = nfa.build(root);
+        return toDfa(name, pattern, nfa, fragment);
+    }
+
+    private CustomType toDfa(String name, String pattern, Nfa nfa, Fragment fragment) {
+        char[] classStarts = classStarts(nfa);
+        int classCount = classStarts.length;
+        BitSet[] edgeClasses = new BitSet[nfa.size()];
+        for (int state = 0; state < nfa.size(); state++) {
+            int[] set = nfa.edgeSets.get(state);
+            if (set != null) {
+                edgeClasses[state] = new BitSet(classCount);
+                for (int c = 0; c < classCount; c++) {
+                    if (contains(set, classStarts[c])) {
+                        edgeClasses[state].set(c);
+                    }
+                }
+            }
+        }
+
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> states = new ArrayList<>();
+        BitSet start = new BitSet();
+        start.set(fragment.start);
+        nfa.close(start);
+        ids.put(start, 0);
+        states.add(start);
+
+        int[] transitions = new int[classCount * 16];
+        for (int current = 0; current < states.size(); current++) {
+            BitSet[] next = new BitSet[classCount];
+            BitSet members = states.get(current);
+            for (int state = members.nextSetBit(0); state >= 0; state = members.nextSetBit(state + 1)) {
+                BitSet classes = edgeClasses[state];
+                if (classes == null) {
+                    continue;
+                }
+                for (int c = classes.nextSetBit(0); c >= 0; c = classes.nextSetBit(c + 1)) {
+                    if (next[c] == null) {
+                        next[c] = new BitSet(nfa.size());
+                    }
+                    next[c].set(nfa.edgeTargets.get(state));
+                }
+            }
+
+            if (transitions.length < (current + 1) * classCount) {
+                transitions = Arrays.copyOf(transitions, transitions.length * 2);
+            }
+            for (int c = 0; c < classCount; c++) {
+                int target = -1;
+                if (next[c] != null) {
+                    nfa.close(next[c]);
+                    Integer id = ids.get(next[c]);
+                    if (id == null) {
+                        if (states.size() == maxStates) {
+                            throw new IllegalArgumentException("Pattern of type '" + name + "' needs more than "
+                                    + maxStates + " automaton states");
+                        }
+                        id = states.size();
+                        ids.put(next[c], id);
+                        states.add(next[c]);
+                    }
+                    target = id;
+                }
+                transitions[current * classCount + c] = target;
+            }
+        }
+
+        boolean[] accepting = new boolean[states.size()];
+        for (int i = 0; i < accepting.length; i++) {
+            accepting[i] = states.get(i).get(fragment.end);
+        }
+        return new CustomType(name, pattern, classStarts,
+                Arrays.copyOf(transitions, states.size() * classCount), accepting);
+    }
+
+    /**
+     * Partitions the characters into classes that every character set of the automaton either fully
+     * contains or does not intersect.
+     */
+    private static char[] classStarts(Nfa nfa) {
+        TreeSet<Integer> starts = new TreeSet<>();
+        starts.add(0);
+        for (int[] set : nfa.edgeSets) {
+            if (set == null) {
+                continue;
+            }
+            for (int i = 0; i < set.length; i += 2) {
+                starts.add(set[i]);
+                if (set[i + 1] < MAX_CHAR) {
+                    starts.add(set[i + 1] + 1);
+                }
+            }
+        }
+        char[] result = new char[starts.size()];
+        int i = 0;
+        for (int start : starts) {
+            result[i++] = (char) start;
+        }
+        return result;
+    }
+
+    // Character sets are sorted arrays of disjoint, inclusive [from, to] pairs
+
+    private static boolean contains(int[] set, int c) {
+        for (int i = 0; i < set.length; i += 2) {
+            if (c < set[i]) return false;
+            if (c <= set[i + 1]) return true;
+        }
+        return false;
+    }
+
+    private static int[] normalize(int[] ranges) {
+        int count = ranges.length / 2;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(ranges[2 * a], ranges[2 * b]));
+
+        int[] result = new int[ranges.length];
+        int size = 0;
+        for (int i : order) {
+            int from = ranges[2 * i];
+            int to = ranges[2 * i + 1];
+            if (size > 0 && from <= result[size - 1] + 1) {
+                result[size - 1] = Math.max(result[size - 1], to);
+            } else {
+                result[size++] = from;
+                result[size++] = to;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] all = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, all, a.length, b.length);
+        return normalize(all);
+    }
+
+    private static int[] complement(int[] set) {
+        int[] result = new int[set.length + 2];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < set.length; i += 2) {
+            if (set[i] > next) {
+                result[size++] = next;
+                result[size++] = set[i] - 1;
+            }
+            next = set[i + 1] + 1;
+        }
+        if (next <= MAX_CHAR) {
+            result[size++] = next;
+            result[size++] = MAX_CHAR;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * A parsed pattern.
+     */
+    private sealed interface Node permits Chars, Sequence, Alternation, Repetition {
+    }
+
+    private record Chars(int[] set) implements Node {
+    }
+
+    private record Sequence(List<Node> items) implements Node {
+    }
+
+    private record Alternation(List<Node> options) implements Node {
+    }
+
+    /** Repeats a node between min and max times; max is -1 for no upper bound. */
+    private record Repetition(Node node, int min, int max) implements Node {
+    }
+
+    /**
+     * Recursive descent parser of the supported pattern syntax.
+     */
+    private static final class Parser {
+
+        private final String pattern;
+        private int pos;
+
+        private Parser(String pattern) {
+            this.pattern = pattern;
+        }
+
+        private Node parse() {
+            if (pattern.startsWith("^")) {
+                pos++;
+            }
+            Node node = parseAlternation();
+            if (pos < pattern.length()) {
+                throw error("Unmatched ')'");
+            }
+            return node;
+        }
+
+        private Node parseAlternation() {
+            List<Node> options = new ArrayList<>();
+            options.add(parseSequence());
+            while (pos < pattern.length() && pattern.charAt(pos) == '|') {
+                pos++;
+                options.add(parseSequence());
+            }
+            return options.size() == 1 ? options.get(0) : new Alternation(options);
+        }
+
+        private Node parseSequence() {
+            List<Node> items = new ArrayList<>();
+            while (pos < pattern.length() && pattern.charAt(pos) != '|' && pattern.charAt(pos) != ')') {
+                if (pattern.charAt(pos) == '$' && pos == pattern.length() - 1) {
+                    pos++;
+                    break;
+                }
+                items.add(parseRepetition());
+            }
+            return items.size() == 1 ? items.get(0) : new Sequence(items);
+        }
+
+        private Node parseRepetition() {
+            Node node = parseAtom();
+            while (pos < pattern.length()) {
+                int min;
+                int max;
+                switch (pattern.charAt(pos)) {
+                    case '*' -> { min = 0; max = -1; pos++; }
+                    case '+' -> { min = 1; max = -1; pos++; }
+                    case '?' -> { min = 0; max = 1; pos++; }
+                    case '{' -> {
+                        pos++;
+                        min = parseNumber();
+                        max = min;
+                        if (pos < pattern.length() && pattern.charAt(pos) == ',') {
+                            pos++;
+                            max = pos < pattern.length() && pattern.charAt(pos) == '}' ? -1 : parseNumber();
+                        }
+                        expect('}');
+                        if (max != -1 && max < min) {
+                            throw error("Repetition maximum is smaller than its minimum");
+                        }
+                    }
+                    default -> {
+                        return node;
+                    }
+                }
+                if (pos < pattern.length() && (pattern.charAt(pos) == '?' || pattern.charAt(pos) == '+')) {
+                    throw error("Lazy and possessive quantifiers are not supported");
+                }
+                node = new Repetition(node, min, max);
+            }
+            return node;
+        }
+
+        private int parseNumber() {
+            int start = pos;
+            int value = 0;
+            while (pos < pattern.length() && pattern.charAt(pos) >= '0' && pattern.charAt(pos) <= '9') {
+                value = value * 10 + (pattern.charAt(pos++) - '0');
+                if (value > MAX_REPEAT) {
+                    throw error("Repetition count is larger than " + MAX_REPEAT);
+                }
+            }
+            if (pos == start) {
+                throw error("Expected a repetition count");
+            }
+            return value;
+        }
+
+        private Node parseAtom() {
+            char c = pattern.charAt(pos++);
+            switch (c) {
+                case '(' -> {
+                    if (pattern.startsWith("?:", pos)) {
+                        pos += 2;
+                    } else if (pos < pattern.length() && pattern.charAt(pos) == '?') {
+                        throw error("Lookaround and special groups are not supported");
+                    }
+                    Node node = parseAlternation();
+                    expect(')');
+                    return node;
+                }
+                case '[' -> {
+                    return new Chars(parseClass());
+                }
+                case '.' -> {
+                    return new Chars(DOT);
+                }
+                case '\\' -> {
+                    return new Chars(parseEscape());
+                }
+                case '*', '+', '?', '{' -> throw error("Nothing to repeat");
+                case '^', '$' -> throw error("Anchors are only allowed at the start and end of the pattern");
+                default -> {
+                    return new Chars(new int[]{c, c});
+                }
+            }
+        }
+
+        private int[] parseClass() {
+            boolean negated = pos < pattern.length() && pattern.charAt(pos) == '^';
+            if (negated) {
+                pos++;
+            }
+            int[] set = new int[0];
+            boolean empty = true;
+            while (true) {
+                if (pos >= pattern.length()) {
+                    throw error("Unclosed character class");
+                }
+                char c = pattern.charAt(pos++);
+                if (c == ']' && !empty) {
+                    break;
+                }
+                if (c == '[' || (c == '&' && pos < pattern.length() && pattern.charAt(pos) == '&')) {
+                    throw error("Nested classes and class intersection are not supported");
+                }
+                empty = false;
+
+                int[] item = c == '\\' ? parseEscape() : new int[]{c, c};
+                boolean range = pos + 1 < pattern.length() && pattern.charAt(pos) == '-'
+                        && pattern.charAt(pos + 1) != ']';
+                if (range) {
+                    if (item.length != 2 || item[0] != item[1]) {
+                        throw error("Invalid character range");
+                    }
+                    pos++;
+                    char endChar = pattern.charAt(pos++);
+                    int[] end = endChar == '\\' ? parseEscape() : new int[]{endChar, endChar};
+                    if (end.length != 2 || end[0] != end[1] || end[0] < item[0]) {
+                        throw error("Invalid character range");
+                    }
+                    item = new int[]{item[0], end[0]};
+                }
+                set = union(set, item);
+            }
+            return negated ? complement(set) : set;
+        }
+
+        private int[] parseEscape() {
+            if (pos >= pattern.length()) {
+                throw error("Pattern ends with an escape character");
+            }
+            char c = pattern.charAt(pos++);
+            return switch (c) {
+                case 'd' -> DIGIT;
+                case 'D' -> complement(DIGIT);
+                case 'w' -> WORD;
+                case 'W' -> complement(WORD);
+                case 's' -> SPACE;
+                case 'S' -> complement(SPACE);
+                case 't' -> new int[]{'\t', '\t'};
+                case 'n' -> new int[]{'\n', '\n'};
+                case 'r' -> new int[]{'\r', '\r'};
+                case 'f' -> new int[]{'\f', '\f'};
+                case 'u' -> {
+                    if (pos + 4 > pattern.length()) {
+                        throw error("Invalid unicode escape");
+                    }
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(pattern.charAt(pos++), 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    yield new int[]{code, code};
+                }
+                default -> {
+                    if (c >= '0' && c <= '9') {
+                        throw error("Backreferences are not supported");
+                    }
+                    if (Character.isLetter(c)) {
+                        throw error("Unsupported escape \\" + c);
+                    }
+                    yield new int[]{c, c};
+                }
+            };
+        }
+
+        private void expect(char c) {
+            if (pos >= pattern.length() || pattern.charAt(pos) != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at index " + pos + " of pattern '" + pattern + "'");
+        }
+    }
+
+    /**
+     * Where a partial automaton starts, and its single accepting state, which has no outgoing transitions yet.
+     */
+    private record Fragment(int start, int end) {
+    }
+
+    /**
+     * Nondeterministic automaton built by Thompson's construction. Every state has at most one character
+     * transition and any number of empty transitions.
+     */
+    private static final class Nfa {
+
+        private final List<int[]> edgeSets = new ArrayList<>();
+        private final List<Integer> edgeTargets = new ArrayList<>();
+        private final List<List<Integer>> epsilons = new ArrayList<>();
+
+        private int size() {
+            return edgeSets.size();
+        }
+
+        private int newState() {
+            if (size() == MAX_NFA_STATES) {
+                throw new IllegalArgumentException("Pattern is too complex");
+            }
+            edgeSets.add(null);
+            edgeTargets.add(-1);
+            epsilons.add(new ArrayList<>(2));
+            return size() - 1;
+        }
+
+        private void epsilon(int from, int to) {
+            epsilons.get(from).add(to);
+        }
+
+        private Fragment build(Node node) {
+            if (node instanceof Chars chars) {
+                int start = newState();
+                int end = newState();
+                edgeSets.set(start, chars.set());
+                edgeTargets.set(start, end);
+                return new Fragment(start, end);
+            }
+            if (node instanceof Sequence sequence) {
+                int start = newState();
+                int end = start;
+                for (Node item : sequence.items()) {
+                    Fragment fragment = build(item);
+                    epsilon(end, fragment.start());
+                    end = fragment.end();
+                }
+                return new Fragment(start, end);
+            }
+            if (node instanceof Alternation alternation) {
+                int start = newState();
+                int end = newState();
+                for (Node option : alternation.options()) {
+                    Fragment fragment = build(option);
+                    epsilon(start, fragment.start());
+                    epsilon(fragment.end(), end);
+                }
+                return new Fragment(start, end);
+            }
+            return buildRepetition((Repetition) node);
+        }
+
+        private Fragment buildRepetition(Repetition repetition) {
+            int start = newState();
+            int end = start;
+            for (int i = 0; i < repetition.min(); i++) {
+                Fragment copy = build(repetition.node());
+                epsilon(end, copy.start());
+                end = copy.end();
+            }
+
+            if (repetition.max() == -1) {
+                Fragment loop = build(repetition.node());
+                int exit = newState();
+                epsilon(end, loop.start());
+                epsilon(end, exit);
+                epsilon(loop.end(), loop.start());
+                epsilon(loop.end(), exit);
+                return new Fragment(start, exit);
+            }
+
+            // Each optional copy may be skipped straight to the end
+            int exit = newState();
+            for (int i = repetition.min(); i < repetition.max(); i++) {
+                Fragment copy = build(repetition.node());
+                epsilon(end, copy.start());
+                epsilon(end, exit);
+                end = copy.end();
+            }
+            epsilon(end, exit);
+            return new Fragment(start, exit);
+        }
+
+        /**
+         * Adds every state reachable through empty transitions to the given set.
+         */
+        private void close(BitSet states) {
+            Deque<Integer> pending = new ArrayDeque<>();
+            states.stream().forEach(pending::push);
+            while (!pending.isEmpty()) {
+                for (int next : epsilons.get(pending.pop())) {
+                    if (!states.get(next)) {
+                        states.set(next);
+                        pending.push(next);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.model.compiled.CustomType;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory registry of the compiled custom types, keyed by name.
+ * Like the model registry, the type set is immutable and replaced with a single reference swap, so a
+ * changed type takes effect without a restart and readers are never blocked.
+ */
+public class TypeRegistry {
+
+    private final AtomicReference<Map<String, CustomType>> current = new AtomicReference<>(Map.of());
+
+    /**
+     * @return The currently registered types, keyed by name
+     */
+    public Map<String, CustomType> types() {
+        return current.get();
+    }
+
+    /**
+     * Finds a registered type.
+     *
+     * @param name The type name
+     * @return The type, or null if no type of that name is registered
+     */
+    public CustomType find(String name) {
+        return current.get().get(name);
+    }
+
+    /**
+     * Replaces the registered types.
+     *
+     * @param types The types to serve from now on
+     * @return The published type set
+     */
+    public Map<String, CustomType> publish(Collection<CustomType> types) {
+        Map<String, CustomType> byName = new HashMap<>();
+        for (CustomType type : types) {
+            byName.put(type.getName(), type);
+        }
+        Map<String, CustomType> published = Map.copyOf(byName);
+        current.set(published);
+        return published;
+    }
+
+    /**
+     * Applies a change to the registered types. The change is derived from the current types, so concurrent
+     * updates are never lost; it may be applied more than once and must not have side effects.
+     *
+     * @param change Derives the new types, keyed by name, from the current ones
+     * @return The published type set
+     */
+    public Map<String, CustomType> update(UnaryOperator<Map<String, CustomType>> change) {
+        return current.updateAndGet(types -> Map.copyOf(change.apply(types)));
+    }
+}
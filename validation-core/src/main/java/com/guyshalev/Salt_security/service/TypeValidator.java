@@ -0,0 +1,435 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.compiled.CompiledSection;
+import com.guyshalev.Salt_security.model.compiled.ParameterType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Component responsible for validating parameter values against specified types.
+ * Handles validation of various data types including primitives and complex types.
+ * All checks scan the value's characters directly, so they neither allocate nor throw.
+ * Object and list values can also be checked against the nested fields and items of a parameter definition.
+ */
+public class TypeValidator {
+
+    /** Default maximum number of nested fields and list items checked in one value. */
+    public static final int DEFAULT_MAX_SCHEMA_ELEMENTS = 10_000;
+
+    private static final String AUTH_TOKEN_PREFIX = "Bearer ";
+    private static final int UUID_LENGTH = 36;
+    private static final int MAX_YEAR = 999_999_999;
+
+    private final int maxSchemaElements;
+
+    /**
+     * @param maxSchemaElements Maximum number of nested fields and list items checked in a single value
+     */
+    public TypeValidator(int maxSchemaElements) {
+        this.maxSchemaElements = maxSchemaElements;
+    }
+
+    /**
+     * Validates a JSON value against a specified type.
+     *
+     * @param value The JSON value to validate
+     * @param type The expected type. Must be one of: "Auth-Token", "UUID", "Email", "Date",
+     *             "Boolean", "Int", "String", "List", or "Object"
+     * @return true if the value matches the type, false otherwise
+     */
+    public boolean isValidType(JsonNode value, String type) {
+        if (value == null || type == null) return false;
+
+        return switch (type) {
+            case "Auth-Token" -> validateAuthToken(value);
+            case "UUID" -> validateUUID(value);
+            case "Email" -> validateEmail(value);
+            case "Date" -> validateDate(value);
+            case "Boolean" -> validateBoolean(value);
+            case "Int" -> validateInt(value);
+            case "String" -> validateString(value);
+            case "List" -> validateList(value);
+            case "Object" -> value.isObject();
+            default -> false;
+        };
+    }
+
+    /**
+     * Determines every type a JSON value satisfies in a single call.
+     * Each type's checker only runs when a cheap test on the value's length or shape says it can match,
+     * so a typical value is scanned once or twice regardless of how many types it is matched against.
+     *
+     * @param value The JSON value to classify
+     * @return The mask of all satisfied {@link ParameterType} bits, 0 if value is null
+     */
+    public int classify(JsonNode value) {
+        if (value == null) return 0;
+
+        if (!value.isTextual()) {
+            int mask = 0;
+            if (value.isInt() || value.isLong()) mask |= ParameterType.INT.getBit();
+            if (value.isBoolean()) mask |= ParameterType.BOOLEAN.getBit();
+            if (value.isArray()) mask |= ParameterType.LIST.getBit();
+            if (value.isObject()) mask |= ParameterType.OBJECT.getBit();
+            return mask;
+        }
+
+        String text = value.asText();
+        int length = text.length();
+        int mask = ParameterType.STRING.getBit();
+
+        char first = length > 0 ? text.charAt(0) : 0;
+        if ((isAsciiDigit(first) || first == '-') && validateInt(value)) {
+            mask |= ParameterType.INT.getBit();
+        }
+        if ((length == 4 || length == 5) && validateBoolean(value)) {
+            mask |= ParameterType.BOOLEAN.getBit();
+        }
+        if (length >= 10 && text.charAt(2) == '-' && validateDate(value)) {
+            mask |= ParameterType.DATE.getBit();
+        }
+        if (length == UUID_LENGTH && validateUUID(value)) {
+            mask |= ParameterType.UUID.getBit();
+        }
+        if (first == 'B' && validateAuthToken(value)) {
+            mask |= ParameterType.AUTH_TOKEN.getBit();
+        }
+        if (length >= 6 && validateEmail(value)) {
+            mask |= ParameterType.EMAIL.getBit();
+        }
+        return mask;
+    }
+
+    /**
+     * Checks a value against the allowed built-in and custom types of a parameter.
+     * Custom types only match textual values, each in time linear in the length of the text.
+     *
+     * @param value The JSON value to check
+     * @param parameter The parameter definition
+     * @return true if the value matches at least one allowed type
+     */
+    public boolean matches(JsonNode value, CompiledParameter parameter) {
+        return parameter.accepts(classify(value))
+                || (value.isTextual() && parameter.acceptsCustom(value.asText()));
+    }
+
+    /**
+     * Checks the contents of a value against the nested fields and items of its parameter definition,
+     * in a single traversal that only descends into the structure the definition declares.
+     * The value itself must already match one of the parameter's types. At most
+     * {@code maxSchemaElements} fields and list items are checked, so the work done for one
+     * value is bounded regardless of its size.
+     *
+     * @param value The parameter value
+     * @param parameter The parameter definition
+     * @return The first violation found, or null if the value matches the definition
+     */
+    public SchemaViolation checkSchema(JsonNode value, CompiledParameter parameter) {
+        if (!parameter.isNested()) return null;
+
+        return checkContents(value, parameter, new int[]{maxSchemaElements});
+    }
+
+    private SchemaViolation checkContents(JsonNode value, CompiledParameter schema, int[] budget) {
+        CompiledSection fields = schema.getFields();
+        if (fields != null && value.isObject()) {
+            for (Iterator<Map.Entry<String, JsonNode>> it = value.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                CompiledParameter fieldSchema = fields.getParameter(field.getKey());
+                SchemaViolation violation = fieldSchema == null
+                        ? new SchemaViolation(SchemaViolation.Reason.UNEXPECTED_FIELD, null)
+                        : checkElement(field.getValue(), fieldSchema, budget);
+                if (violation != null) {
+                    return violation.at(field.getKey());
+                }
+            }
+            for (CompiledParameter required : fields.getRequiredParameters()) {
+                if (!value.has(required.getName())) {
+                    return new SchemaViolation(SchemaViolation.Reason.MISSING_FIELD, null).at(required.getName());
+                }
+            }
+        }
+
+        CompiledParameter items = schema.getItems();
+        if (items != null && value.isArray()) {
+            for (int i = 0; i < value.size(); i++) {
+                SchemaViolation violation = checkElement(value.get(i), items, budget);
+                if (violation != null) {
+                    return violation.at(i);
+                }
+            }
+        }
+        return null;
+    }
+
+    private SchemaViolation checkElement(JsonNode element, CompiledParameter schema, int[] budget) {
+        if (--budget[0] < 0) {
+            return new SchemaViolation(SchemaViolation.Reason.TOO_MANY_ELEMENTS, null);
+        }
+        if (!matches(element, schema)) {
+            return new SchemaViolation(SchemaViolation.Reason.TYPE_MISMATCH, schema.getTypesDescription());
+        }
+        return schema.isNested() ? checkContents(element, schema, budget) : null;
+    }
+
+    private boolean validateString(JsonNode value) {
+        return value.isTextual();
+    }
+
+    /**
+     * Validates if a value is an integer.
+     * Accepts int and long nodes, and strings made of ASCII digits with an optional leading minus sign.
+     *
+     * @param value The value to validate
+     * @return true if the value is a valid integer, false otherwise
+     */
+    private boolean validateInt(JsonNode value) {
+        if (value.isInt() || value.isLong()) return true;
+        if (!value.isTextual()) return false;
+
+        String text = value.asText();
+        int start = !text.isEmpty() && text.charAt(0) == '-' ? 1 : 0;
+        return text.length() > start && isDigits(text, start, text.length());
+    }
+
+    /**
+     * Validates if a value is a valid boolean.
+     * Accepts both boolean nodes and string representations ("true"/"false").
+     *
+     * @param value The value to validate
+     * @return true if the value is a valid boolean, false otherwise
+     */
+    private boolean validateBoolean(JsonNode value) {
+        return value.isBoolean() ||
+                (value.isTextual() && (value.asText().equalsIgnoreCase("true")
+                        || value.asText().equalsIgnoreCase("false")));
+    }
+
+    /**
+     * Validates if a value is a valid date in dd-MM-yyyy format.
+     * Follows {@code LocalDate.parse} with a smart resolver: a day that does not exist in its month
+     * (such as 31-04) is accepted, and a year with more than four digits must carry a leading plus sign.
+     *
+     * @param value The value to validate
+     * @return true if the value is a valid date string, false otherwise
+     */
+    private boolean validateDate(JsonNode value) {
+        if (!value.isTextual()) return false;
+
+        String text = value.asText();
+        if (text.length() < 10 || text.charAt(2) != '-' || text.charAt(5) != '-'
+                || !isDigits(text, 0, 2) || !isDigits(text, 3, 5)) {
+            return false;
+        }
+
+        int day = twoDigits(text, 0);
+        int month = twoDigits(text, 3);
+        return day >= 1 && day <= 31 && month >= 1 && month <= 12 && validateYear(text, 6);
+    }
+
+    /**
+     * Validates the year part of a date: either exactly four digits, or a plus sign followed by
+     * five to nineteen digits. The year must be positive and no greater than {@link #MAX_YEAR}.
+     */
+    private boolean validateYear(String text, int start) {
+        int digitsStart = start;
+        int minDigits = 4;
+        int maxDigits = 4;
+        if (text.charAt(start) == '+') {
+            digitsStart++;
+            minDigits = 5;
+            maxDigits = 19;
+        }
+
+        int digits = text.length() - digitsStart;
+        if (digits < minDigits || digits > maxDigits || !isDigits(text, digitsStart, text.length())) {
+            return false;
+        }
+
+        long year = 0;
+        for (int i = digitsStart; i < text.length(); i++) {
+            year = year * 10 + (text.charAt(i) - '0');
+            if (year > MAX_YEAR) return false;
+        }
+        return year >= 1;
+    }
+
+    /**
+     * Validates if a value is an email address: a local part of word characters, dots and hyphens,
+     * an {@code @}, at least one domain label followed by a dot, and a top-level label of 2 to 4 characters.
+     * Word characters are ASCII letters, digits and underscores.
+     *
+     * @param value The value to validate
+     * @return true if the value is a valid email address, false otherwise
+     */
+    private boolean validateEmail(JsonNode value) {
+        if (!value.isTextual()) return false;
+
+        String text = value.asText();
+        int at = text.indexOf('@');
+        if (at < 1) return false;
+
+        for (int i = 0; i < at; i++) {
+            char c = text.charAt(i);
+            if (!isWordChar(c) && c != '-' && c != '.') return false;
+        }
+
+        int labelStart = at + 1;
+        int labels = 0;
+        for (int i = labelStart; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                if (i == labelStart) return false;
+                labels++;
+                labelStart = i + 1;
+            } else if (!isWordChar(c) && c != '-') {
+                return false;
+            }
+        }
+
+        int topLevelLength = text.length() - labelStart;
+        return labels >= 1 && topLevelLength >= 2 && topLevelLength <= 4;
+    }
+
+    /**
+     * Validates if a value is a UUID: 32 hexadecimal digits in groups of 8-4-4-4-12 separated by hyphens.
+     *
+     * @param value The value to validate
+     * @return true if the value is a valid UUID, false otherwise
+     */
+    private boolean validateUUID(JsonNode value) {
+        if (!value.isTextual()) return false;
+
+        String text = value.asText();
+        if (text.length() != UUID_LENGTH) return false;
+
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = text.charAt(i);
+            boolean hyphenPosition = i == 8 || i == 13 || i == 18 || i == 23;
+            if (hyphenPosition ? c != '-' : !isHexDigit(c)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Validates if a value is a bearer token: "Bearer " followed by one or more ASCII letters or digits.
+     *
+     * @param value The value to validate
+     * @return true if the value is a valid auth token, false otherwise
+     */
+    private boolean validateAuthToken(JsonNode value) {
+        if (!value.isTextual()) return false;
+
+        String text = value.asText();
+        if (text.length() <= AUTH_TOKEN_PREFIX.length() || !text.startsWith(AUTH_TOKEN_PREFIX)) return false;
+
+        for (int i = AUTH_TOKEN_PREFIX.length(); i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!isAsciiLetter(c) && !isAsciiDigit(c)) return false;
+        }
+        return true;
+    }
+
+    private boolean validateList(JsonNode value) {
+        return value.isArray();
+    }
+
+    private static boolean isDigits(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isAsciiDigit(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static int twoDigits(String text, int from) {
+        return (text.charAt(from) - '0') * 10 + (text.charAt(from + 1) - '0');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWordChar(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || c == '_';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isAsciiDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    /**
+     * The first place where a value does not match the nested schema of its parameter.
+     * The path to that place is collected while the traversal unwinds and only rendered by {@link #message()}.
+     */
+    public static final class SchemaViolation {
+
+        /**
+         * Why a nested value does not match its definition.
+         */
+        public enum Reason {
+            TYPE_MISMATCH,
+            UNEXPECTED_FIELD,
+            MISSING_FIELD,
+            TOO_MANY_ELEMENTS
+        }
+
+        private final Reason reason;
+        private final String typesDescription;
+        // Field names and list indices, innermost first
+        private final List<Object> segments = new ArrayList<>();
+
+        private SchemaViolation(Reason reason, String typesDescription) {
+            this.reason = reason;
+            this.typesDescription = typesDescription;
+        }
+
+        private SchemaViolation at(Object segment) {
+            segments.add(segment);
+            return this;
+        }
+
+        public Reason getReason() {
+            return reason;
+        }
+
+        /**
+         * @return The path of the offending value relative to the parameter, such as {@code address.lines[2]}
+         */
+        public String getPath() {
+            StringBuilder path = new StringBuilder();
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                Object segment = segments.get(i);
+                if (segment instanceof Integer index) {
+                    path.append('[').append(index).append(']');
+                } else {
+                    if (!path.isEmpty()) path.append('.');
+                    path.append(segment);
+                }
+            }
+            return path.toString();
+        }
+
+        /**
+         * @return A description of the violation for the anomaly report
+         */
+        public String message() {
+            return switch (reason) {
+                case TYPE_MISMATCH -> "Value at '" + getPath() + "' does not match any of the allowed types: "
+                        + typesDescription;
+                case UNEXPECTED_FIELD -> "Unexpected field at '" + getPath() + "'";
+                case MISSING_FIELD -> "Required field is missing at '" + getPath() + "'";
+                case TOO_MANY_ELEMENTS -> "Value has more nested elements than allowed, stopped at '"
+                        + getPath() + "'";
+            };
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.compiled.CompiledSection;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.TypeValidator.SchemaViolation;
+import com.guyshalev.Salt_security.service.ValidationObserver.AnomalyKind;
+import com.guyshalev.Salt_security.service.ValidationObserver.ModelObserver;
+import com.guyshalev.Salt_security.service.ValidationObserver.Phase;
+import com.guyshalev.Salt_security.validator.RequestValidator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Compiles API models and validates requests against them, without any framework or storage.
+ * This is the whole validation path of the service, so it can be embedded in-process, for example in a gateway
+ * filter: compile a {@link ModelSnapshot} once, then validate each request against it.
+ * An engine holds no per-request state, so a single instance can be shared by all threads.
+ */
+public class ValidationEngine {
+
+    private final ObjectMapper objectMapper;
+    private final RequestValidator requestValidator;
+    private final TypeValidator typeValidator;
+    private final ModelCompiler modelCompiler;
+    private final StreamingRequestValidator streamingRequestValidator;
+    private final ValidationObserver validationObserver;
+    private final AnomalyPublisher anomalyPublisher;
+    private final boolean streaming;
+
+    /**
+     * Creates a streaming engine with default limits, no custom types, no observer and no publisher.
+     *
+     * @param objectMapper Mapper used to parse models and JSON requests
+     */
+    public ValidationEngine(ObjectMapper objectMapper) {
+        this(objectMapper, new TypeRegistry(), true);
+    }
+
+    /**
+     * Creates an engine with default limits, no observer and no publisher.
+     *
+     * @param objectMapper Mapper used to parse models and JSON requests
+     * @param typeRegistry The custom types models may refer to
+     * @param streaming Whether to validate requests while they are parsed instead of on a JSON tree
+     */
+    public ValidationEngine(ObjectMapper objectMapper, TypeRegistry typeRegistry, boolean streaming) {
+        this(objectMapper, typeRegistry, new TypeValidator(TypeValidator.DEFAULT_MAX_SCHEMA_ELEMENTS), streaming);
+    }
+
+    private ValidationEngine(ObjectMapper objectMapper, TypeRegistry typeRegistry, TypeValidator typeValidator,
+                             boolean streaming) {
+        this(objectMapper,
+                new RequestValidator(RequestValidator.DEFAULT_MAX_SCHEMA_DEPTH, typeRegistry),
+                typeValidator,
+                new ModelCompiler(objectMapper, typeRegistry),
+                new StreamingRequestValidator(objectMapper, typeValidator, ValidationObserver.NONE,
+                        AnomalyPublisher.NONE),
+                ValidationObserver.NONE,
+                AnomalyPublisher.NONE,
+                streaming);
+    }
+
+    public ValidationEngine(ObjectMapper objectMapper,
+                            RequestValidator requestValidator,
+                            TypeValidator typeValidator,
+                            ModelCompiler modelCompiler,
+                            StreamingRequestValidator streamingRequestValidator,
+                            ValidationObserver validationObserver,
+                            AnomalyPublisher anomalyPublisher,
+                            boolean streaming) {
+        this.objectMapper = objectMapper;
+        this.requestValidator = requestValidator;
+        this.typeValidator = typeValidator;
+        this.modelCompiler = modelCompiler;
+        this.streamingRequestValidator = streamingRequestValidator;
+        this.validationObserver = validationObserver;
+        this.anomalyPublisher = anomalyPublisher;
+        this.streaming = streaming;
+    }
+
+    /**
+     * Returns whether requests are validated while they are parsed.
+     *
+     * @return true if streaming validation is enabled
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Compiles a JSON array of API models into a snapshot.
+     *
+     * @param jsonModels JSON string containing an array of API models
+     * @param version The version to give the snapshot
+     * @return The compiled snapshot
+     * @throws IllegalArgumentException if the input is not a valid JSON array, contains invalid models
+     *                                  or contains more than one model for the same method and path
+     */
+    public ModelSnapshot compileSnapshot(String jsonModels, long version) {
+        try {
+            return ModelSnapshot.of(version, compileModels(objectMapper.readTree(jsonModels)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to process models: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validates and compiles an array of models.
+     *
+     * @param modelsNode The models
+     * @return The compiled models, in input order
+     * @throws IllegalArgumentException if the input is not an array, contains invalid models or contains
+     *                                  more than one model for the same method and path
+     */
+    public List<CompiledModel> compileModels(JsonNode modelsNode) {
+        if (modelsNode == null || !modelsNode.isArray()) {
+            throw new IllegalArgumentException("Input must be an array of models");
+        }
+
+        List<CompiledModel> compiledModels = new ArrayList<>(modelsNode.size());
+        Set<String> keys = new HashSet<>();
+        for (JsonNode modelNode : modelsNode) {
+            CompiledModel compiledModel = compileModel(modelNode);
+            if (!keys.add(compiledModel.getMethod() + " " + PathTrie.normalize(compiledModel.getPath()))) {
+                throw new IllegalArgumentException("Duplicate model for path '" + compiledModel.getPath()
+                        + "' and method '" + compiledModel.getMethod() + "'");
+            }
+            compiledModels.add(compiledModel);
+        }
+        return compiledModels;
+    }
+
+    /**
+     * Validates a model's structure and compiles it.
+     *
+     * @param modelNode The model to compile
+     * @return The compiled model
+     * @throws IllegalArgumentException if the model structure is invalid
+     */
+    public CompiledModel compileModel(JsonNode modelNode) {
+        // Validate model structure
+        Map<String, String> validationErrors = requestValidator.validateModel(modelNode);
+        if (!validationErrors.isEmpty()) {
+            throw new IllegalArgumentException("Invalid model structure: " + validationErrors);
+        }
+        return modelCompiler.compile(modelNode);
+    }
+
+    /**
+     * Validates an API request against the models of the given snapshot.
+     * When streaming validation is enabled, the request is validated while it is parsed
+     * and only falls back to a JSON tree if it repeats a top-level field.
+     *
+     * @param jsonRequest JSON string containing the request to validate
+     * @param snapshot The model snapshot to validate against
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validate(String jsonRequest, ModelSnapshot snapshot) {
+        try {
+            if (streaming) {
+                Optional<ValidationResultDTO> streamed = streamingRequestValidator.validate(jsonRequest, snapshot);
+                if (streamed.isPresent()) {
+                    return streamed.get();
+                }
+            }
+
+            long parseStart = System.nanoTime();
+            JsonNode request = objectMapper.readTree(jsonRequest);
+            return validate(request, snapshot, System.nanoTime() - parseStart, false);
+        } catch (Exception e) {
+            return new ValidationResultDTO(false,
+                    Map.of("error", "Failed to validate request: " + e.getMessage()), snapshot.getVersion());
+        }
+    }
+
+    /**
+     * Validates a UTF-8 encoded JSON request against the models of the given snapshot.
+     *
+     * @param jsonRequest The request bytes
+     * @param snapshot The model snapshot to validate against
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validate(byte[] jsonRequest, ModelSnapshot snapshot) {
+        return validate(jsonRequest, objectMapper, snapshot, false);
+    }
+
+    /**
+     * Validates an encoded API request against the models of the given snapshot, optionally stopping at the
+     * first anomaly.
+     *
+     * @param request The request bytes
+     * @param mapper Mapper for the request's encoding, such as JSON, CBOR or Smile
+     * @param snapshot The model snapshot to validate against
+     * @param failFast Whether to stop at the first anomaly and report only the verdict
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validate(byte[] request, ObjectMapper mapper, ModelSnapshot snapshot,
+                                        boolean failFast) {
+        return validate(request, mapper, snapshot, failFast, anomalyPublisher);
+    }
+
+    /**
+     * Validates an encoded API request against the models of the given snapshot, passing a rejected request that
+     * matched a model to the given publisher instead of the engine's.
+     *
+     * @param request The request bytes
+     * @param mapper Mapper for the request's encoding, such as JSON, CBOR or Smile
+     * @param snapshot The model snapshot to validate against
+     * @param failFast Whether to stop at the first anomaly and report only the verdict
+     * @param publisher Receives the anomalies of a rejected request
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validate(byte[] request, ObjectMapper mapper, ModelSnapshot snapshot,
+                                        boolean failFast, AnomalyPublisher publisher) {
+        try {
+            if (streaming) {
+                Optional<ValidationResultDTO> streamed;
+                try (JsonParser parser = mapper.createParser(request)) {
+                    streamed = streamingRequestValidator.validate(parser, snapshot, failFast, publisher);
+                }
+                if (streamed.isPresent()) {
+                    return streamed.get();
+                }
+            }
+
+            long parseStart = System.nanoTime();
+            JsonNode requestNode = mapper.readTree(request);
+            return validate(requestNode, snapshot, System.nanoTime() - parseStart, failFast, publisher);
+        } catch (Exception e) {
+            return new ValidationResultDTO(false,
+                    Map.of("error", "Failed to validate request: " + e.getMessage()), snapshot.getVersion());
+        }
+    }
+
+    /**
+     * Validates an already parsed API request against the models of the given snapshot.
+     *
+     * @param request The request to validate
+     * @param snapshot The model snapshot to validate against
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validate(JsonNode request, ModelSnapshot snapshot) {
+        return validate(request, snapshot, -1, false);
+    }
+
+    /**
+     * Validates a parsed API request and reports the time spent in each validation phase to the observer.
+     * A rejected request that matched a model is passed to the anomaly publisher.
+     *
+     * @param request The request to validate
+     * @param snapshot The model snapshot to validate against
+     * @param parseNanos The time spent parsing the request, or -1 if it was not parsed by the caller
+     * @param failFast Whether to stop at the first anomaly and report only the verdict
+     * @return ValidationResultDTO containing validation result, any anomalies found and the model version used
+     */
+    public ValidationResultDTO validate(JsonNode request, ModelSnapshot snapshot, long parseNanos,
+                                        boolean failFast) {
+        return validate(request, snapshot, parseNanos, failFast, anomalyPublisher);
+    }
+
+    private ValidationResultDTO validate(JsonNode request, ModelSnapshot snapshot, long parseNanos,
+                                         boolean failFast, AnomalyPublisher publisher) {
+        long version = snapshot.getVersion();
+        try {
+            // Validate request structure
+            long structureStart = System.nanoTime();
+            Map<String, String> structureErrors = requestValidator.validateRequest(request);
+            long structureNanos = System.nanoTime() - structureStart;
+            if (!structureErrors.isEmpty()) {
+                recordPhases(validationObserver.forModel(snapshot, null), parseNanos, structureNanos, -1, -1);
+                return AnomalyReport.failed(failFast, structureErrors, version);
+            }
+
+            String path = request.get("path").asText();
+            String method = request.get("method").asText();
+
+            // Find matching model
+            long lookupStart = System.nanoTime();
+            Optional<CompiledModel> modelOpt = snapshot.find(method, path);
+            long lookupNanos = System.nanoTime() - lookupStart;
+            if (modelOpt.isEmpty()) {
+                recordPhases(validationObserver.forModel(snapshot, null), parseNanos, structureNanos, lookupNanos, -1);
+                return AnomalyReport.failed(failFast,
+                        Map.of("error", "No model found for path '" + path + "' and method '" + method + "'"),
+                        version);
+            }
+
+            CompiledModel model = modelOpt.get();
+            ModelObserver observer = validationObserver.forModel(snapshot, model);
+            long typeCheckStart = System.nanoTime();
+            AnomalyReport anomalies = new AnomalyReport(failFast);
+            validateAgainstModel(request, model, anomalies, observer);
+            recordPhases(observer, parseNanos, structureNanos, lookupNanos, System.nanoTime() - typeCheckStart);
+
+            ValidationResultDTO result = anomalies.toResult(version);
+            if (!result.isValid()) {
+                publisher.publish(version, method, path, model.getPath(), anomalies.toPublished());
+            }
+            return result;
+        } catch (Exception e) {
+            return new ValidationResultDTO(false,
+                    Map.of("error", "Failed to validate request: " + e.getMessage()), version);
+        }
+    }
+
+    /**
+     * Validates a request against a specific model.
+     * Checks all parameters sections (query_params, headers, body).
+     *
+     * @param request The request to validate
+     * @param model The model to validate against
+     * @param anomalies Report to store any validation anomalies found
+     * @param observer The model's observer, told about every anomaly found
+     */
+    private void validateAgainstModel(JsonNode request, CompiledModel model, AnomalyReport anomalies,
+                                      ModelObserver observer) {
+        validateParameterSection(request, model.getQueryParams(), anomalies, observer);
+        validateParameterSection(request, model.getHeaders(), anomalies, observer);
+        validateParameterSection(request, model.getBody(), anomalies, observer);
+    }
+
+    /**
+     * Records the phases of a request validation; phases that did not run are passed as -1.
+     */
+    private static void recordPhases(ModelObserver observer, long parseNanos, long structureNanos,
+                                     long lookupNanos, long typeCheckNanos) {
+        if (parseNanos >= 0) observer.record(Phase.PARSE, parseNanos);
+        observer.record(Phase.STRUCTURE, structureNanos);
+        if (lookupNanos >= 0) observer.record(Phase.LOOKUP, lookupNanos);
+        if (typeCheckNanos >= 0) observer.record(Phase.TYPE_CHECK, typeCheckNanos);
+    }
+
+    /**
+     * Validates a specific section of parameters in the request against the model.
+     * Checks for required, unexpected and duplicate parameters, and type validation.
+     * The declared parameters present in the request are tracked by index, so the section is checked
+     * in time linear in the number of request and model parameters.
+     *
+     * @param request The request containing parameters
+     * @param modelSection The compiled model section, or null if the model does not declare it
+     * @param anomalies Report to store any validation anomalies found
+     * @param observer The model's observer, told about every anomaly found
+     */
+    private void validateParameterSection(JsonNode request, CompiledSection modelSection,
+                                          AnomalyReport anomalies, ModelObserver observer) {
+        if (modelSection == null || anomalies.isDecided()) {
+            return;
+        }
+
+        String section = modelSection.getName();
+        JsonNode requestParams = request.get(section);
+        BitSet present = modelSection.newPresenceSet();
+
+        // Check request parameters
+        if (requestParams != null && requestParams.isArray()) {
+            for (JsonNode requestParam : requestParams) {
+                String paramName = requestParam.get("name").asText();
+                CompiledParameter modelParam = modelSection.getParameter(paramName);
+
+                if (modelParam == null) {
+                    anomalies.add(section, paramName, "Unexpected parameter");
+                    observer.unexpected(modelSection);
+                } else if (present.get(modelParam.getIndex())) {
+                    anomalies.duplicate(section, paramName);
+                    observer.anomaly(modelSection, modelParam, AnomalyKind.DUPLICATE);
+                } else {
+                    present.set(modelParam.getIndex());
+                    validateParameterValue(requestParam, modelSection, modelParam, anomalies, observer);
+                }
+                if (anomalies.isDecided()) {
+                    return;
+                }
+            }
+        }
+
+        // Check for missing required parameters
+        for (CompiledParameter requiredParam : modelSection.getRequiredParameters()) {
+            if (!present.get(requiredParam.getIndex())) {
+                anomalies.add(section, requiredParam.getName(), "Required parameter is missing");
+                observer.anomaly(modelSection, requiredParam, AnomalyKind.MISSING);
+                if (anomalies.isDecided()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates a single parameter value against its model definition, including the nested fields and
+     * items of object and list values.
+     *
+     * @param requestParam The parameter from the request
+     * @param modelSection The compiled section the parameter belongs to
+     * @param modelParam The compiled parameter definition from the model
+     * @param anomalies Report to store any validation anomalies found
+     * @param observer The model's observer, told about every anomaly found
+     */
+    private void validateParameterValue(JsonNode requestParam, CompiledSection modelSection,
+                                        CompiledParameter modelParam, AnomalyReport anomalies,
+                                        ModelObserver observer) {
+        JsonNode value = requestParam.get("value");
+        if (value == null) {
+            anomalies.add(modelSection.getName(), modelParam.getName(), "Value is missing");
+            observer.anomaly(modelSection, modelParam, AnomalyKind.VALUE_MISSING);
+            return;
+        }
+
+        if (!typeValidator.matches(value, modelParam)) {
+            observer.anomaly(modelSection, modelParam, AnomalyKind.TYPE_MISMATCH);
+            anomalies.typeMismatch(modelSection.getName(), modelParam, value);
+            return;
+        }
+
+        SchemaViolation violation = typeValidator.checkSchema(value, modelParam);
+        if (violation != null) {
+            observer.anomaly(modelSection, modelParam, AnomalyKind.SCHEMA_MISMATCH);
+            anomalies.schemaViolation(modelSection.getName(), modelParam, violation);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.compiled.CompiledSection;
+
+/**
+ * Receives how long each validation phase takes and which anomalies are found, per matched model.
+ * Validation asks for the observer of a model once per request and reports to it on the validating thread,
+ * so implementations must be thread-safe and cheap. {@link #NONE} discards everything.
+ */
+public interface ValidationObserver {
+
+    /**
+     * Observer that records nothing.
+     */
+    ValidationObserver NONE = (snapshot, model) -> ModelObserver.NONE;
+
+    /**
+     * The phases of a request validation.
+     */
+    enum Phase {
+        PARSE,
+        STRUCTURE,
+        LOOKUP,
+        TYPE_CHECK,
+        /** Parsing and checking interleaved in a single pass, see {@link StreamingRequestValidator}. */
+        STREAMING
+    }
+
+    /**
+     * The kinds of anomalies reported for request parameters.
+     */
+    enum AnomalyKind {
+        MISSING,
+        UNEXPECTED,
+        TYPE_MISMATCH,
+        VALUE_MISSING,
+        DUPLICATE,
+        /** The contents of an object or list value do not match its nested fields or items. */
+        SCHEMA_MISMATCH
+    }
+
+    /**
+     * Returns the observer of a model.
+     *
+     * @param snapshot The snapshot the model was found in
+     * @param model The matched model, or null if the request did not match a model
+     * @return The model's observer
+     */
+    ModelObserver forModel(ModelSnapshot snapshot, CompiledModel model);
+
+    /**
+     * Receives the phases and anomalies of the requests validated against one model.
+     */
+    interface ModelObserver {
+
+        /**
+         * Observer that records nothing.
+         */
+        ModelObserver NONE = new ModelObserver() {
+            @Override
+            public void record(Phase phase, long nanos) {
+            }
+
+            @Override
+            public void anomaly(CompiledSection section, CompiledParameter parameter, AnomalyKind kind) {
+            }
+
+            @Override
+            public void unexpected(CompiledSection section) {
+            }
+        };
+
+        /**
+         * Records the duration of a validation phase.
+         *
+         * @param phase The phase
+         * @param nanos The duration in nanoseconds
+         */
+        void record(Phase phase, long nanos);
+
+        /**
+         * Counts an anomaly of a declared parameter.
+         *
+         * @param section The section the parameter belongs to
+         * @param parameter The parameter
+         * @param kind The kind of anomaly
+         */
+        void anomaly(CompiledSection section, CompiledParameter parameter, AnomalyKind kind);
+
+        /**
+         * Counts a parameter the model does not declare.
+         *
+         * @param section The section the parameter was sent in
+         */
+        void unexpected(CompiledSection section);
+    }
+}
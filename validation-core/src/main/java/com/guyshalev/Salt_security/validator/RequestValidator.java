@@ -1,18 +1,31 @@
 package com.guyshalev.Salt_security.validator;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import org.springframework.stereotype.Component;
+import com.guyshalev.Salt_security.model.compiled.ParameterType;
+import com.guyshalev.Salt_security.service.TypeRegistry;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-@Component
 public class RequestValidator {
 
-    private static final List<String> VALID_TYPES = List.of(
-            "Int", "String", "Boolean", "List", "Date", "Email", "UUID", "Auth-Token"
-    );
+    /** Default maximum nesting depth of parameter definitions. */
+    public static final int DEFAULT_MAX_SCHEMA_DEPTH = 16;
+
+    private static final List<String> VALID_TYPES = ParameterType.names();
+
+    private final int maxSchemaDepth;
+    private final TypeRegistry typeRegistry;
+
+    /**
+     * @param maxSchemaDepth Maximum nesting depth of the fields and items of a parameter definition
+     * @param typeRegistry The custom types model definitions may use
+     */
+    public RequestValidator(int maxSchemaDepth, TypeRegistry typeRegistry) {
+        this.maxSchemaDepth = maxSchemaDepth;
+        this.typeRegistry = typeRegistry;
+    }
 
     public Map<String, String> validateRequest(JsonNode request) {
         Map<String, String> errors = new HashMap<>();
@@ -99,25 +112,77 @@ public class RequestValidator {
             return;
         }
 
-        for (int i = 0; i < sectionNode.size(); i++) {
-            JsonNode param = sectionNode.get(i);
-            String path = section + "[" + i + "]";
+        validateParameterDefinitions(sectionNode, section, 1, errors);
+    }
+
+    private void validateParameterDefinitions(JsonNode parameters, String path, int depth,
+                                              Map<String, String> errors) {
+        for (int i = 0; i < parameters.size(); i++) {
+            JsonNode param = parameters.get(i);
+            String paramPath = path + "[" + i + "]";
 
             if (!param.isObject()) {
-                errors.put(path, "Must be an object");
+                errors.put(paramPath, "Must be an object");
                 continue;
             }
 
             if (!param.has("name") || !param.get("name").isTextual()) {
-                errors.put(path + ".name", "Required and must be a string");
+                errors.put(paramPath + ".name", "Required and must be a string");
             }
 
-            validateTypes(param.get("types"), path, errors);
-
             if (!param.has("required") || !param.get("required").isBoolean()) {
-                errors.put(path + ".required", "Required and must be a boolean");
+                errors.put(paramPath + ".required", "Required and must be a boolean");
             }
+
+            validateParameterDefinition(param, paramPath, depth, errors);
+        }
+    }
+
+    /**
+     * Validates the types of a parameter, field or list item definition, and its nested "fields" and "items".
+     * Fields are only allowed for the Object type and items only for the List type, and definitions may be
+     * nested at most {@code maxSchemaDepth} levels deep.
+     */
+    private void validateParameterDefinition(JsonNode param, String path, int depth,
+                                             Map<String, String> errors) {
+        JsonNode types = param.get("types");
+        validateTypes(types, path, errors);
+
+        JsonNode fields = param.get("fields");
+        JsonNode items = param.get("items");
+        if ((fields != null || items != null) && depth >= maxSchemaDepth) {
+            errors.put(path, "Must not be nested more than " + maxSchemaDepth + " levels deep");
+            return;
+        }
+
+        if (fields != null) {
+            if (!hasType(types, ParameterType.OBJECT)) {
+                errors.put(path + ".fields", "Only allowed for the Object type");
+            } else if (!fields.isArray()) {
+                errors.put(path + ".fields", "Must be an array");
+            } else {
+                validateParameterDefinitions(fields, path + ".fields", depth + 1, errors);
+            }
+        }
+
+        if (items != null) {
+            if (!hasType(types, ParameterType.LIST)) {
+                errors.put(path + ".items", "Only allowed for the List type");
+            } else if (!items.isObject()) {
+                errors.put(path + ".items", "Must be an object");
+            } else {
+                validateParameterDefinition(items, path + ".items", depth + 1, errors);
+            }
+        }
+    }
+
+    private static boolean hasType(JsonNode types, ParameterType type) {
+        if (types == null || !types.isArray()) return false;
+
+        for (JsonNode name : types) {
+            if (type.getTypeName().equals(name.asText())) return true;
         }
+        return false;
     }
 
     private void validateTypes(JsonNode types, String path, Map<String, String> errors) {
@@ -133,9 +198,10 @@ public class RequestValidator {
 
         for (int i = 0; i < types.size(); i++) {
             JsonNode type = types.get(i);
-            if (!type.isTextual() || !VALID_TYPES.contains(type.asText())) {
+            if (!type.isTextual()
+                    || (!VALID_TYPES.contains(type.asText()) && typeRegistry.find(type.asText()) == null)) {
                 errors.put(path + ".types[" + i + "]",
-                        "Must be one of: " + String.join(", ", VALID_TYPES));
+                        "Must be one of: " + String.join(", ", VALID_TYPES) + ", or a registered custom type");
             }
         }
     }
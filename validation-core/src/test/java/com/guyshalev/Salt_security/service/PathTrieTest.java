@@ -0,0 +1,171 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.model.compiled.CompiledModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PathTrie.
+ * Covers literal and template matching, literal precedence and backtracking into template branches.
+ */
+class PathTrieTest {
+
+    private PathTrie trie;
+
+    private static CompiledModel model(String path) {
+        return new CompiledModel(path, "GET", null, null, null);
+    }
+
+    private String findPath(String requestPath) {
+        CompiledModel model = trie.find(requestPath);
+        return model == null ? null : model.getPath();
+    }
+
+    @BeforeEach
+    void setup() {
+        trie = PathTrie.of(List.of(
+                model("/users/info"),
+                model("/users/{id}"),
+                model("/users/{id}/orders"),
+                model("/users/me/orders/{orderId}"),
+                model("/users/{userId}/profile"),
+                model("/items/{id}/")
+        ));
+    }
+
+    @Test
+    void whenPathIsLiteral_thenMatchesExactly() {
+        assertEquals("/users/info", findPath("/users/info"));
+        assertNull(findPath("/users/info/extra"));
+        assertNull(findPath("users/info"));
+    }
+
+    @Test
+    void whenPathHasTemplateSegment_thenMatchesAnySegmentValue() {
+        assertEquals("/users/{id}", findPath("/users/42"));
+        assertEquals("/users/{id}/orders", findPath("/users/42/orders"));
+        assertEquals("/items/{id}/", findPath("/items/7/"));
+        assertNull(findPath("/items/7"));
+    }
+
+    @Test
+    void whenLiteralAndTemplateBothMatch_thenLiteralWins() {
+        assertEquals("/users/info", findPath("/users/info"));
+        assertEquals("/users/me/orders/{orderId}", findPath("/users/me/orders/9"));
+    }
+
+    @Test
+    void whenLiteralBranchHasNoMatch_thenFallsBackToTemplate() {
+        assertEquals("/users/{id}/orders", findPath("/users/me/orders"));
+        assertEquals("/users/{userId}/profile", findPath("/users/me/profile"));
+    }
+
+    @Test
+    void whenEveryLevelHasLiteralAndTemplateModels_thenBacktracksToTheRightModel() {
+        // Every combination of a literal and a template segment at each of the levels, so that a request whose
+        // last segment only matches the all-template model visits every node of the trie
+        int levels = 12;
+        List<CompiledModel> models = new ArrayList<>();
+        for (int combination = 0; combination < 1 << levels; combination++) {
+            StringBuilder path = new StringBuilder();
+            for (int level = 0; level < levels; level++) {
+                path.append((combination & 1 << level) == 0 ? "/a" : "/{p" + level + "}");
+            }
+            models.add(model(path + "/z"));
+        }
+        models.add(model("/{p}".repeat(levels) + "/y"));
+        trie = PathTrie.of(models);
+
+        assertEquals("/{p}".repeat(levels) + "/y", findPath("/a".repeat(levels) + "/y"));
+        assertEquals("/a".repeat(levels) + "/z", findPath("/a".repeat(levels) + "/z"));
+        assertEquals("/{p0}" + "/a".repeat(levels - 1) + "/z", findPath("/b" + "/a".repeat(levels - 1) + "/z"));
+        assertEquals("/a".repeat(levels - 1) + "/{p" + (levels - 1) + "}/z",
+                findPath("/a".repeat(levels - 1) + "/b/z"));
+        assertNull(findPath("/a".repeat(levels) + "/x"));
+    }
+
+    @Test
+    void whenTemplateSegmentIsEmpty_thenDoesNotMatch() {
+        assertNull(findPath("/users/"));
+        assertNull(findPath("/users//orders"));
+    }
+
+    @Test
+    void whenCheckingTemplateSegments_thenRequiresBracesAndName() {
+        assertTrue(PathTrie.isTemplate("{id}"));
+        assertFalse(PathTrie.isTemplate("{}"));
+        assertFalse(PathTrie.isTemplate("id"));
+        assertFalse(PathTrie.isTemplate("file.{ext}"));
+    }
+
+    @Test
+    void whenAddingModel_thenOriginalTrieIsUnchanged() {
+        PathTrie updated = trie.with(model("/users/{id}/settings"));
+
+        assertEquals(6, trie.size());
+        assertEquals(7, updated.size());
+        assertNull(findPath("/users/42/settings"));
+        assertEquals("/users/{id}/settings", updated.find("/users/42/settings").getPath());
+        assertEquals("/users/{id}/orders", updated.find("/users/42/orders").getPath());
+    }
+
+    @Test
+    void whenReplacingModel_thenSizeIsUnchanged() {
+        CompiledModel replacement = new CompiledModel("/users/info", "GET", null, null, null);
+
+        PathTrie updated = trie.with(replacement);
+
+        assertEquals(6, updated.size());
+        assertSame(replacement, updated.find("/users/info"));
+    }
+
+    @Test
+    void whenRemovingModel_thenOtherModelsRemain() {
+        PathTrie updated = trie.without("/users/me/orders/{orderId}");
+
+        assertEquals(5, updated.size());
+        assertEquals("/users/me/orders/{orderId}", findPath("/users/me/orders/9"));
+        assertNull(updated.find("/users/me/orders/9"));
+        assertEquals("/users/{id}/orders", updated.find("/users/me/orders").getPath());
+        assertSame(updated, updated.without("/users/me/orders/{orderId}"));
+        assertSame(trie, trie.without("/unknown"));
+    }
+
+    @Test
+    void whenRemovingAllModels_thenTrieIsEmpty() {
+        PathTrie updated = trie;
+        for (String path : List.of("/users/info", "/users/{id}", "/users/{id}/orders",
+                "/users/me/orders/{orderId}", "/users/{userId}/profile", "/items/{id}/")) {
+            updated = updated.without(path);
+        }
+
+        assertEquals(0, updated.size());
+        assertNull(updated.find("/users/info"));
+        assertEquals("/users/info", updated.with(model("/users/info")).find("/users/info").getPath());
+    }
+
+    @Test
+    void whenGettingByModelPath_thenTemplateSegmentsMatchOnlyTemplates() {
+        assertEquals("/users/{id}", trie.get("/users/{id}").getPath());
+        assertEquals("/users/{id}", trie.get("/users/{other}").getPath());
+        assertNull(trie.get("/users/42"));
+        assertEquals("/users/{}/orders", PathTrie.normalize("/users/{userId}/orders"));
+    }
+
+    @Test
+    void whenListingModels_thenEveryModelIsReturnedOnce() {
+        List<String> paths = trie.models().stream()
+                .map(CompiledModel::getPath)
+                .sorted()
+                .toList();
+
+        assertEquals(List.of("/items/{id}/", "/users/info", "/users/me/orders/{orderId}", "/users/{id}",
+                "/users/{id}/orders", "/users/{userId}/profile"), paths);
+        assertEquals(trie.size(), paths.size());
+    }
+}
@@ -0,0 +1,95 @@
+package com.guyshalev.Salt_security.service;
+
+import com.guyshalev.Salt_security.model.compiled.CustomType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TypePatternCompiler.
+ * Compiled automata must accept exactly the values {@code java.util.regex} fully matches.
+ */
+class TypePatternCompilerTest {
+
+    private static final String ALPHABET = "0123456789abcxyzABCXYZ_-.:+T @é\n";
+
+    private final TypePatternCompiler compiler = new TypePatternCompiler();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "tnt-[0-9a-f]{8}",
+            "\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}(\\.\\d{1,3})?(Z|[+-]\\d{2}:\\d{2})",
+            "((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)",
+            "^\\+?[1-9]\\d{6,14}$",
+            "(?:a|b)*abb",
+            "[^\\s@]+@[\\w.-]+",
+            "x{2,}|y?z+|.",
+            "[]a-]\\W\\S\\D",
+            ""
+    })
+    void whenMatchingGeneratedValues_thenAgreesWithJavaRegex(String pattern) {
+        CustomType type = compiler.compile("Test", pattern);
+        Pattern expected = Pattern.compile(pattern);
+
+        Random random = new Random(pattern.hashCode());
+        List<String> values = new ArrayList<>(List.of("", "tnt-0123abcd", "2024-01-31T12:30:00.5+02:00",
+                "2024-01-31T12:30:00Z", "192.168.0.1", "256.1.1.1", "+972501234567", "abb", "babb",
+                "user@example.com", "xx", "zz", "]x y"));
+        for (int i = 0; i < 5_000; i++) {
+            String seed = values.get(random.nextInt(13));
+            StringBuilder value = new StringBuilder(seed);
+            for (int edits = random.nextInt(3); edits > 0; edits--) {
+                int position = random.nextInt(value.length() + 1);
+                char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+                if (position < value.length() && random.nextBoolean()) {
+                    value.setCharAt(position, c);
+                } else {
+                    value.insert(position, c);
+                }
+            }
+            values.add(value.toString());
+        }
+
+        for (String value : values) {
+            assertEquals(expected.matcher(value).matches(), type.matches(value),
+                    () -> "'" + pattern + "' disagrees on '" + value + "'");
+        }
+    }
+
+    @Test
+    void whenPatternBacktracksExponentially_thenAutomatonStaysSmallAndLinear() {
+        CustomType type = compiler.compile("Test", "(a|aa)*(a|a)*b");
+        String hostile = "a".repeat(100_000);
+
+        assertFalse(type.matches(hostile));
+        assertTrue(type.matches(hostile + "b"));
+        assertTrue(type.getStateCount() < 10);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "(a)\\1", "a(?=b)", "(?<name>a)", "a*?", "a++", "*a", "a{3,2}", "a{1001}", "(a", "a)",
+            "[a", "[b-a]", "[a-z&&[^x]]", "a^b", "a$b", "\\p{L}", "\\"
+    })
+    void whenPatternUsesUnsupportedSyntax_thenRejected(String pattern) {
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("Test", pattern));
+    }
+
+    @Test
+    void whenPatternNeedsTooManyStates_thenRejected() {
+        TypePatternCompiler limited = new TypePatternCompiler(TypePatternCompiler.DEFAULT_MAX_PATTERN_LENGTH, 100);
+
+        // Remembering the 10th character from the end needs 2^10 deterministic states
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> limited.compile("Test", "[ab]*a[ab]{9}"));
+        assertTrue(e.getMessage().contains("more than 100 automaton states"));
+        assertThrows(IllegalArgumentException.class, () -> limited.compile("Test", "x".repeat(513)));
+    }
+}
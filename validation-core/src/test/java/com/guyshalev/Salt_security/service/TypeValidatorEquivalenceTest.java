@@ -0,0 +1,157 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.guyshalev.Salt_security.model.compiled.ParameterType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the character-scanning checkers in TypeValidator give the same answers as the
+ * regex and {@code LocalDate.parse} based checks they replaced.
+ */
+class TypeValidatorEquivalenceTest {
+
+    private static final List<String> TYPES = List.of(
+            "Int", "String", "Boolean", "List", "Date", "Email", "UUID", "Auth-Token"
+    );
+
+    private static final String ALPHABET = "0123456789abcdefABCDEFxyzXYZ_-.@+ :/\\Bearrſ٢é\n";
+
+    private static final List<String> SEEDS = List.of(
+            "42", "-42", "0", "-", "", " ", "007", "12.5", "1e3", "٢٠",
+            "true", "FALSE", "TrUe", "falſe", "yes",
+            "01-01-2024", "31-04-2024", "29-02-2023", "00-01-2024", "01-13-2024", "01-01-0000", "01-01-0001",
+            "01-01-12345", "01-01-+12345", "01-01-+2024", "01-01--2024", "01-01-+999999999",
+            "01-01-+1000000000", "01-01-+0000000000000000001", "01-01-+00000000000000000001", "1-1-2024",
+            "test@example.com", "a.b-c_d@sub.domain.info", "test@domain..com", "test@com.", "@x.com",
+            "a@b.c", "a@b.abcde", "a@@b.com", "a@b_c.d-e", "test@example.com\n",
+            "123e4567-e89b-12d3-a456-426614174000", "123E4567-E89B-12D3-A456-42661417400G",
+            "123e4567e89b12d3a456426614174000", "123e4567-e89b-12d3-a456-4266141740000",
+            "Bearer abc123", "Bearer ", "bearer abc", "Bearer abc!", "Bearer  abc", "BearerX"
+    );
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
+    private static final Pattern UUID_PATTERN = Pattern.compile("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$");
+    private static final Pattern AUTH_TOKEN_PATTERN = Pattern.compile("^Bearer [a-zA-Z0-9]+$");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private final TypeValidator typeValidator = new TypeValidator(TypeValidator.DEFAULT_MAX_SCHEMA_ELEMENTS);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void whenValidatingGeneratedStrings_thenMatchesRegexImplementation() {
+        Random random = new Random(20241016L);
+        List<String> values = new ArrayList<>(SEEDS);
+
+        for (int i = 0; i < 20_000; i++) {
+            values.add(mutate(SEEDS.get(random.nextInt(SEEDS.size())), random));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            values.add(randomString(random, random.nextInt(40)));
+        }
+
+        for (String value : values) {
+            JsonNode node = TextNode.valueOf(value);
+            int expectedMask = 0;
+            for (String type : TYPES) {
+                boolean expected = legacyIsValidType(node, type);
+                assertEquals(expected, typeValidator.isValidType(node, type),
+                        () -> type + " disagrees on '" + value + "'");
+                if (expected) {
+                    expectedMask |= ParameterType.maskOf(List.of(type));
+                }
+            }
+            assertEquals(expectedMask, typeValidator.classify(node), () -> "classify disagrees on '" + value + "'");
+        }
+    }
+
+    @Test
+    void whenValidatingNonTextualValues_thenMatchesRegexImplementation() {
+        List<JsonNode> values = List.of(
+                objectMapper.valueToTree(42),
+                objectMapper.valueToTree(-42L),
+                objectMapper.valueToTree(Long.MAX_VALUE),
+                objectMapper.valueToTree(1.5),
+                objectMapper.valueToTree(new java.math.BigInteger("123456789012345678901234567890")),
+                objectMapper.valueToTree(true),
+                objectMapper.valueToTree(new int[]{1, 2, 3}),
+                objectMapper.createObjectNode(),
+                objectMapper.nullNode()
+        );
+
+        for (JsonNode value : values) {
+            for (String type : TYPES) {
+                assertEquals(legacyIsValidType(value, type), typeValidator.isValidType(value, type),
+                        () -> type + " disagrees on " + value);
+            }
+        }
+    }
+
+    private static String mutate(String seed, Random random) {
+        StringBuilder builder = new StringBuilder(seed);
+        int edits = 1 + random.nextInt(3);
+        for (int i = 0; i < edits; i++) {
+            int position = builder.isEmpty() ? 0 : random.nextInt(builder.length());
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            switch (random.nextInt(3)) {
+                case 0 -> builder.insert(position, c);
+                case 1 -> {
+                    if (!builder.isEmpty()) builder.deleteCharAt(position);
+                }
+                default -> {
+                    if (!builder.isEmpty()) builder.setCharAt(position, c);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The type checks as they were implemented with regular expressions and {@code LocalDate.parse}.
+     */
+    private static boolean legacyIsValidType(JsonNode value, String type) {
+        return switch (type) {
+            case "Auth-Token" -> value.isTextual() && AUTH_TOKEN_PATTERN.matcher(value.asText()).matches();
+            case "UUID" -> value.isTextual() && UUID_PATTERN.matcher(value.asText()).matches();
+            case "Email" -> value.isTextual() && EMAIL_PATTERN.matcher(value.asText()).matches();
+            case "Date" -> legacyValidateDate(value);
+            case "Boolean" -> value.isBoolean() ||
+                    (value.isTextual() && (value.asText().equalsIgnoreCase("true")
+                            || value.asText().equalsIgnoreCase("false")));
+            case "Int" -> value.isInt() || value.isLong() ||
+                    (value.isTextual() && value.asText().matches("-?\\d+"));
+            case "String" -> value.isTextual();
+            case "List" -> value.isArray();
+            default -> false;
+        };
+    }
+
+    private static boolean legacyValidateDate(JsonNode value) {
+        if (!value.isTextual()) return false;
+        try {
+            LocalDate.parse(value.asText(), DATE_FORMATTER);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
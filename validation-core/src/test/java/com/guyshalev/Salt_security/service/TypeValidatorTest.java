@@ -2,6 +2,9 @@ package com.guyshalev.Salt_security.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.compiled.ParameterType;
+import com.guyshalev.Salt_security.service.TypeValidator.SchemaViolation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -20,7 +23,7 @@ class TypeValidatorTest {
 
     @BeforeEach
     void setup() {
-        typeValidator = new TypeValidator();
+        typeValidator = new TypeValidator(TypeValidator.DEFAULT_MAX_SCHEMA_ELEMENTS);
         objectMapper = new ObjectMapper();
     }
 
@@ -211,6 +214,98 @@ class TypeValidatorTest {
         assertFalse(typeValidator.isValidType(objectMapper.valueToTree(true), "List"));
     }
 
+    /**
+     * Object Tests
+     */
+    @Test
+    void whenValidatingObject_thenOnlyObjectsMatch() throws Exception {
+        assertTrue(typeValidator.isValidType(objectMapper.createObjectNode(), "Object"));
+        assertFalse(typeValidator.isValidType(objectMapper.createArrayNode(), "Object"));
+        assertFalse(typeValidator.isValidType(objectMapper.valueToTree("{}"), "Object"));
+    }
+
+    /**
+     * Nested Schema Tests
+     */
+    private static final String NESTED_MODEL = """
+            {
+                "path": "/orders",
+                "method": "POST",
+                "body": [
+                    {
+                        "name": "order",
+                        "types": ["Object"],
+                        "required": true,
+                        "fields": [
+                            {"name": "id", "types": ["UUID"], "required": true},
+                            {"name": "note", "types": ["String"], "required": false},
+                            {
+                                "name": "lines",
+                                "types": ["List"],
+                                "required": true,
+                                "items": {
+                                    "types": ["Object"],
+                                    "fields": [
+                                        {"name": "sku", "types": ["String"], "required": true},
+                                        {"name": "quantity", "types": ["Int"], "required": true},
+                                        {"name": "tags", "types": ["List"], "required": false, "items": {"types": ["String"]}}
+                                    ]
+                                }
+                            }
+                        ]
+                    }
+                ]
+            }""";
+
+    private CompiledParameter nestedParameter() throws Exception {
+        return new ModelCompiler(objectMapper, new TypeRegistry()).compile(objectMapper.readTree(NESTED_MODEL))
+                .getSection("body").getParameter("order");
+    }
+
+    private SchemaViolation checkOrder(String order) throws Exception {
+        return typeValidator.checkSchema(objectMapper.readTree(order), nestedParameter());
+    }
+
+    @Test
+    void whenNestedValueMatchesSchema_thenNoViolation() throws Exception {
+        assertNull(checkOrder("""
+                {"id": "123e4567-e89b-12d3-a456-426614174000",
+                 "lines": [{"sku": "A-1", "quantity": 2, "tags": ["gift"]}, {"sku": "B-2", "quantity": "3"}]}"""));
+    }
+
+    @Test
+    void whenNestedValueDoesNotMatchSchema_thenReportsPathOfFirstViolation() throws Exception {
+        SchemaViolation violation = checkOrder("""
+                {"id": "123e4567-e89b-12d3-a456-426614174000",
+                 "lines": [{"sku": "A-1", "quantity": 2}, {"sku": "B-2", "quantity": 1, "tags": ["x", 7]}]}""");
+        assertEquals(SchemaViolation.Reason.TYPE_MISMATCH, violation.getReason());
+        assertEquals("lines[1].tags[1]", violation.getPath());
+        assertEquals("Value at 'lines[1].tags[1]' does not match any of the allowed types: [\"String\"]",
+                violation.message());
+
+        violation = checkOrder("""
+                {"id": "123e4567-e89b-12d3-a456-426614174000", "lines": [{"sku": "A-1"}]}""");
+        assertEquals(SchemaViolation.Reason.MISSING_FIELD, violation.getReason());
+        assertEquals("Required field is missing at 'lines[0].quantity'", violation.message());
+
+        violation = checkOrder("""
+                {"id": "123e4567-e89b-12d3-a456-426614174000", "lines": [], "discount": 10}""");
+        assertEquals(SchemaViolation.Reason.UNEXPECTED_FIELD, violation.getReason());
+        assertEquals("Unexpected field at 'discount'", violation.message());
+    }
+
+    @Test
+    void whenNestedValueHasMoreElementsThanAllowed_thenStopsAtLimit() throws Exception {
+        typeValidator = new TypeValidator(5);
+
+        // id, lines, and the sku and quantity of the first line fit; the second line does not
+        SchemaViolation violation = checkOrder("""
+                {"id": "123e4567-e89b-12d3-a456-426614174000",
+                 "lines": [{"sku": "A-1", "quantity": 1}, {"sku": "B-2", "quantity": 1}]}""");
+        assertEquals(SchemaViolation.Reason.TOO_MANY_ELEMENTS, violation.getReason());
+        assertEquals("lines[1]", violation.getPath());
+    }
+
     /**
      * Invalid Type Tests
      */
@@ -230,4 +325,40 @@ class TypeValidatorTest {
         JsonNode value = objectMapper.valueToTree("test");
         assertFalse(typeValidator.isValidType(value, null));
     }
-}
\ No newline at end of file
+
+    /**
+     * Classifier Tests
+     */
+    @Test
+    void whenClassifyingValues_thenMaskContainsEverySatisfiedType() throws Exception {
+        assertEquals(ParameterType.STRING.getBit() | ParameterType.INT.getBit(),
+                typeValidator.classify(objectMapper.valueToTree("123")));
+        assertEquals(ParameterType.STRING.getBit() | ParameterType.BOOLEAN.getBit(),
+                typeValidator.classify(objectMapper.valueToTree("TRUE")));
+        assertEquals(ParameterType.STRING.getBit() | ParameterType.UUID.getBit(),
+                typeValidator.classify(objectMapper.valueToTree("123e4567-e89b-12d3-a456-426614174000")));
+        assertEquals(ParameterType.INT.getBit(), typeValidator.classify(objectMapper.valueToTree(42)));
+        assertEquals(ParameterType.LIST.getBit(), typeValidator.classify(objectMapper.createArrayNode()));
+        assertEquals(ParameterType.OBJECT.getBit(), typeValidator.classify(objectMapper.createObjectNode()));
+        assertEquals(0, typeValidator.classify(objectMapper.nullNode()));
+        assertEquals(0, typeValidator.classify(null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "-", "42", "-42", "true", "false", "01-01-2024", "31-04-2024", "test@example.com",
+            "a@b.cd", "Bearer abc123", "123e4567-e89b-12d3-a456-426614174000", "not-a-type"
+    })
+    void whenClassifyingStrings_thenMaskMatchesIsValidType(String text) throws Exception {
+        JsonNode value = objectMapper.valueToTree(text);
+
+        int expected = 0;
+        for (ParameterType type : ParameterType.values()) {
+            if (typeValidator.isValidType(value, type.getTypeName())) {
+                expected |= type.getBit();
+            }
+        }
+
+        assertEquals(expected, typeValidator.classify(value));
+    }
+}
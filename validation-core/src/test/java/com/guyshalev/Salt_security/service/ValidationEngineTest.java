@@ -0,0 +1,169 @@
+package com.guyshalev.Salt_security.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guyshalev.Salt_security.model.compiled.CompiledParameter;
+import com.guyshalev.Salt_security.model.compiled.CompiledSection;
+import com.guyshalev.Salt_security.model.dto.ValidationResultDTO;
+import com.guyshalev.Salt_security.service.ValidationObserver.AnomalyKind;
+import com.guyshalev.Salt_security.service.ValidationObserver.ModelObserver;
+import com.guyshalev.Salt_security.service.ValidationObserver.Phase;
+import com.guyshalev.Salt_security.validator.RequestValidator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ValidationEngine used on its own, the way an embedding application would use it:
+ * models are compiled into a snapshot and requests are validated against it, without Spring or a database.
+ */
+class ValidationEngineTest {
+
+    private static final String MODEL = """
+            {
+                "path": "/users/{id}",
+                "method": "GET",
+                "query_params": [
+                    {"name": "verbose", "types": ["Boolean"], "required": false}
+                ],
+                "headers": [
+                    {"name": "Authorization", "types": ["Auth-Token"], "required": true}
+                ],
+                "body": []
+            }""";
+
+    private static final String MODELS = "[" + MODEL + "]";
+
+    private static final String VALID_REQUEST = """
+            {
+                "path": "/users/42",
+                "method": "GET",
+                "query_params": [{"name": "verbose", "value": true}],
+                "headers": [{"name": "Authorization", "value": "Bearer abc123"}],
+                "body": []
+            }""";
+
+    private static final String INVALID_REQUEST = """
+            {
+                "path": "/users/42",
+                "method": "GET",
+                "query_params": [{"name": "verbose", "value": "yes"}, {"name": "debug", "value": true}],
+                "headers": [],
+                "body": []
+            }""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void whenRequestMatchesModel_thenValid(boolean streaming) {
+        ValidationEngine engine = new ValidationEngine(objectMapper, new TypeRegistry(), streaming);
+        ModelSnapshot snapshot = engine.compileSnapshot(MODELS, 1);
+
+        ValidationResultDTO fromString = engine.validate(VALID_REQUEST, snapshot);
+        ValidationResultDTO fromBytes = engine.validate(VALID_REQUEST.getBytes(StandardCharsets.UTF_8), snapshot);
+
+        assertTrue(fromString.isValid(), () -> fromString.getAnomalies().toString());
+        assertTrue(fromBytes.isValid(), () -> fromBytes.getAnomalies().toString());
+        assertEquals(1, fromString.getModelVersion());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void whenRequestViolatesModel_thenReportsEveryAnomaly(boolean streaming) {
+        ValidationEngine engine = new ValidationEngine(objectMapper, new TypeRegistry(), streaming);
+        ModelSnapshot snapshot = engine.compileSnapshot(MODELS, 1);
+
+        ValidationResultDTO result = engine.validate(INVALID_REQUEST, snapshot);
+
+        assertFalse(result.isValid());
+        assertEquals(Set.of("query_params.verbose", "query_params.debug", "headers.Authorization"),
+                result.getAnomalies().keySet());
+        assertEquals("Unexpected parameter", result.getAnomalies().get("query_params.debug"));
+        assertEquals("Required parameter is missing", result.getAnomalies().get("headers.Authorization"));
+    }
+
+    @Test
+    void whenFailFast_thenReportsOnlyVerdict() {
+        ValidationEngine engine = new ValidationEngine(objectMapper);
+        ModelSnapshot snapshot = engine.compileSnapshot(MODELS, 1);
+
+        ValidationResultDTO result = engine.validate(INVALID_REQUEST.getBytes(StandardCharsets.UTF_8),
+                objectMapper, snapshot, true);
+
+        assertFalse(result.isValid());
+        assertTrue(result.getAnomalies().isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void whenFailFast_thenPublishesFirstAnomaly(boolean streaming) {
+        ValidationEngine engine = new ValidationEngine(objectMapper, new TypeRegistry(), streaming);
+        ModelSnapshot snapshot = engine.compileSnapshot(MODELS, 1);
+        List<Map<String, String>> published = new ArrayList<>();
+        AnomalyPublisher publisher = (version, method, path, modelPath, anomalies) -> published.add(anomalies);
+
+        ValidationResultDTO result = engine.validate(INVALID_REQUEST.getBytes(StandardCharsets.UTF_8),
+                objectMapper, snapshot, true, publisher);
+        ValidationResultDTO missing = engine.validate(VALID_REQUEST.replace("\"Authorization\"", "\"Other\"")
+                .getBytes(StandardCharsets.UTF_8), objectMapper, snapshot, true, publisher);
+
+        assertTrue(result.getAnomalies().isEmpty());
+        assertTrue(missing.getAnomalies().isEmpty());
+        assertEquals(List.of(
+                Map.of("query_params.verbose", "Value does not match any of the allowed types"),
+                Map.of("headers.Other", "Unexpected parameter")), published);
+    }
+
+    @Test
+    void whenRequestRejected_thenObserverAndPublisherAreCalled() {
+        List<AnomalyKind> kinds = new ArrayList<>();
+        List<String> published = new ArrayList<>();
+        ModelObserver modelObserver = new ModelObserver() {
+            @Override
+            public void record(Phase phase, long nanos) {
+            }
+
+            @Override
+            public void anomaly(CompiledSection section, CompiledParameter parameter, AnomalyKind kind) {
+                kinds.add(kind);
+            }
+
+            @Override
+            public void unexpected(CompiledSection section) {
+                kinds.add(AnomalyKind.UNEXPECTED);
+            }
+        };
+        AnomalyPublisher publisher = (version, method, path, modelPath, anomalies) -> published.add(modelPath);
+
+        TypeRegistry typeRegistry = new TypeRegistry();
+        TypeValidator typeValidator = new TypeValidator(TypeValidator.DEFAULT_MAX_SCHEMA_ELEMENTS);
+        ValidationObserver observer = (snapshot, model) -> modelObserver;
+        ValidationEngine engine = new ValidationEngine(objectMapper,
+                new RequestValidator(RequestValidator.DEFAULT_MAX_SCHEMA_DEPTH, typeRegistry), typeValidator,
+                new ModelCompiler(objectMapper, typeRegistry),
+                new StreamingRequestValidator(objectMapper, typeValidator, observer, AnomalyPublisher.NONE),
+                observer, publisher, false);
+
+        engine.validate(INVALID_REQUEST, engine.compileSnapshot(MODELS, 1));
+
+        assertEquals(List.of(AnomalyKind.TYPE_MISMATCH, AnomalyKind.UNEXPECTED, AnomalyKind.MISSING), kinds);
+        assertEquals(List.of("/users/{id}"), published);
+    }
+
+    @Test
+    void whenModelsAreInvalid_thenCompileSnapshotThrows() {
+        ValidationEngine engine = new ValidationEngine(objectMapper);
+
+        assertThrows(IllegalArgumentException.class, () -> engine.compileSnapshot("{}", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.compileSnapshot("[" + MODEL + ", " + MODEL + "]", 1));
+    }
+}